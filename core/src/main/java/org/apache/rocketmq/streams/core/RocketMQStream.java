@@ -20,6 +20,7 @@ import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.exception.RStreamsException;
 import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.streams.core.running.WorkerThread;
+import org.apache.rocketmq.streams.core.state.LookupTable;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,6 +82,7 @@ public class RocketMQStream {
             thread.shutdown();
         }
         workerThreads.clear();
+        LookupTable.closeAll();
         this.started.set(false);
     }
 
@@ -46,8 +46,17 @@ public class AvgAccumulator<V> implements Accumulator<V, Double> {
             AvgAccumulator<V> otherAvgAccumulator = (AvgAccumulator) other;
             Integer numOther = otherAvgAccumulator.getNum();
             Double avgOther = otherAvgAccumulator.getAvg();
+            if (avgOther == null || numOther == null || numOther == 0) {
+                return;
+            }
+
+            if (avg == null) {
+                avg = avgOther;
+                num = numOther;
+                return;
+            }
 
-            avg = avg + numOther / (num + numOther) * (avgOther - avg);
+            avg = avg + (double) numOther / (num + numOther) * (avgOther - avg);
             num = num + numOther;
         } else {
             throw new IllegalArgumentException("Merge avg, input is not a AvgAccumulator.");
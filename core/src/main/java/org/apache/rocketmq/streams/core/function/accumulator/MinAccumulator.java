@@ -38,12 +38,21 @@ public class MinAccumulator<V> implements Accumulator<V, Double> {
 
     @Override
     public void merge(Accumulator<V, Double> other) {
-        min = Math.min(min.doubleValue(), other.result(null));
+        Double otherMin = other.result(null);
+        if (otherMin == null) {
+            return;
+        }
+
+        if (min == null) {
+            min = otherMin;
+        } else {
+            min = Math.min(min.doubleValue(), otherMin);
+        }
     }
 
     @Override
     public Double result(Properties context) {
-        return min.doubleValue();
+        return min == null ? null : min.doubleValue();
     }
 
     @Override
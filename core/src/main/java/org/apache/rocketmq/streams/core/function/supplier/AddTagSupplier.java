@@ -19,12 +19,14 @@ package org.apache.rocketmq.streams.core.function.supplier;
 import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
 
 import java.util.Properties;
 import java.util.function.Supplier;
 
-public class AddTagSupplier<T> implements Supplier<Processor<T>> {
+public class AddTagSupplier<T> implements Supplier<Processor<T>>, ChainableSupplier {
     private final Properties properties = new Properties();
 
     public AddTagSupplier(Supplier<Object> value) {
@@ -40,6 +42,16 @@ public class AddTagSupplier<T> implements Supplier<Processor<T>> {
         return new AddTagProcessor(properties);
     }
 
+    @Override
+    public ChainedProcessor.Step step() {
+        Properties tags = new Properties();
+        tags.putAll(this.properties);
+        return record -> {
+            record.getHeader().putAll(tags);
+            return true;
+        };
+    }
+
     class AddTagProcessor extends AbstractProcessor<T> {
         private final Properties properties = new Properties();
 
@@ -22,10 +22,14 @@ import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
 import org.apache.rocketmq.streams.core.function.AggregateAction;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.BatchProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.RecordBatch;
 import org.apache.rocketmq.streams.core.running.StreamContext;
 import org.apache.rocketmq.streams.core.state.StateStore;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Supplier;
 
 public class AggregateSupplier<K, V, OV> implements Supplier<Processor<V>> {
@@ -47,7 +51,7 @@ public class AggregateSupplier<K, V, OV> implements Supplier<Processor<V>> {
         return new AggregateProcessor(currentName, parentName, initAction, aggregateAction);
     }
 
-    private class AggregateProcessor extends AbstractProcessor<V> {
+    private class AggregateProcessor extends AbstractProcessor<V> implements BatchProcessor {
         private final String currentName;
         private final String parentName;
         private final Supplier<OV> initAction;
@@ -97,5 +101,48 @@ public class AggregateSupplier<K, V, OV> implements Supplier<Processor<V>> {
             this.context.forward(convert);
         }
 
+        /**
+         * state of a key is read once per batch, and written record by record like process, so a failed record leaves the
+         * state of the records before it. Result of every record is forwarded as that record.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void processBatch(RecordBatch batch) throws Throwable {
+            Map<String, Aggregate> aggregates = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                K key = (K) batch.getKey(i);
+
+                Aggregate aggregate = aggregates.get(super.toHexString(key));
+                if (aggregate == null) {
+                    aggregate = new Aggregate(super.object2Byte(key));
+                    byte[] valueBytes = stateStore.get(aggregate.keyBytes);
+                    if (valueBytes == null || valueBytes.length == 0) {
+                        aggregate.value = initAction.get();
+                    } else {
+                        aggregate.value = super.byte2Object(valueBytes);
+                    }
+                    aggregates.put(super.toHexString(key), aggregate);
+                }
+
+                aggregate.value = aggregateAction.calculate(key, (V) batch.getValue(i), aggregate.value);
+                super.stateStoreOf(key).put(this.stateTopicMessageQueue, aggregate.keyBytes, super.object2Byte(aggregate.value));
+
+                //结果可能被原地修改，逐条发送
+                this.context.setCurrentRecord(batch, i);
+                Data<K, OV> temp = new Data<>(key, aggregate.value, batch.getTimestamp(i), batch.getHeader(i));
+                Data<K, V> convert = super.convert(temp);
+                this.context.forward(convert);
+            }
+        }
+
+        private class Aggregate {
+            private final byte[] keyBytes;
+            private OV value;
+
+            Aggregate(byte[] keyBytes) {
+                this.keyBytes = keyBytes;
+            }
+        }
+
     }
 }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.function.supplier;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
+import org.apache.rocketmq.streams.core.function.ValueMapperAction;
+import org.apache.rocketmq.streams.core.metadata.Data;
+import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.InFlightTracker;
+import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.StreamContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * map with CompletableFuture, at most maxInFlight records are waiting for result at the same time.
+ * <p>
+ * Results are emitted by worker thread, in the order of input if ordered is true, otherwise in the order of completion.
+ * Record which is not completed in timeout is discarded.
+ */
+public class AsyncValueChangeSupplier<T, O> implements Supplier<Processor<T>> {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncValueChangeSupplier.class.getName());
+
+    private final ValueMapperAction<T, CompletableFuture<O>> valueMapperAction;
+    private final int maxInFlight;
+    private final long timeout;
+    private final boolean ordered;
+
+    public AsyncValueChangeSupplier(ValueMapperAction<T, CompletableFuture<O>> valueMapperAction, int maxInFlight, long timeout, boolean ordered) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive. maxInFlight=" + maxInFlight);
+        }
+        this.valueMapperAction = valueMapperAction;
+        this.maxInFlight = maxInFlight;
+        this.timeout = timeout;
+        this.ordered = ordered;
+    }
+
+    @Override
+    public Processor<T> get() {
+        return new AsyncValueMapperProcessor();
+    }
+
+    class AsyncValueMapperProcessor extends AbstractProcessor<T> implements InFlightTracker.Drainable {
+        private final ArrayDeque<Pending> pendings = new ArrayDeque<>();
+
+        @Override
+        public void preProcess(StreamContext<T> context) throws RecoverStateStoreThrowable {
+            super.preProcess(context);
+            context.getInFlightTracker().register(this);
+        }
+
+        @Override
+        public void process(T data) throws Throwable {
+            drain();
+            while (pendings.size() >= maxInFlight) {
+                //达到上限，等待最早的数据完成
+                Pending first = pendings.peekFirst();
+                first.await();
+                drain();
+            }
+
+            CompletableFuture<O> future = valueMapperAction.convert(data);
+            if (future == null) {
+                logger.warn("[{}] converts to null future, processor returns directly", data);
+                return;
+            }
+
+            Pending pending = new Pending(this.context, future);
+            this.context.getInFlightTracker().add(pending.queue, pending.offset);
+            pendings.addLast(pending);
+        }
+
+        @Override
+        public void drain() throws Throwable {
+            Iterator<Pending> iterator = pendings.iterator();
+            while (iterator.hasNext()) {
+                Pending pending = iterator.next();
+                if (!pending.isDone()) {
+                    if (ordered) {
+                        break;
+                    }
+                    continue;
+                }
+
+                iterator.remove();
+                try {
+                    pending.emit();
+                } finally {
+                    pending.context.getInFlightTracker().remove(pending.queue, pending.offset);
+                }
+            }
+        }
+
+        private class Pending {
+            private final StreamContext<T> context;
+            private final CompletableFuture<O> future;
+            private final MessageQueue queue;
+            private final long offset;
+            private final Object key;
+            private final long dataTime;
+            private final Properties header;
+            private final long deadline;
+
+            Pending(StreamContext<T> context, CompletableFuture<O> future) {
+                this.context = context;
+                this.future = future;
+                this.queue = new MessageQueue(context.getSourceTopic(), context.getSourceBrokerName(), context.getSourceQueueId());
+                this.offset = context.getSourceOffset();
+                this.key = context.getKey();
+                this.dataTime = context.getDataTime();
+                this.header = context.getHeader();
+                this.deadline = System.currentTimeMillis() + timeout;
+            }
+
+            boolean isDone() {
+                return future.isDone() || System.currentTimeMillis() >= deadline;
+            }
+
+            void await() throws InterruptedException {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return;
+                }
+                try {
+                    future.get(wait, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | TimeoutException ignored) {
+                    //handled when emit
+                }
+            }
+
+            void emit() throws Throwable {
+                if (!future.isDone()) {
+                    future.cancel(true);
+                    logger.warn("async map timeout, discard data. key=[{}], timeout={}ms", key, timeout);
+                    return;
+                }
+
+                O result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    logger.error("async map error, discard data. key=[{}]", key, e.getCause());
+                    return;
+                }
+
+                if (result == null) {
+                    logger.warn("async map result is null, key=[{}], processor returns directly", key);
+                    return;
+                }
+
+                Data<Object, O> before = new Data<>(key, result, dataTime, header);
+                Data<Object, T> data = convert(before);
+
+                //context已经被后续数据使用过，重新设置下游节点
+                context.init(getChildren());
+                context.forward(data);
+            }
+        }
+    }
+}
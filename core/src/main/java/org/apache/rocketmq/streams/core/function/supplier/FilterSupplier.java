@@ -19,11 +19,15 @@ package org.apache.rocketmq.streams.core.function.supplier;
 import org.apache.rocketmq.streams.core.function.FilterAction;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.BatchProcessor;
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.RecordBatch;
 
 import java.util.function.Supplier;
 
-public class FilterSupplier<T> implements Supplier<Processor<T>> {
+public class FilterSupplier<T> implements Supplier<Processor<T>>, ChainableSupplier {
     private FilterAction<T> filterAction;
 
     public FilterSupplier(FilterAction<T> filterAction) {
@@ -35,7 +39,14 @@ public class FilterSupplier<T> implements Supplier<Processor<T>> {
         return new FilterProcessor(filterAction);
     }
 
-    private class FilterProcessor extends AbstractProcessor<T> {
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChainedProcessor.Step step() {
+        FilterAction<T> filterAction = this.filterAction;
+        return record -> filterAction.apply((T) record.getValue());
+    }
+
+    private class FilterProcessor extends AbstractProcessor<T> implements BatchProcessor {
         private final FilterAction<T> filterAction;
 
         public FilterProcessor(FilterAction<T> filterAction) {
@@ -50,5 +61,19 @@ public class FilterSupplier<T> implements Supplier<Processor<T>> {
                 this.context.forward(result);
             }
         }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void processBatch(RecordBatch batch) throws Throwable {
+            int size = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (filterAction.apply((T) batch.getValue(i))) {
+                    batch.move(i, size++);
+                }
+            }
+            batch.truncate(size);
+
+            this.context.forwardBatch(batch);
+        }
     }
 }
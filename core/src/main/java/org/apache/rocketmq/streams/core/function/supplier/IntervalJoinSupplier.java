@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.function.supplier;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
+import org.apache.rocketmq.streams.core.function.ValueJoinAction;
+import org.apache.rocketmq.streams.core.metadata.Data;
+import org.apache.rocketmq.streams.core.running.AbstractWindowProcessor;
+import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.StreamContext;
+import org.apache.rocketmq.streams.core.state.StateStore;
+import org.apache.rocketmq.streams.core.util.Pair;
+import org.apache.rocketmq.streams.core.util.RecordIdGenerator;
+import org.apache.rocketmq.streams.core.util.Utils;
+import org.apache.rocketmq.streams.core.window.StreamType;
+import org.apache.rocketmq.streams.core.window.WindowKey;
+import org.apache.rocketmq.streams.core.window.WindowState;
+import org.apache.rocketmq.streams.core.window.WindowStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * left data at time t joins right data whose time is in [t + lower, t + upper].
+ * <p>
+ * Every data is stored as WindowKey(name@streamType, key@dataTime@recordId, expireTime, dataTime), dataTime is fixed width, so
+ * the data of one key on one side is ordered by time and the data in [t + lower, t + upper] can be found with a range seek.
+ * <p>
+ * Every data is also indexed by name@streamType@EXPIRE@expireTime@key@dataTime@recordId, the data which can not be joined
+ * any more is found with a range seek of expireTime less than watermark, and deleted together with its index.
+ */
+public class IntervalJoinSupplier<K, V1, V2, OUT> implements Supplier<Processor<? super OUT>> {
+    private static final Logger logger = LoggerFactory.getLogger(IntervalJoinSupplier.class.getName());
+    private static final long CLEAN_INTERVAL = 1000;
+    private static final int CLEAN_BATCH_SIZE = 10000;
+    private static final String EXPIRE_INDEX = "EXPIRE";
+
+    private final String name;
+    private final long lower;
+    private final long upper;
+    private final ValueJoinAction<V1, V2, OUT> joinAction;
+
+    public IntervalJoinSupplier(String name, long lower, long upper, ValueJoinAction<V1, V2, OUT> joinAction) {
+        this.name = name;
+        this.lower = lower;
+        this.upper = upper;
+        this.joinAction = joinAction;
+    }
+
+    @Override
+    public Processor<Object> get() {
+        return new IntervalJoinProcessor(name, lower, upper, joinAction);
+    }
+
+    @SuppressWarnings("unchecked")
+    private class IntervalJoinProcessor extends AbstractWindowProcessor<Object> {
+        private final String name;
+        private final long lower;
+        private final long upper;
+        private final ValueJoinAction<V1, V2, OUT> joinAction;
+        private MessageQueue stateTopicMessageQueue;
+        private StateStore stateStore;
+        private WindowStore<K, Object> windowStore;
+        private final RecordIdGenerator recordIdGenerator = new RecordIdGenerator();
+        private long lastCleanWatermark = 0;
+        //state written before keys were ordered by time has no expire index, it is removed by one full scan
+        private boolean legacyCleaned = false;
+
+        public IntervalJoinProcessor(String name, long lower, long upper, ValueJoinAction<V1, V2, OUT> joinAction) {
+            this.name = name;
+            this.lower = lower;
+            this.upper = upper;
+            this.joinAction = joinAction;
+        }
+
+        @Override
+        public void preProcess(StreamContext<Object> context) throws RecoverStateStoreThrowable {
+            super.preProcess(context);
+            this.stateStore = super.waitStateReplay();
+            this.windowStore = new WindowStore<>(this.stateStore, WindowState::byte2WindowState, WindowState::windowState2Byte);
+
+            String stateTopicName = context.getSourceTopic() + Constant.STATE_TOPIC_SUFFIX;
+            this.stateTopicMessageQueue = new MessageQueue(stateTopicName, context.getSourceBrokerName(), context.getSourceQueueId());
+        }
+
+        @Override
+        public void process(Object data) throws Throwable {
+            Object key = this.context.getKey();
+            long time = this.context.getDataTime();
+            Properties header = this.context.getHeader();
+            StreamType streamType = (StreamType) header.get(Constant.STREAM_TAG);
+            if (streamType == null) {
+                String format = String.format("StreamType is empty, data:%s", data);
+                throw new IllegalStateException(format);
+            }
+
+            long watermark = this.watermark(time - allowDelay, stateTopicMessageQueue);
+            if (time < watermark) {
+                //已经过期，丢弃数据
+                logger.warn("discard data:[{}], time of data:{}, watermark:{}", data, time, watermark);
+                return;
+            }
+
+            String key2String = super.toHexString(key);
+            switch (streamType) {
+                case LEFT_STREAM: {
+                    //右流中时间在[time + lower, time + upper]的数据
+                    List<Pair<WindowKey, WindowState<K, Object>>> rightPairs = search(StreamType.RIGHT_STREAM, key2String, time + lower, time + upper);
+                    for (Pair<WindowKey, WindowState<K, Object>> rightPair : rightPairs) {
+                        long rightTime = rightPair.getKey().getWindowStart();
+                        doFire((V1) data, (V2) rightPair.getValue().getValue(), Math.max(time, rightTime));
+                    }
+
+                    store(StreamType.LEFT_STREAM, key, key2String, data, time, time + upper);
+                    break;
+                }
+                case RIGHT_STREAM: {
+                    //左流中时间在[time - upper, time - lower]的数据
+                    List<Pair<WindowKey, WindowState<K, Object>>> leftPairs = search(StreamType.LEFT_STREAM, key2String, time - upper, time - lower);
+                    for (Pair<WindowKey, WindowState<K, Object>> leftPair : leftPairs) {
+                        long leftTime = leftPair.getKey().getWindowStart();
+                        doFire((V1) leftPair.getValue().getValue(), (V2) data, Math.max(time, leftTime));
+                    }
+
+                    store(StreamType.RIGHT_STREAM, key, key2String, data, time, time - lower);
+                    break;
+                }
+            }
+
+            cleanIfNecessary(watermark);
+        }
+
+        //data of the key on one side whose time is in [from, to]
+        private List<Pair<WindowKey, WindowState<K, Object>>> search(StreamType streamType, String key2String, long from, long to) throws Throwable {
+            String operatorName = Utils.buildKey(this.name, streamType.name());
+            return this.windowStore.searchByKeyRange(operatorName, Utils.buildKey(key2String, timeOf(from)), Utils.buildKey(key2String, timeOf(to + 1)));
+        }
+
+        private void store(StreamType streamType, Object key, String key2String, Object data, long time, long expireTime) throws Throwable {
+            String operatorName = Utils.buildKey(this.name, streamType.name());
+            String recordKey = Utils.buildKey(key2String, timeOf(time), recordIdGenerator.next(this.context.getSourceQueueId(), this.context.getSourceOffset()));
+
+            WindowKey windowKey = new WindowKey(operatorName, recordKey, expireTime, time);
+            WindowState<K, Object> state = new WindowState<>((K) key, data, time);
+            this.windowStore.put(stateTopicMessageQueue, windowKey, state);
+
+            byte[] indexKey = Utils.buildKey(expireIndexPrefix(streamType), timeOf(expireTime), recordKey).getBytes(StandardCharsets.UTF_8);
+            this.stateStore.put(stateTopicMessageQueue, indexKey, WindowKey.windowKey2Byte(windowKey));
+        }
+
+        private String expireIndexPrefix(StreamType streamType) {
+            return Utils.buildKey(this.name, streamType.name(), EXPIRE_INDEX, "");
+        }
+
+        //fixed width, so that string order is time order
+        private String timeOf(long time) {
+            return String.format("%019d", Math.max(time, 0));
+        }
+
+        private void doFire(V1 v1Data, V2 v2Data, long time) throws Throwable {
+            OUT out = this.joinAction.apply(v1Data, v2Data);
+
+            Data<K, OUT> result = new Data<>(this.context.getKey(), out, time, this.context.getHeader());
+            Data<K, Object> convert = super.convert(result);
+            this.context.forward(convert);
+        }
+
+        /**
+         * data whose expireTime is less than watermark can not match any data that arrives later.
+         */
+        private void cleanIfNecessary(long watermark) throws Throwable {
+            if (watermark - lastCleanWatermark < CLEAN_INTERVAL) {
+                return;
+            }
+            lastCleanWatermark = watermark;
+
+            if (!legacyCleaned) {
+                cleanLegacy(watermark);
+                legacyCleaned = true;
+            }
+
+            for (StreamType streamType : StreamType.values()) {
+                byte[] from = expireIndexPrefix(streamType).getBytes(StandardCharsets.UTF_8);
+                byte[] to = Utils.buildKey(expireIndexPrefix(streamType), timeOf(watermark)).getBytes(StandardCharsets.UTF_8);
+
+                int num = 0;
+                List<Pair<byte[], byte[]>> expired;
+                do {
+                    expired = this.stateStore.searchByKeyRange(from, to, CLEAN_BATCH_SIZE);
+                    //index keys are adjacent and deleted by range
+                    List<byte[]> toDelete = new ArrayList<>(expired.size() * 2);
+                    for (Pair<byte[], byte[]> pair : expired) {
+                        toDelete.add(pair.getKey());
+                        toDelete.add(pair.getValue());
+                    }
+                    this.stateStore.delete(toDelete);
+                    num += expired.size();
+                } while (expired.size() == CLEAN_BATCH_SIZE);
+
+                if (num != 0) {
+                    logger.debug("delete expired interval join state, operatorName:{}, streamType:{}, watermark:{}, num:{}", name, streamType, Utils.format(watermark), num);
+                }
+            }
+        }
+
+        private void cleanLegacy(long watermark) throws Throwable {
+            for (StreamType streamType : StreamType.values()) {
+                String operatorName = Utils.buildKey(this.name, streamType.name());
+                List<Pair<WindowKey, WindowState<K, Object>>> expired = this.windowStore.searchLessThanWatermark(operatorName, watermark);
+                List<WindowKey> expiredKeys = new ArrayList<>(expired.size());
+                for (Pair<WindowKey, WindowState<K, Object>> pair : expired) {
+                    expiredKeys.add(pair.getKey());
+                }
+                this.windowStore.deleteByKeys(expiredKeys);
+            }
+        }
+    }
+}
@@ -24,46 +24,78 @@ import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
 import org.apache.rocketmq.streams.core.running.StreamContext;
+import org.apache.rocketmq.streams.core.window.JoinRetention;
+import org.apache.rocketmq.streams.core.window.JoinStateMetrics;
 import org.apache.rocketmq.streams.core.window.JoinType;
 import org.apache.rocketmq.streams.core.window.StreamType;
 import org.apache.rocketmq.streams.core.state.StateStore;
+import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.util.function.Supplier;
 
 public class JoinAggregateSupplier<K, V1, V2, OUT> implements Supplier<Processor<? super OUT>> {
     private static final Logger logger = LoggerFactory.getLogger(JoinAggregateSupplier.class.getName());
+    private static final long MAX_SWEEP_INTERVAL = 60 * 1000;
+    //keys expired at most in one sweep, the rest are left to the next one
+    private static final int SWEEP_BATCH_SIZE = 1000;
+    private static final String EXPIRE_INDEX = "EXPIRE";
+    //legacy state is the value itself, which begins with length of class name and is never negative
+    private static final int FORMAT_V1 = 0xF0A10001;
 
     private String name;
     private JoinType joinType;
     private final ValueJoinAction<V1, V2, OUT> joinAction;
+    private final JoinRetention retention;
 
     public JoinAggregateSupplier(String name, JoinType joinType, ValueJoinAction<V1, V2, OUT> joinAction) {
+        this(name, joinType, joinAction, JoinRetention.latest());
+    }
+
+    public JoinAggregateSupplier(String name, JoinType joinType, ValueJoinAction<V1, V2, OUT> joinAction, JoinRetention retention) {
         this.name = name;
         this.joinType = joinType;
         this.joinAction = joinAction;
+        this.retention = retention;
     }
 
     @Override
     public Processor<Object> get() {
-        return new JoinStreamAggregateProcessor(name, joinType, joinAction);
+        return new JoinStreamAggregateProcessor(name, joinType, joinAction, retention);
     }
 
     private class JoinStreamAggregateProcessor extends AbstractProcessor<Object> {
         private String name;
         private JoinType joinType;
         private final ValueJoinAction<V1, V2, OUT> joinAction;
+        private final JoinRetention retention;
         private MessageQueue stateTopicMessageQueue;
         private StateStore stateStore;
 
+        private final JoinStateMetrics metrics;
+
+        private long maxDataTime = Long.MIN_VALUE;
+        private long lastSweepTime = System.currentTimeMillis();
 
-        public JoinStreamAggregateProcessor(String name, JoinType joinType, ValueJoinAction<V1, V2, OUT> joinAction) {
+
+        public JoinStreamAggregateProcessor(String name, JoinType joinType, ValueJoinAction<V1, V2, OUT> joinAction, JoinRetention retention) {
             this.name = name;
             this.joinType = joinType;
             this.joinAction = joinAction;
+            this.retention = retention;
+            this.metrics = JoinStateMetrics.of(name);
+        }
+
+        public JoinStateMetrics getMetrics() {
+            return metrics;
         }
 
         @Override
@@ -77,24 +109,38 @@ public class JoinAggregateSupplier<K, V1, V2, OUT> implements Supplier<Processor
         @Override
         public void process(Object data) throws Throwable {
             Object key = this.context.getKey();
+            long time = this.context.getDataTime();
             Properties header = this.context.getHeader();
             StreamType streamType = (StreamType) header.get(Constant.STREAM_TAG);
 
-            store(key, data, streamType);
+            this.maxDataTime = Math.max(this.maxDataTime, time);
+
+            store(key, data, time, streamType);
             fire(key, data, streamType);
-        }
 
-        private void store(Object key, Object data, StreamType streamType) throws Throwable {
-            String name = Utils.buildKey(this.name, streamType.name());
+            sweepIfNecessary();
+        }
 
+        private void store(Object key, Object data, long time, StreamType streamType) throws Throwable {
             switch (streamType) {
                 case LEFT_STREAM:
                 case RIGHT_STREAM: {
-                    String storeKey = Utils.buildKey(name, super.toHexString(key));
-                    byte[] keyBytes = Utils.object2Byte(storeKey);
-                    byte[] valueBytes = super.object2Byte(data);
+                    byte[] keyBytes = storeKey(key, streamType);
+
+                    List<Pair<Long, byte[]>> stored = decode(this.stateStore.get(keyBytes), maxDataTime);
+                    List<Pair<Long, byte[]>> entries = liveEntries(stored);
+                    metrics.expired(stored.size() - entries.size());
+                    entries.add(new Pair<>(time, super.object2Byte(data)));
+
+                    //超过上限，淘汰最早的数据
+                    while (entries.size() > retention.getMaxEntriesPerKey()) {
+                        entries.remove(0);
+                        metrics.evictedBySize(1);
+                    }
 
-                    this.stateStore.put(stateTopicMessageQueue, keyBytes, valueBytes);
+                    this.stateStore.put(stateTopicMessageQueue, keyBytes, encode(entries));
+                    metrics.retained(entries.size() - stored.size(), bytesOf(entries) - bytesOf(stored));
+                    reindex(key, streamType, keyBytes, stored, entries);
                     break;
                 }
             }
@@ -105,14 +151,11 @@ public class JoinAggregateSupplier<K, V1, V2, OUT> implements Supplier<Processor
         private void fire(Object key, Object data, StreamType streamType) throws Throwable {
             switch (streamType) {
                 case LEFT_STREAM: {
-                    String name = Utils.buildKey(this.name, StreamType.RIGHT_STREAM.name());
-                    String storeKey = Utils.buildKey(name, super.toHexString(key));
-                    byte[] keyBytes = Utils.object2Byte(storeKey);
-
-                    byte[] bytes = this.stateStore.get(keyBytes);
+                    byte[] keyBytes = storeKey(key, StreamType.RIGHT_STREAM);
+                    List<Pair<Long, byte[]>> entries = liveEntries(decode(this.stateStore.get(keyBytes), maxDataTime));
 
                     if (joinType == JoinType.INNER_JOIN) {
-                        if (bytes == null || bytes.length == 0) {
+                        if (entries.size() == 0) {
                             break;
                         }
                     } else if (joinType == JoinType.LEFT_JOIN) {
@@ -122,9 +165,15 @@ public class JoinAggregateSupplier<K, V1, V2, OUT> implements Supplier<Processor
                     }
 
                     V1 v1Data = (V1) data;
-                    V2 v2Data = super.byte2Object(bytes);
+                    if (entries.size() == 0) {
+                        doFire(v1Data, null);
+                        break;
+                    }
 
-                    doFire(v1Data, v2Data);
+                    for (Pair<Long, byte[]> entry : entries) {
+                        V2 v2Data = super.byte2Object(entry.getValue());
+                        doFire(v1Data, v2Data);
+                    }
                     break;
                 }
                 case RIGHT_STREAM: {
@@ -132,24 +181,17 @@ public class JoinAggregateSupplier<K, V1, V2, OUT> implements Supplier<Processor
                         break;
                     }
 
-                    String name = Utils.buildKey(this.name, StreamType.LEFT_STREAM.name());
-                    String storeKey = Utils.buildKey(name, super.toHexString(key));
-                    byte[] keyBytes = Utils.object2Byte(storeKey);
-
-                    byte[] bytes = this.stateStore.get(keyBytes);
-                    if (bytes == null || bytes.length == 0) {
-                        break;
-                    }
+                    byte[] keyBytes = storeKey(key, StreamType.LEFT_STREAM);
+                    List<Pair<Long, byte[]>> entries = liveEntries(decode(this.stateStore.get(keyBytes), maxDataTime));
 
                     V2 v2Data = (V2) data;
-                    V1 v1Data = super.byte2Object(bytes);
-
-                    doFire(v1Data, v2Data);
+                    for (Pair<Long, byte[]> entry : entries) {
+                        V1 v1Data = super.byte2Object(entry.getValue());
+                        doFire(v1Data, v2Data);
+                    }
                     break;
                 }
             }
-
-            //todo 是否需要删除状态？
         }
 
         private void doFire(V1 v1Data, V2 v2Data) throws Throwable {
@@ -159,7 +201,178 @@ public class JoinAggregateSupplier<K, V1, V2, OUT> implements Supplier<Processor
             Data<K, Object> convert = super.convert(result);
             this.context.forward(convert);
         }
+
+        private byte[] storeKey(Object key, StreamType streamType) throws Throwable {
+            String name = Utils.buildKey(this.name, streamType.name());
+            String storeKey = Utils.buildKey(name, super.toHexString(key));
+            return Utils.object2Byte(storeKey);
+        }
+
+        private List<Pair<Long, byte[]>> liveEntries(List<Pair<Long, byte[]>> stored) {
+            List<Pair<Long, byte[]>> entries = new ArrayList<>(stored);
+            if (retention.expireEnable()) {
+                entries.removeIf(entry -> retention.isExpired(entry.getKey(), maxDataTime));
+            }
+            return entries;
+        }
+
+        /**
+         * with ttl, a key is indexed by the time of its newest entry, the whole key expires with that entry.
+         */
+        private void reindex(Object key, StreamType streamType, byte[] keyBytes,
+                             List<Pair<Long, byte[]>> before, List<Pair<Long, byte[]>> after) throws Throwable {
+            if (!retention.expireEnable()) {
+                return;
+            }
+
+            String hexKey = super.toHexString(key);
+            int keyGroup = super.keyGroupOf(key);
+            long newestBefore = newest(before);
+            long newestAfter = newest(after);
+            if (newestBefore == newestAfter) {
+                return;
+            }
+            if (newestBefore != Long.MIN_VALUE) {
+                this.stateStore.delete(indexKey(newestBefore, streamType, keyGroup, hexKey));
+            }
+            this.stateStore.put(stateTopicMessageQueue, indexKey(newestAfter, streamType, keyGroup, hexKey), keyBytes);
+        }
+
+        /**
+         * index key is name@EXPIRE@time@streamType@keyGroup@hexKey, key group of the key is kept, so the sweep writes into the
+         * same key group as processing does.
+         */
+        private byte[] indexKey(long time, StreamType streamType, int keyGroup, String hexKey) {
+            return Utils.buildKey(indexPrefix(), String.format("%019d", Math.max(time, 0)), streamType.name(), String.valueOf(keyGroup), hexKey)
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        private String indexPrefix() {
+            return Utils.buildKey(this.name, EXPIRE_INDEX, "");
+        }
+
+        /**
+         * remove keys whose newest entry has expired, by seeking the expire index in time order. A sweep handles at most
+         * SWEEP_BATCH_SIZE keys, so it does not stall processing. Keys written before the index existed are indexed when
+         * they are written again.
+         */
+        private void sweepIfNecessary() throws Throwable {
+            if (!retention.expireEnable() || maxDataTime == Long.MIN_VALUE) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            long interval = Math.min(Math.max(retention.getTtl(), 1000), MAX_SWEEP_INTERVAL);
+            if (now - lastSweepTime < interval) {
+                return;
+            }
+            lastSweepTime = now;
+
+            byte[] from = indexPrefix().getBytes(StandardCharsets.UTF_8);
+            //newest entry older than maxDataTime - ttl is expired
+            byte[] to = Utils.buildKey(indexPrefix(), String.format("%019d", Math.max(maxDataTime - retention.getTtl(), 0)))
+                    .getBytes(StandardCharsets.UTF_8);
+            List<Pair<byte[], byte[]>> expiredIndex = this.stateStore.searchByKeyRange(from, to, SWEEP_BATCH_SIZE);
+
+            List<byte[]> toDelete = new ArrayList<>();
+            for (Pair<byte[], byte[]> index : expiredIndex) {
+                byte[] keyBytes = index.getValue();
+                List<Pair<Long, byte[]>> stored = decode(this.stateStore.get(keyBytes), maxDataTime);
+                List<Pair<Long, byte[]>> live = liveEntries(stored);
+                if (live.size() == 0) {
+                    toDelete.add(index.getKey());
+                    if (stored.size() != 0) {
+                        toDelete.add(keyBytes);
+                    }
+                } else {
+                    //time@streamType@keyGroup@hexKey, hexKey may contain separator
+                    String indexKey = new String(index.getKey(), StandardCharsets.UTF_8);
+                    String[] split = indexKey.substring(indexPrefix().length()).split(Constant.SPLIT, 4);
+                    StreamType streamType = StreamType.valueOf(split[1]);
+                    int keyGroup = Integer.parseInt(split[2]);
+
+                    StateStore keyStateStore = super.stateStoreOfKeyGroup(keyGroup);
+                    keyStateStore.put(stateTopicMessageQueue, keyBytes, encode(live));
+                    byte[] newIndexKey = indexKey(newest(live), streamType, keyGroup, split[3]);
+                    if (!Arrays.equals(newIndexKey, index.getKey())) {
+                        toDelete.add(index.getKey());
+                        keyStateStore.put(stateTopicMessageQueue, newIndexKey, keyBytes);
+                    }
+                }
+                metrics.expired(stored.size() - live.size());
+                metrics.retained(live.size() - stored.size(), bytesOf(live) - bytesOf(stored));
+            }
+            this.stateStore.delete(toDelete);
+
+            if (expiredIndex.size() != 0) {
+                logger.debug("sweep join state of [{}], retention={}, expired keys={}, {}", this.name, retention, expiredIndex.size(), metrics);
+            }
+        }
+    }
+
+    private static long newest(List<Pair<Long, byte[]>> entries) {
+        long result = Long.MIN_VALUE;
+        for (Pair<Long, byte[]> entry : entries) {
+            result = Math.max(result, entry.getKey());
+        }
+        return result;
     }
 
+    private static long bytesOf(List<Pair<Long, byte[]>> entries) {
+        long result = 0;
+        for (Pair<Long, byte[]> entry : entries) {
+            result += entry.getValue().length;
+        }
+        return result;
+    }
+
+    /**
+     * encode entries of one key
+     * <pre>
+     * +---------+--------+-----------+--------+-------------+-----
+     * | Int(4)  | Int(4) | Long(8)   | Int(4) | value bytes | ...
+     * | version | count  | timestamp | length |             |
+     * +---------+--------+-----------+--------+-------------+-----
+     * </pre>
+     */
+    static byte[] encode(List<Pair<Long, byte[]>> entries) {
+        int length = 4 + 4;
+        for (Pair<Long, byte[]> entry : entries) {
+            length += 8 + 4 + entry.getValue().length;
+        }
 
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(FORMAT_V1);
+        buffer.putInt(entries.size());
+        for (Pair<Long, byte[]> entry : entries) {
+            buffer.putLong(entry.getKey());
+            buffer.putInt(entry.getValue().length);
+            buffer.put(entry.getValue());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @param legacyTime timestamp of the value written by older version, which keeps only the latest value of a key.
+     */
+    static List<Pair<Long, byte[]>> decode(byte[] bytes, long legacyTime) {
+        List<Pair<Long, byte[]>> result = new ArrayList<>();
+        if (bytes == null || bytes.length == 0) {
+            return result;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 4 || buffer.getInt() != FORMAT_V1) {
+            result.add(new Pair<>(legacyTime, bytes));
+            return result;
+        }
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            long timestamp = buffer.getLong();
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(value);
+            result.add(new Pair<>(timestamp, value));
+        }
+        return result;
+    }
 }
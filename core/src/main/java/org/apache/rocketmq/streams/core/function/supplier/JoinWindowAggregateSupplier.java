@@ -33,6 +33,7 @@ import org.apache.rocketmq.streams.core.window.WindowKey;
 import org.apache.rocketmq.streams.core.window.WindowState;
 import org.apache.rocketmq.streams.core.window.WindowStore;
 import org.apache.rocketmq.streams.core.util.Pair;
+import org.apache.rocketmq.streams.core.util.RecordIdGenerator;
 import org.apache.rocketmq.streams.core.util.Utils;
 import org.apache.rocketmq.streams.core.window.fire.JoinWindowFire;
 import org.slf4j.Logger;
@@ -74,6 +75,7 @@ public class JoinWindowAggregateSupplier<K, V1, V2, OUT> implements Supplier<Pro
         private MessageQueue stateTopicMessageQueue;
         private WindowStore<K, V1> leftWindowStore;
         private WindowStore<K, V2> rightWindowStore;
+        private final RecordIdGenerator recordIdGenerator = new RecordIdGenerator();
 
         public JoinStreamWindowAggregateProcessor(String name, WindowInfo windowInfo, JoinType joinType, ValueJoinAction<V1, V2, OUT> joinAction) {
             this.name = Utils.buildKey(name, JoinStreamWindowAggregateProcessor.class.getSimpleName());
@@ -135,23 +137,25 @@ public class JoinWindowAggregateSupplier<K, V1, V2, OUT> implements Supplier<Pro
         private void store(Object key, Object data, long time, StreamType streamType) throws Throwable {
             String name = Utils.buildKey(this.name, streamType.name());
             List<Window> windows = super.calculateWindow(windowInfo, time);
+            String recordId = recordIdGenerator.next(this.context.getSourceQueueId(), this.context.getSourceOffset());
             for (Window window : windows) {
                 logger.debug("timestamp=" + time + ". time -> window: " + Utils.format(time) + "->" + window);
 
-                WindowKey windowKey = new WindowKey(name, super.toHexString(key), window.getEndTime(), window.getStartTime());
+                //每条数据单独存储，同一窗口内相同key的多条数据都参与join
+                String recordKey = JoinWindowFire.buildRecordKey(super.toHexString(key), recordId);
+                WindowKey windowKey = new WindowKey(name, recordKey, window.getEndTime(), window.getStartTime());
 
                 switch (streamType) {
                     case LEFT_STREAM:
                         WindowState<K, V1> leftState = new WindowState<>((K) key, (V1) data, time);
                         this.leftWindowStore.put(stateTopicMessageQueue, windowKey, leftState);
-                        this.idleWindowScaner.putJoinWindowCallback(windowKey, joinWindowFire);
                         break;
                     case RIGHT_STREAM:
                         WindowState<K, V2> rightState = new WindowState<>((K) key, (V2) data, time);
                         this.rightWindowStore.put(stateTopicMessageQueue, windowKey, rightState);
-                        this.idleWindowScaner.putJoinWindowCallback(windowKey, joinWindowFire);
                         break;
                 }
+                this.idleWindowScaner.putJoinWindowCallback(JoinWindowFire.idleKey(windowKey), joinWindowFire);
             }
 
         }
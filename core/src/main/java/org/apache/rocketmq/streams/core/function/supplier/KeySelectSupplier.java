@@ -18,11 +18,13 @@ package org.apache.rocketmq.streams.core.function.supplier;
 import org.apache.rocketmq.streams.core.function.SelectAction;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
 
 import java.util.function.Supplier;
 
-public class KeySelectSupplier<KEY, T> implements Supplier<Processor<T>> {
+public class KeySelectSupplier<KEY, T> implements Supplier<Processor<T>>, ChainableSupplier {
     private final SelectAction<KEY, T> selectAction;
 
     public KeySelectSupplier(SelectAction<KEY, T> selectAction) {
@@ -34,6 +36,15 @@ public class KeySelectSupplier<KEY, T> implements Supplier<Processor<T>> {
         return new MapperProcessor(selectAction);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChainedProcessor.Step step() {
+        return record -> {
+            record.setKey(selectAction.select((T) record.getValue()));
+            return true;
+        };
+    }
+
     private class MapperProcessor extends AbstractProcessor<T> {
         private final SelectAction<KEY, T> selectAction;
 
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.function.supplier;
+
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
+import org.apache.rocketmq.streams.core.function.SelectAction;
+import org.apache.rocketmq.streams.core.function.ValueJoinAction;
+import org.apache.rocketmq.streams.core.metadata.Data;
+import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.StreamContext;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
+import org.apache.rocketmq.streams.core.state.LookupTable;
+
+import java.util.function.Supplier;
+
+public class LookupJoinSupplier<T, V, OUT> implements Supplier<Processor<T>> {
+    private final String tableTopic;
+    private final KeyValueDeserializer<Void, V> deserializer;
+    private final SelectAction<String, T> keySelectAction;
+    private final ValueJoinAction<T, V, OUT> joinAction;
+
+    public LookupJoinSupplier(String tableTopic,
+                              KeyValueDeserializer<Void, V> deserializer,
+                              SelectAction<String, T> keySelectAction,
+                              ValueJoinAction<T, V, OUT> joinAction) {
+        this.tableTopic = tableTopic;
+        this.deserializer = deserializer;
+        this.keySelectAction = keySelectAction;
+        this.joinAction = joinAction;
+    }
+
+    @Override
+    public Processor<T> get() {
+        return new LookupJoinProcessor();
+    }
+
+    private class LookupJoinProcessor extends AbstractProcessor<T> {
+        private LookupTable<V> lookupTable;
+
+        @Override
+        public void preProcess(StreamContext<T> context) throws RecoverStateStoreThrowable {
+            super.preProcess(context);
+
+            String nameSrvAddr = context.getUserProperties().getProperty(MixAll.NAMESRV_ADDR_PROPERTY);
+            this.lookupTable = LookupTable.getOrCreate(nameSrvAddr, tableTopic, deserializer);
+            try {
+                this.lookupTable.waitLoaded();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RStreamsException("wait lookup table loaded interrupted, topic=" + tableTopic, e);
+            }
+        }
+
+        @Override
+        public void process(T data) throws Throwable {
+            String key = keySelectAction.select(data);
+
+            //没有匹配上时，右值为null
+            V value = this.lookupTable.get(key);
+            OUT out = joinAction.apply(data, value);
+
+            Data<Object, OUT> before = new Data<>(this.context.getKey(), out, this.context.getDataTime(), this.context.getHeader());
+            Data<Object, T> result = convert(before);
+            this.context.forward(result);
+        }
+    }
+}
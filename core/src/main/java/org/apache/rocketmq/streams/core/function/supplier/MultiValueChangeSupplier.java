@@ -19,11 +19,14 @@ package org.apache.rocketmq.streams.core.function.supplier;
 import org.apache.rocketmq.streams.core.function.ValueMapperAction;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.BatchProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.RecordBatch;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Properties;
 import java.util.function.Supplier;
 
 public class MultiValueChangeSupplier<T, VR> implements Supplier<Processor<T>> {
@@ -39,7 +42,7 @@ public class MultiValueChangeSupplier<T, VR> implements Supplier<Processor<T>> {
         return new MultiValueMapperProcessor<>(this.valueMapperAction);
     }
 
-    static class MultiValueMapperProcessor<T, VR> extends AbstractProcessor<T> {
+    static class MultiValueMapperProcessor<T, VR> extends AbstractProcessor<T> implements BatchProcessor {
         private final ValueMapperAction<T, ? extends Iterable<? extends VR>> valueMapperAction;
 
         public MultiValueMapperProcessor(ValueMapperAction<T, ? extends Iterable<? extends VR>> valueMapperAction) {
@@ -64,5 +67,30 @@ public class MultiValueChangeSupplier<T, VR> implements Supplier<Processor<T>> {
                 this.context.forward(result);
             }
         }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void processBatch(RecordBatch batch) throws Throwable {
+            RecordBatch result = new RecordBatch(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Iterable<? extends VR> convert = valueMapperAction.convert((T) batch.getValue(i));
+                if (convert == null) {
+                    logger.warn("[{}] converts to null, processor returns directly", batch.getValue(i));
+                    continue;
+                }
+
+                for (VR item : convert) {
+                    if (item == null) {
+                        continue;
+                    }
+                    //每个输出有自己的header
+                    Properties header = new Properties();
+                    header.putAll(batch.getHeader(i));
+                    result.add(batch.getKey(i), item, batch.getTimestamp(i), batch.getOffset(i), header);
+                }
+            }
+
+            this.context.forwardBatch(result);
+        }
     }
 }
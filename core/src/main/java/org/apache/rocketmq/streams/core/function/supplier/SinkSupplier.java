@@ -18,13 +18,18 @@ package org.apache.rocketmq.streams.core.function.supplier;
 
 
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.MessageQueueSelector;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.client.producer.selector.SelectMessageQueueByHash;
 import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.LocalShuffleInbox;
 import org.apache.rocketmq.streams.core.running.Processor;
 import org.apache.rocketmq.streams.core.running.StreamContext;
 import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
+import org.apache.rocketmq.streams.core.util.KeyGroup;
 import org.apache.rocketmq.streams.core.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +39,9 @@ import java.util.function.Supplier;
 public class SinkSupplier<K, T> implements Supplier<Processor<T>> {
     private static final Logger logger = LoggerFactory.getLogger(SinkSupplier.class);
 
+    private static final MessageQueueSelector HASH_SELECTOR = new SelectMessageQueueByHash();
+    private static final MessageQueueSelector KEY_GROUP_SELECTOR = new KeyGroup.QueueSelector();
+
     private final String topicName;
     private final KeyValueSerializer<K, T> serializer;
 
@@ -79,31 +87,51 @@ public class SinkSupplier<K, T> implements Supplier<Processor<T>> {
 
                 if (this.key == null) {
                     message = new Message(this.topicName, value);
-                    message.putUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME, data.getClass().getName());
+                    if (!this.serializer.isTypeEncoded()) {
+                        message.putUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME, data.getClass().getName());
+                    }
                     if (this.topicName.contains(Constant.SHUFFLE_TOPIC_SUFFIX)) {
                         message.putUserProperty(Constant.SOURCE_TIMESTAMP, String.valueOf(this.context.getDataTime()));
                     }
 
-                    producer.send(message);
+                    SendResult result = producer.send(message);
+                    handOver(message, result);
                 } else {
                     message = new Message(this.topicName, value);
-                    String hexKey = Utils.toHexString(this.key);
+                    String hexKey = this.key == this.context.getKey() ? this.context.getKeyHash() : Utils.toHexString(this.key);
                     //the real key is in the body, this key is used to route the same key into the same queue.
                     message.setKeys(hexKey);
 
 
-                    message.putUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME, this.key.getClass().getName());
-                    message.putUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME, data.getClass().getName());
+                    if (!this.serializer.isTypeEncoded()) {
+                        message.putUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME, this.key.getClass().getName());
+                        message.putUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME, data.getClass().getName());
+                    }
 
                     if (this.topicName.contains(Constant.SHUFFLE_TOPIC_SUFFIX)) {
                         message.putUserProperty(Constant.SOURCE_TIMESTAMP, String.valueOf(this.context.getDataTime()));
                     }
 
-                    producer.send(message, new SelectMessageQueueByHash(), hexKey);
+                    SendResult result = producer.send(message, selector(), hexKey);
+                    handOver(message, result);
                 }
             }
         }
 
+        //shuffle topic is routed by key group, state of a key group moves together when shuffle topic is rescaled.
+        private MessageQueueSelector selector() {
+            if (KeyGroup.enabled() && this.topicName.endsWith(Constant.SHUFFLE_TOPIC_SUFFIX)) {
+                return KEY_GROUP_SELECTOR;
+            }
+            return HASH_SELECTOR;
+        }
+
+        private void handOver(Message message, SendResult result) {
+            if (StreamConfig.LOCAL_SHUFFLE_SHORTCUT && this.topicName.endsWith(Constant.SHUFFLE_TOPIC_SUFFIX)) {
+                LocalShuffleInbox.deliver(message, result);
+            }
+        }
+
 
     }
 }
@@ -19,12 +19,14 @@ package org.apache.rocketmq.streams.core.function.supplier;
 import org.apache.rocketmq.streams.core.function.ValueMapperAction;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
 import org.apache.rocketmq.streams.core.running.StreamContext;
 
 import java.util.function.Supplier;
 
-public class TimestampSelectorSupplier<T> implements Supplier<Processor<T>> {
+public class TimestampSelectorSupplier<T> implements Supplier<Processor<T>>, ChainableSupplier {
     private final ValueMapperAction<T, Long> valueMapperAction;
 
     public TimestampSelectorSupplier(ValueMapperAction<T, Long> valueMapperAction) {
@@ -36,6 +38,19 @@ public class TimestampSelectorSupplier<T> implements Supplier<Processor<T>> {
         return new TimestampSelector<>(valueMapperAction);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChainedProcessor.Step step() {
+        return record -> {
+            Long timestamp = valueMapperAction.convert((T) record.getValue());
+            //null timestamp does not override the timestamp of data
+            if (timestamp != null) {
+                record.setTimestamp(timestamp);
+            }
+            return true;
+        };
+    }
+
 
     static class TimestampSelector<T> extends AbstractProcessor<T> {
         private final ValueMapperAction<T, Long> valueMapperAction;
@@ -20,13 +20,17 @@ package org.apache.rocketmq.streams.core.function.supplier;
 import org.apache.rocketmq.streams.core.function.ValueMapperAction;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.running.AbstractProcessor;
+import org.apache.rocketmq.streams.core.running.BatchProcessor;
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.running.RecordBatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.function.Supplier;
 
-public class ValueChangeSupplier<T, O> implements Supplier<Processor<T>> {
+public class ValueChangeSupplier<T, O> implements Supplier<Processor<T>>, ChainableSupplier {
     private final ValueMapperAction<T, O> valueMapperAction;
     private static final Logger logger = LoggerFactory.getLogger(ValueChangeSupplier.class.getName());
 
@@ -35,13 +39,39 @@ public class ValueChangeSupplier<T, O> implements Supplier<Processor<T>> {
         this.valueMapperAction = valueMapperAction;
     }
 
+    /**
+     * @return supplier which maps with this and then next, null result of this is not passed to next.
+     */
+    public <R> ValueChangeSupplier<T, R> andThen(ValueChangeSupplier<O, R> next) {
+        ValueMapperAction<T, O> first = this.valueMapperAction;
+        ValueMapperAction<O, R> second = next.valueMapperAction;
+        return new ValueChangeSupplier<>(data -> {
+            O temp = first.convert(data);
+            return temp == null ? null : second.convert(temp);
+        });
+    }
+
     @Override
     public Processor<T> get() {
         return new ValueMapperProcessor<>(this.valueMapperAction);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChainedProcessor.Step step() {
+        return record -> {
+            O convert = valueMapperAction.convert((T) record.getValue());
+            if (convert == null) {
+                logger.warn("[{}] converts to null, processor returns directly", record.getValue());
+                return false;
+            }
+            record.setValue(convert);
+            return true;
+        };
+    }
+
 
-    static class ValueMapperProcessor<T, O> extends AbstractProcessor<T> {
+    static class ValueMapperProcessor<T, O> extends AbstractProcessor<T> implements BatchProcessor {
         private final ValueMapperAction<T, O> valueMapperAction;
 
 
@@ -60,6 +90,24 @@ public class ValueChangeSupplier<T, O> implements Supplier<Processor<T>> {
             Data<Object, T> result = convert(before);
             this.context.forward(result);
         }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void processBatch(RecordBatch batch) throws Throwable {
+            int size = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                O convert = valueMapperAction.convert((T) batch.getValue(i));
+                if (convert == null) {
+                    logger.warn("[{}] converts to null, processor returns directly", batch.getValue(i));
+                    continue;
+                }
+                batch.move(i, size);
+                batch.setValue(size++, convert);
+            }
+            batch.truncate(size);
+
+            this.context.forwardBatch(batch);
+        }
     }
 
 }
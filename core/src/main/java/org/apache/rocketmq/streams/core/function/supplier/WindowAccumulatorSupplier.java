@@ -27,10 +27,12 @@ import org.apache.rocketmq.streams.core.running.StreamContext;
 import org.apache.rocketmq.streams.core.window.Window;
 import org.apache.rocketmq.streams.core.window.WindowInfo;
 import org.apache.rocketmq.streams.core.window.WindowKey;
+import org.apache.rocketmq.streams.core.window.WindowPane;
 import org.apache.rocketmq.streams.core.window.WindowState;
 import org.apache.rocketmq.streams.core.window.WindowStore;
 import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.Utils;
+import org.apache.rocketmq.streams.core.window.fire.AccumulatorPaneWindowFire;
 import org.apache.rocketmq.streams.core.window.fire.AccumulatorWindowFire;
 import org.apache.rocketmq.streams.core.window.fire.AccumulatorSessionWindowFire;
 import org.slf4j.Logger;
@@ -100,10 +102,19 @@ public class WindowAccumulatorSupplier<K, V, R, OV> implements Supplier<Processo
             String stateTopicName = context.getSourceTopic() + Constant.STATE_TOPIC_SUFFIX;
             this.stateTopicMessageQueue = new MessageQueue(stateTopicName, context.getSourceBrokerName(), context.getSourceQueueId());
 
-            this.accumulatorWindowFire = new AccumulatorWindowFire<>(this.windowStore,
-                    context.copy(),
-                    this.stateTopicMessageQueue,
-                    this::watermark);
+            if (WindowPane.usePane(windowInfo)) {
+                this.accumulatorWindowFire = new AccumulatorPaneWindowFire<>(this.windowStore,
+                        context.copy(),
+                        this.stateTopicMessageQueue,
+                        this::watermark,
+                        this.windowInfo,
+                        this.accumulator);
+            } else {
+                this.accumulatorWindowFire = new AccumulatorWindowFire<>(this.windowStore,
+                        context.copy(),
+                        this.stateTopicMessageQueue,
+                        this::watermark);
+            }
         }
 
         /**
@@ -128,6 +139,50 @@ public class WindowAccumulatorSupplier<K, V, R, OV> implements Supplier<Processo
                 return;
             }
 
+            if (WindowPane.usePane(windowInfo)) {
+                //滑动窗口只累加数据所在的pane，触发时合并
+                addToPane(key, data, time);
+            } else {
+                addToWindows(key, data, time);
+            }
+
+            try {
+                List<WindowKey> fire = this.accumulatorWindowFire.fire(name, watermark);
+                for (WindowKey windowKey : fire) {
+                    this.idleWindowScaner.removeWindowKey(windowKey);
+                }
+            } catch (Throwable t) {
+                errorReference.compareAndSet(null, t);
+            }
+        }
+
+        private void addToPane(K key, V data, long time) throws Throwable {
+            Window pane = WindowPane.assignPane(windowInfo, time);
+            String key2String = super.toHexString(key);
+
+            WindowKey paneKey = new WindowKey(name, WindowPane.paneKey2String(pane.getEndTime(), key2String), pane.getEndTime(), pane.getStartTime());
+            WindowState<K, Accumulator<R, OV>> oldState = this.windowStore.get(paneKey);
+
+            Accumulator<R, OV> storeAccumulator;
+            if (oldState == null || oldState.getValue() == null) {
+                storeAccumulator = accumulator.clone();
+            } else {
+                storeAccumulator = oldState.getValue();
+            }
+
+            R select = selectAction.select(data);
+            storeAccumulator.addValue(select);
+
+            WindowState<K, Accumulator<R, OV>> state = new WindowState<>(key, storeAccumulator, time);
+            this.windowStore.put(stateTopicMessageQueue, paneKey, state);
+
+            //pane在最后一个包含它的窗口触发后才能删除
+            Window lastWindow = WindowPane.lastWindowOfPane(windowInfo, pane.getStartTime());
+            WindowKey idleKey = new WindowKey(name, key2String, lastWindow.getEndTime(), lastWindow.getStartTime());
+            this.idleWindowScaner.putAccumulatorWindowCallback(idleKey, this.accumulatorWindowFire);
+        }
+
+        private void addToWindows(K key, V data, long time) throws Throwable {
             //f(time) -> List<Window>
             List<Window> windows = super.calculateWindow(windowInfo, time);
             for (Window window : windows) {
@@ -154,15 +209,6 @@ public class WindowAccumulatorSupplier<K, V, R, OV> implements Supplier<Processo
                 this.windowStore.put(stateTopicMessageQueue, windowKey, state);
                 this.idleWindowScaner.putAccumulatorWindowCallback(windowKey, this.accumulatorWindowFire);
             }
-
-            try {
-                List<WindowKey> fire = this.accumulatorWindowFire.fire(name, watermark);
-                for (WindowKey windowKey : fire) {
-                    this.idleWindowScaner.removeWindowKey(windowKey);
-                }
-            } catch (Throwable t) {
-                errorReference.compareAndSet(null, t);
-            }
         }
     }
 
@@ -22,9 +22,63 @@ public class StreamConfig {
     public static final String IDLE_TIME_TO_FIRE_WINDOW = "idleTimeToFireWindow";
     public static final String ROCKETMQ_STREAMS_CONSUMER_GROUP = "__source_shuffle_group";
     public static final String ROCKETMQ_STREAMS_STATE_CONSUMER_GROUP = "__state_group";
+    //queue num of shuffle topics in a job, existing shuffle topic with less queues is expanded.
+    public static final String SHUFFLE_TOPIC_QUEUE_NUM_KEY = "shuffleTopicQueueNum";
 
     public static Integer STREAMS_PARALLEL_THREAD_NUM = 1;
+    //min queue num of new shuffle topic, if not set in job, it is at least queue num of source topics and parallel thread num.
     public static Integer SHUFFLE_TOPIC_QUEUE_NUM = 8;
     public static Integer SCHEDULED_THREAD_NUM = 2;
     public static Integer DEFAULT_ALLOW_LATE_MILLISECONDS = 2000;
+    //lookup table with more messages than this is stored in rocksdb, otherwise in memory.
+    public static Integer LOOKUP_TABLE_IN_MEMORY_MAX_NUM = 100000;
+    //wait at most this long for the lookup table to be loaded.
+    public static Long LOOKUP_TABLE_LOAD_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+    //while loading, queue which returns nothing for this long is loaded, the tail of it may be removed from topic.
+    public static Long LOOKUP_TABLE_LOAD_IDLE_MILLIS = 3 * 1000L;
+    //serde of shuffle topic, json or binary or name of a ShuffleSerde provided by ServiceLoader. It must be the same in all instances of a job.
+    public static String SHUFFLE_SERDE = "json";
+    //hash of key for routing and state key, md5 or murmur3. It decides the queue and state of a key, do not change it for a job with state.
+    public static String KEY_HASHER = "md5";
+    //shuffle data to a queue owned by this process is also handed over in memory, the copy read back from broker is skipped.
+    public static Boolean LOCAL_SHUFFLE_SHORTCUT = false;
+    //max local shuffle data waiting to be processed in one worker, more data is read back from broker.
+    public static Integer LOCAL_SHUFFLE_INBOX_CAPACITY = 10000;
+    //num of key groups, 0 means state is bound to shuffle queue. Set it before the first run of a job, not less than the
+    //max queue num of shuffle topics, and do not change it later. State of the whole queue is kept in the queues after key groups.
+    public static Integer KEY_GROUP_NUM = 0;
+    //fuse consecutive stateless operators into one processor.
+    public static Boolean OPERATOR_CHAINING = false;
+    //push down filter/map before shuffle, merge adjacent maps and remove unused nodes created by framework when building topology.
+    public static Boolean OPTIMIZE_PLAN = false;
+    //max records of one source queue forwarded together as a batch, 1 means record at a time.
+    public static Integer MICRO_BATCH_SIZE = 1;
+    //max messages of one pull from broker, also the max size of one poll.
+    public static Integer PULL_BATCH_SIZE = 1000;
+    //pull of a queue is paused when cached messages of it is more than this.
+    public static Integer PULL_THRESHOLD_FOR_QUEUE = 1000;
+    //pull of all queues is paused when cached messages are more than this.
+    public static Long PULL_THRESHOLD_FOR_ALL = 10000L;
+    public static Integer PULL_THREAD_NUM = 20;
+    //max time worker thread waits for messages in one poll.
+    public static Long POLL_TIMEOUT_MILLIS = 10L;
+    //grow pull batch size under backlog and shrink poll timeout when idle, see PollController.
+    public static Boolean ADAPTIVE_POLL = false;
+    public static Integer ADAPTIVE_PULL_BATCH_SIZE_MIN = 32;
+    //interval of logging poll size, latency and empty ratio of every worker.
+    public static Long POLL_STATS_INTERVAL_MILLIS = 60 * 1000L;
+    //worker stops polling and pauses its queues when any of these is exceeded, and resumes when all are below half of
+    //them and no persist is longer than the limit. 0 disables the limit.
+    public static Integer BACKPRESSURE_MAX_IN_FLIGHT = 10000;
+    public static Integer BACKPRESSURE_MAX_DIRTY_STATE = 100000;
+    public static Long BACKPRESSURE_MAX_PERSIST_MILLIS = 5000L;
+    //checkpoint is taken when any of these is reached, it bounds the cost of one checkpoint under burst and data replayed
+    //after failover. 0 disables the limit of dirty keys or bytes.
+    public static Long CHECKPOINT_MAX_INTERVAL_MILLIS = 10 * 1000L;
+    public static Integer CHECKPOINT_MAX_DIRTY_KEYS = 10000;
+    public static Long CHECKPOINT_MAX_DIRTY_BYTES = 64 * 1024 * 1024L;
+    //rewrite all live keys of a state topic queue in checkpoint at this interval, recovery replays from the latest rewrite
+    //only. The interval should be much shorter than the retention time of state topic.
+    public static Boolean STATE_COMPACTION = false;
+    public static Long STATE_COMPACTION_INTERVAL_MILLIS = 30 * 60 * 1000L;
 }
@@ -55,6 +55,12 @@ public interface GroupedStream<K, V> {
 
     GroupedStream<K, V> addGraphNode(String name, Supplier<Processor<V>> supplier);
 
+    /**
+     * set queue num of the shuffle topic created by the following aggregate or window, overrides the queue num of job.
+     * Existing shuffle topic with less queues is expanded when job starts.
+     */
+    GroupedStream<K, V> shuffleQueueNum(int queueNum);
+
     RStream<V> toRStream();
 
     void sink(String topicName, KeyValueSerializer<K, V> serializer);
@@ -67,7 +67,7 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         Supplier<Processor<V>> supplier = new AggregateSupplier<>(name, parent.getName(), () -> 0, (K key, V value, Integer agg) -> agg + 1);
 
         GraphNode graphNode;
-        if (this.parent.shuffleNode()) {
+        if (needShuffle()) {
             graphNode = new ShuffleProcessorNode<>(name, parent.getName(), supplier);
         } else {
             graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
@@ -83,7 +83,7 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         Supplier<Processor<V>> supplier = new AggregateSupplier<>(name, parent.getName(), () -> 0, (K key, V value, Integer agg) -> agg + 1);
 
         GraphNode graphNode;
-        if (this.parent.shuffleNode()) {
+        if (needShuffle()) {
             graphNode = new ShuffleProcessorNode<>(name, parent.getName(), supplier);
         } else {
             graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
@@ -114,12 +114,14 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         });
 
         GraphNode graphNode;
-        if (this.parent.shuffleNode()) {
+        if (needShuffle()) {
             graphNode = new ShuffleProcessorNode<>(name, parent.getName(), supplier);
         } else {
             graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
         }
 
+        //min and max keep one of the values
+        graphNode.setKeepPartition(true);
         return this.pipeline.addGroupedStreamVirtualNode(graphNode, parent);
     }
 
@@ -144,12 +146,14 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         });
 
         GraphNode graphNode;
-        if (this.parent.shuffleNode()) {
+        if (needShuffle()) {
             graphNode = new ShuffleProcessorNode<>(name, parent.getName(), supplier);
         } else {
             graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
         }
 
+        //min and max keep one of the values
+        graphNode.setKeepPartition(true);
         return this.pipeline.addGroupedStreamVirtualNode(graphNode, parent);
     }
 
@@ -159,7 +163,7 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         Supplier<Processor<V>> supplier = new AggregateSupplier<>(name, parent.getName(), () -> null, new SumAggregate<>(selectAction));
 
         GraphNode graphNode;
-        if (this.parent.shuffleNode()) {
+        if (needShuffle()) {
             graphNode = new ShuffleProcessorNode<>(name, parent.getName(), supplier);
         } else {
             graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
@@ -173,7 +177,8 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         String name = OperatorNameMaker.makeName(FILTER_PREFIX, pipeline.getJobId());
 
         FilterSupplier<V> supplier = new FilterSupplier<>(predictor);
-        GraphNode graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
+        GraphNode graphNode = pendingShuffle(name, supplier);
+        graphNode.setKeepPartition(true);
 
         return this.pipeline.addGroupedStreamVirtualNode(graphNode, parent);
     }
@@ -183,7 +188,7 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         String name = OperatorNameMaker.makeName(MAP_PREFIX, pipeline.getJobId());
 
         ValueChangeSupplier<V, OUT> supplier = new ValueChangeSupplier<>(mapperAction);
-        GraphNode graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
+        GraphNode graphNode = pendingShuffle(name, supplier);
 
         return this.pipeline.addGroupedStreamVirtualNode(graphNode, parent);
     }
@@ -204,7 +209,7 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         Supplier<Processor<V>> supplier = new AccumulatorSupplier<>(name, parent.getName(), value -> value, accumulator);
 
         GraphNode graphNode;
-        if (this.parent.shuffleNode()) {
+        if (needShuffle()) {
             graphNode = new ShuffleProcessorNode<>(name, parent.getName(), supplier);
         } else {
             graphNode = new ProcessorNode<>(name, parent.getName(), supplier);
@@ -220,13 +225,14 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
 
         ProcessorNode<V> node;
 
-        if (!this.parent.shuffleNode()) {
+        if (!this.parent.shuffleNode() || (windowInfo.getJoinStream() == null && this.parent.isPartitionedByKey())) {
             node = new ProcessorNode<>(name, parent.getName(), new AddTagSupplier<>());
         } else if (windowInfo.getJoinStream() != null) {
             node = new ShuffleProcessorNode<>(name, parent.getName(), new AddTagSupplier<>(windowInfo::getJoinStream));
         } else {
             node = new ShuffleProcessorNode<>(name, parent.getName(), new AddTagSupplier<>());
         }
+        node.setKeepPartition(true);
 
         return this.pipeline.addWindowStreamVirtualNode(node, parent, windowInfo);
     }
@@ -243,6 +249,34 @@ public class GroupedStreamImpl<K, V> implements GroupedStream<K, V> {
         return this.pipeline.addGroupedStreamVirtualNode(graphNode, parent);
     }
 
+    @Override
+    public GroupedStream<K, V> shuffleQueueNum(int queueNum) {
+        if (queueNum <= 0) {
+            throw new IllegalArgumentException("shuffle queue num must be positive. queueNum=" + queueNum);
+        }
+        this.parent.setShuffleQueueNum(queueNum);
+        return this;
+    }
+
+    /**
+     * stateless node keeps the shuffle of keyBy pending, so it runs before the shuffle of next stateful node.
+     */
+    private GraphNode pendingShuffle(String name, Supplier<Processor<V>> supplier) {
+        GraphNode graphNode = new ProcessorNode<>(name, parent.getName(), parent.shuffleNode(), supplier);
+        graphNode.setKeySelector(parent.getKeySelector());
+        graphNode.setShuffleQueueNum(parent.getShuffleQueueNum());
+        graphNode.setPartitionedByKey(parent.isPartitionedByKey());
+        return graphNode;
+    }
+
+    /**
+     * shuffle is skipped when data is already partitioned by the key of keyBy. Join always shuffles both streams into
+     * shuffle topics.
+     */
+    private boolean needShuffle() {
+        return this.parent.shuffleNode() && !this.parent.isPartitionedByKey();
+    }
+
     @Override
     public RStream<V> toRStream() {
         return new RStreamImpl<>(this.pipeline, parent);
@@ -19,11 +19,14 @@ package org.apache.rocketmq.streams.core.rstream;
 import org.apache.rocketmq.streams.core.function.SelectAction;
 import org.apache.rocketmq.streams.core.function.ValueJoinAction;
 import org.apache.rocketmq.streams.core.function.supplier.AddTagSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.IntervalJoinSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.JoinAggregateSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.JoinWindowAggregateSupplier;
 import org.apache.rocketmq.streams.core.running.Processor;
+import org.apache.rocketmq.streams.core.window.JoinRetention;
 import org.apache.rocketmq.streams.core.window.JoinType;
 import org.apache.rocketmq.streams.core.window.StreamType;
+import org.apache.rocketmq.streams.core.window.Time;
 import org.apache.rocketmq.streams.core.window.WindowInfo;
 import org.apache.rocketmq.streams.core.topology.virtual.GraphNode;
 import org.apache.rocketmq.streams.core.topology.virtual.ProcessorNode;
@@ -40,6 +43,8 @@ public class JoinedStream<V1, V2> {
     private RStream<V1> leftStream;
     private RStream<V2> rightStream;
     private JoinType joinType;
+    private Time lower;
+    private Time upper;
 
     public JoinedStream(RStream<V1> leftStream, RStream<V2> rightStream, JoinType joinType) {
         this.leftStream = leftStream;
@@ -47,6 +52,21 @@ public class JoinedStream<V1, V2> {
         this.joinType = joinType;
     }
 
+    /**
+     * interval join, left data at time t joins right data whose time is in [t + lower, t + upper].
+     */
+    public JoinedStream<V1, V2> between(Time lower, Time upper) {
+        if (joinType != JoinType.INNER_JOIN) {
+            throw new UnsupportedOperationException("interval join only support inner join.");
+        }
+        if (lower == null || upper == null || lower.toMilliseconds() > upper.toMilliseconds()) {
+            throw new IllegalArgumentException("lower bound of interval join must not be greater than upper bound.");
+        }
+        this.lower = lower;
+        this.upper = upper;
+        return this;
+    }
+
     public <K> Where<K> where(SelectAction<K, V1> rightSelectAction) {
         return new Where<>(rightSelectAction);
     }
@@ -54,6 +74,7 @@ public class JoinedStream<V1, V2> {
     public class Where<K> {
         private SelectAction<K, V1> leftSelectAction;
         private SelectAction<K, V2> rightSelectAction;
+        private JoinRetention retention = JoinRetention.latest();
 
         public Where(SelectAction<K, V1> leftSelectAction) {
             this.leftSelectAction = leftSelectAction;
@@ -65,13 +86,28 @@ public class JoinedStream<V1, V2> {
             return this;
         }
 
+        /**
+         * how long the join state is kept, only for join without window.
+         */
+        public Where<K> retention(JoinRetention retention) {
+            this.retention = Objects.requireNonNull(retention);
+            return this;
+        }
+
         public <OUT> RStream<OUT> apply(ValueJoinAction<V1, V2, OUT> joinAction) {
             List<String> temp = new ArrayList<>();
             Pipeline leftStreamPipeline = JoinedStream.this.leftStream.getPipeline();
             String jobId = leftStreamPipeline.getJobId();
 
-            String name = OperatorNameMaker.makeName(OperatorNameMaker.JOIN_PREFIX, jobId);
-            Supplier<Processor<? super OUT>> supplier = new JoinAggregateSupplier<>(name, joinType, joinAction);
+            String name;
+            Supplier<Processor<? super OUT>> supplier;
+            if (JoinedStream.this.lower != null) {
+                name = OperatorNameMaker.makeName(OperatorNameMaker.INTERVAL_JOIN_PREFIX, jobId);
+                supplier = new IntervalJoinSupplier<>(name, lower.toMilliseconds(), upper.toMilliseconds(), joinAction);
+            } else {
+                name = OperatorNameMaker.makeName(OperatorNameMaker.JOIN_PREFIX, jobId);
+                supplier = new JoinAggregateSupplier<>(name, joinType, joinAction, retention);
+            }
             ProcessorNode<OUT> commChild = new ProcessorNode(name, temp, supplier);
 
 
@@ -106,6 +142,9 @@ public class JoinedStream<V1, V2> {
         }
 
         public JoinWindow<K> window(WindowInfo windowInfo) {
+            if (JoinedStream.this.lower != null) {
+                throw new IllegalStateException("interval join can not be used with window.");
+            }
             return new JoinWindow<>(this.leftSelectAction, this.rightSelectAction, windowInfo);
         }
     }
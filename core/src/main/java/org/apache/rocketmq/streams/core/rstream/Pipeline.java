@@ -20,6 +20,7 @@ import org.apache.rocketmq.streams.core.window.WindowInfo;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
 import org.apache.rocketmq.streams.core.topology.virtual.AbstractGraphNode;
 import org.apache.rocketmq.streams.core.topology.virtual.GraphNode;
+import org.apache.rocketmq.streams.core.topology.virtual.ShuffleProcessorNode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -52,6 +53,7 @@ public class Pipeline {
 
         parentNode.addChild(currentNode);
         currentNode.addParent(parentNode);
+        inheritFromParent(currentNode, parentNode);
 
         virtualNodes.add(currentNode);
         return new RStreamImpl<>(this, currentNode);
@@ -64,6 +66,7 @@ public class Pipeline {
 
         parentNode.addChild(currentNode);
         currentNode.addParent(parentNode);
+        inheritFromParent(currentNode, parentNode);
 
         virtualNodes.add(currentNode);
         return new GroupedStreamImpl<>(this, currentNode);
@@ -76,6 +79,7 @@ public class Pipeline {
 
         parentNode.addChild(currentNode);
         currentNode.addParent(parentNode);
+        inheritFromParent(currentNode, parentNode);
 
         virtualNodes.add(currentNode);
         return new WindowStreamImpl<>(this, currentNode, windowInfo);
@@ -89,6 +93,22 @@ public class Pipeline {
         virtualNodes.add(currentNode);
     }
 
+    /**
+     * data is partitioned by the key of keyBy after shuffle, node which keeps value keeps the partition of data, node which
+     * changes value, such as map, clears it, because key selector can not be applied to the new value.
+     * Queue num of shuffle topic is set on keyBy node.
+     */
+    private void inheritFromParent(GraphNode currentNode, GraphNode parentNode) {
+        if (currentNode instanceof ShuffleProcessorNode) {
+            currentNode.setShuffleQueueNum(parentNode.getShuffleQueueNum());
+            if (currentNode.keepPartition()) {
+                currentNode.setPartitionKeySelector(parentNode.getKeySelector());
+            }
+        } else if (currentNode.keepPartition() && currentNode.getPartitionKeySelector() == null && currentNode.getAllParent().size() == 1) {
+            currentNode.setPartitionKeySelector(parentNode.getPartitionKeySelector());
+        }
+    }
+
     public GraphNode getRoot() {
         return this.root;
     }
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.rstream;
+
+import org.apache.rocketmq.client.consumer.MessageSelector;
+import org.apache.rocketmq.streams.core.function.supplier.AddTagSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.FilterSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.ValueChangeSupplier;
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.topology.virtual.GraphNode;
+import org.apache.rocketmq.streams.core.topology.virtual.ProcessorNode;
+import org.apache.rocketmq.streams.core.topology.virtual.ShuffleProcessorNode;
+import org.apache.rocketmq.streams.core.topology.virtual.SinkGraphNode;
+import org.apache.rocketmq.streams.core.topology.virtual.SourceGraphNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * rewrites virtual nodes of pipelines before they are built:
+ * <ul>
+ *     <li>remove stateless nodes created by framework whose output is used by nobody;</li>
+ *     <li>move filter and map which follow the shuffle of window to the upstream of shuffle, they only see the value
+ *     so the result does not depend on partition, and less data is written into shuffle topic;</li>
+ *     <li>merge adjacent maps into one node.</li>
+ * </ul>
+ */
+class PlanOptimizer {
+
+    static void optimize(List<GraphNode> roots) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (GraphNode node : allNodes(roots)) {
+                changed |= removeDeadNode(node) || pushDown(node) || mergeMap(node);
+                if (changed) {
+                    //graph changed, traverse again
+                    break;
+                }
+            }
+        }
+    }
+
+    static String explain(List<GraphNode> roots) {
+        StringBuilder builder = new StringBuilder();
+        Set<GraphNode> printed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GraphNode root : roots) {
+            for (GraphNode child : root.getAllChild()) {
+                explain(child, 0, printed, builder);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void explain(GraphNode node, int depth, Set<GraphNode> printed, StringBuilder builder) {
+        for (int i = 0; i < depth; i++) {
+            builder.append("  ");
+        }
+        builder.append(node.getName()).append(" ").append(describe(node));
+
+        if (!printed.add(node)) {
+            //join节点有多个父节点，只展开一次
+            builder.append(" (see above)").append(System.lineSeparator());
+            return;
+        }
+        builder.append(System.lineSeparator());
+
+        for (GraphNode child : node.getAllChild()) {
+            explain(child, depth + 1, printed, builder);
+        }
+    }
+
+    private static String describe(GraphNode node) {
+        if (node instanceof SourceGraphNode) {
+            SourceGraphNode<?> source = (SourceGraphNode<?>) node;
+            MessageSelector selector = source.getSelector();
+            return selector == null ? "[source: " + source.getTopicName() + "]"
+                    : "[source: " + source.getTopicName() + ", " + selector.getExpressionType() + ": " + selector.getExpression() + "]";
+        }
+        if (node instanceof SinkGraphNode) {
+            String topicName = ((SinkGraphNode<?>) node).getTopicName();
+            return topicName == null ? "[sink]" : "[sink: " + topicName + "]";
+        }
+        if (node instanceof ProcessorNode) {
+            String supplier = ((ProcessorNode<?>) node).getSupplier().getClass().getSimpleName();
+            return node instanceof ShuffleProcessorNode ? "[shuffle, " + supplier + "]" : "[" + supplier + "]";
+        }
+        return "[" + node.getClass().getSimpleName() + "]";
+    }
+
+    /**
+     * only nodes created by framework are removed, user function without downstream may be there for its side effect.
+     */
+    private static boolean removeDeadNode(GraphNode node) {
+        if (!isFrameworkNode(node) || !node.getAllChild().isEmpty() || node.getAllParent().size() != 1) {
+            return false;
+        }
+
+        GraphNode parent = node.getAllParent().get(0);
+        parent.removeChild(node);
+        node.removeParent(parent);
+        return true;
+    }
+
+    /**
+     * parent -> shuffle -> child -> ... to parent -> child -> shuffle -> ...
+     */
+    private static boolean pushDown(GraphNode node) {
+        if (!(node instanceof ShuffleProcessorNode) || !(((ProcessorNode<?>) node).getSupplier() instanceof AddTagSupplier)) {
+            return false;
+        }
+        if (node.getAllParent().size() != 1 || node.getAllChild().size() != 1) {
+            return false;
+        }
+
+        GraphNode child = node.getAllChild().get(0);
+        if (!isValueOnly(child) || child.getAllParent().size() != 1) {
+            return false;
+        }
+
+        GraphNode parent = node.getAllParent().get(0);
+        parent.replaceChild(node, child);
+        child.replaceParent(node, parent);
+
+        node.removeChild(child);
+        for (GraphNode grandChild : new ArrayList<>(child.getAllChild())) {
+            grandChild.replaceParent(child, node);
+            node.addChild(grandChild);
+            child.removeChild(grandChild);
+        }
+
+        node.replaceParent(parent, child);
+        child.addChild(node);
+        return true;
+    }
+
+    private static boolean mergeMap(GraphNode node) {
+        if (!isMap(node) || node.getAllChild().size() != 1) {
+            return false;
+        }
+
+        GraphNode child = node.getAllChild().get(0);
+        if (!isMap(child) || child.getAllParent().size() != 1 || child.shuffleNode() != node.shuffleNode()) {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        ProcessorNode<Object> first = (ProcessorNode<Object>) node;
+        @SuppressWarnings("unchecked")
+        ValueChangeSupplier<Object, Object> firstSupplier = (ValueChangeSupplier<Object, Object>) first.getSupplier();
+        @SuppressWarnings("unchecked")
+        ProcessorNode<Object> second = (ProcessorNode<Object>) child;
+        ValueChangeSupplier<Object, Object> secondSupplier = (ValueChangeSupplier<Object, Object>) second.getSupplier();
+        first.setSupplier(firstSupplier.andThen(secondSupplier));
+
+        node.removeChild(child);
+        child.removeParent(node);
+        for (GraphNode grandChild : new ArrayList<>(child.getAllChild())) {
+            grandChild.replaceParent(child, node);
+            node.addChild(grandChild);
+            child.removeChild(grandChild);
+        }
+        return true;
+    }
+
+    private static boolean isStateless(GraphNode node) {
+        return node instanceof ProcessorNode && ((ProcessorNode<?>) node).getSupplier() instanceof ChainableSupplier;
+    }
+
+    private static boolean isFrameworkNode(GraphNode node) {
+        return isStateless(node) && ((ProcessorNode<?>) node).getSupplier() instanceof AddTagSupplier;
+    }
+
+    private static boolean isValueOnly(GraphNode node) {
+        if (!(node instanceof ProcessorNode) || node instanceof ShuffleProcessorNode) {
+            return false;
+        }
+        Object supplier = ((ProcessorNode<?>) node).getSupplier();
+        return supplier instanceof FilterSupplier || supplier instanceof ValueChangeSupplier;
+    }
+
+    private static boolean isMap(GraphNode node) {
+        return node.getClass() == ProcessorNode.class && ((ProcessorNode<?>) node).getSupplier() instanceof ValueChangeSupplier;
+    }
+
+    private static List<GraphNode> allNodes(List<GraphNode> roots) {
+        List<GraphNode> result = new ArrayList<>();
+        Set<GraphNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GraphNode root : roots) {
+            collect(root, visited, result);
+        }
+        return result;
+    }
+
+    private static void collect(GraphNode node, Set<GraphNode> visited, List<GraphNode> result) {
+        if (!visited.add(node)) {
+            return;
+        }
+        result.add(node);
+        for (GraphNode child : node.getAllChild()) {
+            collect(child, visited, result);
+        }
+    }
+}
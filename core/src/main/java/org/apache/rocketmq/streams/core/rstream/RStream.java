@@ -19,20 +19,43 @@ package org.apache.rocketmq.streams.core.rstream;
 import org.apache.rocketmq.streams.core.function.FilterAction;
 import org.apache.rocketmq.streams.core.function.ForeachAction;
 import org.apache.rocketmq.streams.core.function.SelectAction;
+import org.apache.rocketmq.streams.core.function.ValueJoinAction;
 import org.apache.rocketmq.streams.core.function.ValueMapperAction;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
 import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
+import org.apache.rocketmq.streams.core.window.Time;
+
+import java.util.concurrent.CompletableFuture;
 
 public interface RStream<T> {
     RStream<T> selectTimestamp(ValueMapperAction<T, Long> timestampSelector);
 
     <O> RStream<O> map(ValueMapperAction<T, O> mapperAction);
 
+    /**
+     * map with CompletableFuture, results are emitted in the order of input.
+     *
+     * @param maxInFlight max num of records waiting for result.
+     * @param timeout     record is discarded if its result is not completed in timeout.
+     */
+    <O> RStream<O> mapAsync(ValueMapperAction<T, CompletableFuture<O>> mapperAction, int maxInFlight, Time timeout);
+
+    <O> RStream<O> mapAsync(ValueMapperAction<T, CompletableFuture<O>> mapperAction, int maxInFlight, Time timeout, boolean ordered);
+
     <VR> RStream<VR> flatMap(final ValueMapperAction<T, ? extends Iterable<? extends VR>> mapper);
 
     RStream<T> filter(FilterAction<T> predictor);
 
     <K> GroupedStream<K, T> keyBy(SelectAction<K, T> selectAction);
 
+    /**
+     * declare that the source topic is already partitioned by selectAction, every key is always in the same queue.
+     * Then keyBy with the same selectAction instance, followed by aggregate or window, does not shuffle data again.
+     * <p>
+     * Only for source stream. Partitioning is identified by instance of selectAction, keyBy with another instance still shuffles.
+     */
+    RStream<T> assumePartitionedBy(SelectAction<?, T> selectAction);
+
     void print();
 
     RStream<T> foreach(ForeachAction<T> foreachAction);
@@ -41,6 +64,18 @@ public interface RStream<T> {
 
     <T2> JoinedStream<T, T2> leftJoin(RStream<T2> rightStream);
 
+    /**
+     * inner join data of two streams whose time are close, set the time bound by {@link JoinedStream#between}.
+     */
+    <T2> JoinedStream<T, T2> intervalJoin(RStream<T2> rightStream);
+
+    /**
+     * join with a table loaded from a compacted topic, the key of table is the key of message in tableTopic.
+     * The table is cached locally, data of this stream is not shuffled. Value of table is null if key is not found.
+     */
+    <V, OUT> RStream<OUT> lookupJoin(String tableTopic, KeyValueDeserializer<Void, V> deserializer,
+                                     SelectAction<String, T> keySelectAction, ValueJoinAction<T, V, OUT> joinAction);
+
     Pipeline getPipeline();
 
     void sink(String topicName, KeyValueSerializer<Object, T> serializer);
@@ -22,25 +22,35 @@ import org.apache.rocketmq.streams.core.util.OperatorNameMaker;
 import org.apache.rocketmq.streams.core.function.FilterAction;
 import org.apache.rocketmq.streams.core.function.ForeachAction;
 import org.apache.rocketmq.streams.core.function.SelectAction;
+import org.apache.rocketmq.streams.core.function.ValueJoinAction;
 import org.apache.rocketmq.streams.core.function.ValueMapperAction;
+import org.apache.rocketmq.streams.core.function.supplier.AsyncValueChangeSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.FilterSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.ForeachSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.KeySelectSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.LookupJoinSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.PrintSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.SinkSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.TimestampSelectorSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.ValueChangeSupplier;
 import org.apache.rocketmq.streams.core.window.JoinType;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
 import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
 import org.apache.rocketmq.streams.core.topology.virtual.GraphNode;
 import org.apache.rocketmq.streams.core.topology.virtual.ProcessorNode;
 import org.apache.rocketmq.streams.core.topology.virtual.SinkGraphNode;
+import org.apache.rocketmq.streams.core.topology.virtual.SourceGraphNode;
+import org.apache.rocketmq.streams.core.window.Time;
+
+import java.util.concurrent.CompletableFuture;
 
 
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.FILTER_PREFIX;
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.FLAT_MAP_PREFIX;
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.FOR_EACH_PREFIX;
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.GROUPBY_PREFIX;
+import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.LOOKUP_JOIN_PREFIX;
+import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.MAP_ASYNC_PREFIX;
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.MAP_PREFIX;
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.PRINT_PREFIX;
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.SINK_PREFIX;
@@ -60,6 +70,7 @@ public class RStreamImpl<T> implements RStream<T> {
 
         TimestampSelectorSupplier<T> supplier = new TimestampSelectorSupplier<>(timestampSelector);
         GraphNode processorNode = new ProcessorNode<>(name, parent.getName(), supplier);
+        processorNode.setKeepPartition(true);
 
         return pipeline.addRStreamVirtualNode(processorNode, parent);
     }
@@ -74,6 +85,21 @@ public class RStreamImpl<T> implements RStream<T> {
         return pipeline.addRStreamVirtualNode(processorNode, parent);
     }
 
+    @Override
+    public <O> RStream<O> mapAsync(ValueMapperAction<T, CompletableFuture<O>> mapperAction, int maxInFlight, Time timeout) {
+        return mapAsync(mapperAction, maxInFlight, timeout, true);
+    }
+
+    @Override
+    public <O> RStream<O> mapAsync(ValueMapperAction<T, CompletableFuture<O>> mapperAction, int maxInFlight, Time timeout, boolean ordered) {
+        String name = OperatorNameMaker.makeName(MAP_ASYNC_PREFIX, pipeline.getJobId());
+
+        AsyncValueChangeSupplier<T, O> supplier = new AsyncValueChangeSupplier<>(mapperAction, maxInFlight, timeout.toMilliseconds(), ordered);
+        GraphNode processorNode = new ProcessorNode<>(name, parent.getName(), supplier);
+
+        return pipeline.addRStreamVirtualNode(processorNode, parent);
+    }
+
     @Override
     public <VR> RStream<VR> flatMap(ValueMapperAction<T, ? extends Iterable<? extends VR>> mapper) {
         String name = OperatorNameMaker.makeName(FLAT_MAP_PREFIX, pipeline.getJobId());
@@ -90,6 +116,7 @@ public class RStreamImpl<T> implements RStream<T> {
 
         FilterSupplier<T> supplier = new FilterSupplier<>(predictor);
         GraphNode processorNode = new ProcessorNode<>(name, parent.getName(), supplier);
+        processorNode.setKeepPartition(true);
 
         return pipeline.addRStreamVirtualNode(processorNode, parent);
     }
@@ -101,10 +128,21 @@ public class RStreamImpl<T> implements RStream<T> {
         KeySelectSupplier<K, T> keySelectSupplier = new KeySelectSupplier<>(selectAction);
 
         GraphNode processorNode = new ProcessorNode<>(name, parent.getName(), true, keySelectSupplier);
+        processorNode.setKeySelector(selectAction);
+        processorNode.setKeepPartition(true);
 
         return pipeline.addGroupedStreamVirtualNode(processorNode, parent);
     }
 
+    @Override
+    public RStream<T> assumePartitionedBy(SelectAction<?, T> selectAction) {
+        if (!(parent instanceof SourceGraphNode)) {
+            throw new IllegalStateException("assumePartitionedBy can only be called on source stream, node=" + parent.getName());
+        }
+        parent.setPartitionKeySelector(selectAction);
+        return this;
+    }
+
     @Override
     public void print() {
         String name = OperatorNameMaker.makeName(PRINT_PREFIX, pipeline.getJobId());
@@ -122,6 +160,7 @@ public class RStreamImpl<T> implements RStream<T> {
         ForeachSupplier<T> supplier = new ForeachSupplier<T>(foreachAction);
 
         ProcessorNode<T> node = new ProcessorNode<>(name, parent.getName(), supplier);
+        node.setKeepPartition(true);
 
         return pipeline.addRStreamVirtualNode(node, parent);
     }
@@ -136,6 +175,22 @@ public class RStreamImpl<T> implements RStream<T> {
         return new JoinedStream<>(this, rightStream, JoinType.LEFT_JOIN);
     }
 
+    @Override
+    public <T2> JoinedStream<T, T2> intervalJoin(RStream<T2> rightStream) {
+        return new JoinedStream<>(this, rightStream, JoinType.INNER_JOIN);
+    }
+
+    @Override
+    public <V, OUT> RStream<OUT> lookupJoin(String tableTopic, KeyValueDeserializer<Void, V> deserializer,
+                                            SelectAction<String, T> keySelectAction, ValueJoinAction<T, V, OUT> joinAction) {
+        String name = OperatorNameMaker.makeName(LOOKUP_JOIN_PREFIX, pipeline.getJobId());
+
+        LookupJoinSupplier<T, V, OUT> supplier = new LookupJoinSupplier<>(tableTopic, deserializer, keySelectAction, joinAction);
+        GraphNode processorNode = new ProcessorNode<>(name, parent.getName(), supplier);
+
+        return pipeline.addRStreamVirtualNode(processorNode, parent);
+    }
+
     @Override
     public Pipeline getPipeline() {
         return pipeline;
@@ -16,22 +16,29 @@
  */
 package org.apache.rocketmq.streams.core.rstream;
 
+import org.apache.rocketmq.client.consumer.MessageSelector;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
 import org.apache.rocketmq.streams.core.topology.virtual.GraphNode;
 import org.apache.rocketmq.streams.core.topology.virtual.SourceGraphNode;
 import org.apache.rocketmq.streams.core.util.OperatorNameMaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.apache.rocketmq.streams.core.util.OperatorNameMaker.SOURCE_PREFIX;
 
 public class StreamBuilder {
+    private static final Logger logger = LoggerFactory.getLogger(StreamBuilder.class.getName());
+
     private final List<Pipeline> pipelines = new ArrayList<>();
     private final TopologyBuilder topologyBuilder;
     private final String jobId;
+    private String planBeforeOptimize;
 
     public StreamBuilder(String jobId) {
         this.jobId = jobId;
@@ -39,12 +46,22 @@ public class StreamBuilder {
     }
 
     public <OUT> RStream<OUT> source(String topicName, KeyValueDeserializer<Void, OUT> deserializer) {
+        return source(topicName, deserializer, null);
+    }
+
+    /**
+     * source with messages filtered by broker, messages which are not selected are not pulled.
+     *
+     * @param selector tag or sql92 selector, see {@link MessageSelector#byTag(String)} and {@link MessageSelector#bySql(String)};
+     *                 sql92 requires enablePropertyFilter=true on broker. Subscribes all messages if null.
+     */
+    public <OUT> RStream<OUT> source(String topicName, KeyValueDeserializer<Void, OUT> deserializer, MessageSelector selector) {
         Pipeline pipeline = new Pipeline(jobId);
         this.pipelines.add(pipeline);
 
         String name = OperatorNameMaker.makeName(SOURCE_PREFIX, jobId);
 
-        GraphNode sourceGraphNode = new SourceGraphNode<>(name, topicName, deserializer);
+        GraphNode sourceGraphNode = new SourceGraphNode<>(name, topicName, deserializer, selector);
 
         return pipeline.addVirtualSource(sourceGraphNode);
     }
@@ -53,12 +70,46 @@ public class StreamBuilder {
         //双流join场景中，添加共同节点的pipeline最后构建；三流join未验证。
         pipelines.sort((o1, o2) -> o2.getVirtualNodesNum() - o1.getVirtualNodesNum());
 
+        if (StreamConfig.OPTIMIZE_PLAN) {
+            optimize();
+        }
+
         for (Pipeline pipeline : pipelines) {
             doBuild(pipeline.getRoot());
         }
         return topologyBuilder;
     }
 
+    /**
+     * optimize the plan and return it with the plan before optimization, call it after the topology is defined. Plan is
+     * returned as it is if {@link StreamConfig#OPTIMIZE_PLAN} is false.
+     */
+    public String explain() {
+        if (!StreamConfig.OPTIMIZE_PLAN) {
+            String explain = "plan:" + System.lineSeparator() + PlanOptimizer.explain(roots());
+            logger.info("job [{}] {}", jobId, explain);
+            return explain;
+        }
+        optimize();
+        String explain = "plan before optimization:" + System.lineSeparator() + planBeforeOptimize
+                + "plan after optimization:" + System.lineSeparator() + PlanOptimizer.explain(roots());
+        logger.info("job [{}] {}", jobId, explain);
+        return explain;
+    }
+
+    private void optimize() {
+        if (planBeforeOptimize != null) {
+            return;
+        }
+        List<GraphNode> roots = roots();
+        planBeforeOptimize = PlanOptimizer.explain(roots);
+        PlanOptimizer.optimize(roots);
+    }
+
+    private List<GraphNode> roots() {
+        return pipelines.stream().map(Pipeline::getRoot).collect(Collectors.toList());
+    }
+
     private void doBuild(GraphNode graphNode) {
         graphNode.addRealNode(topologyBuilder);
 
@@ -18,17 +18,18 @@ package org.apache.rocketmq.streams.core.running;
 
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.Unpooled;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.apache.rocketmq.streams.core.state.KeyGroupStateStore;
 import org.apache.rocketmq.streams.core.state.StateStore;
+import org.apache.rocketmq.streams.core.util.CodecCache;
+import org.apache.rocketmq.streams.core.util.KeyGroup;
 import org.apache.rocketmq.streams.core.util.Utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,9 +65,43 @@ public abstract class AbstractProcessor<T> implements Processor<T> {
 
         StateStore stateStore = context.getStateStore();
         stateStore.waitIfNotReady(sourceTopicQueue);
+
+        if (KeyGroup.enabled() && context.getKey() != null) {
+            //state put by this processor belongs to the key group of current key
+            return new KeyGroupStateStore(stateStore, KeyGroup.of(context.getKeyHash()));
+        }
         return stateStore;
     }
 
+    /**
+     * state store which puts state of the key, used when records of different keys are processed in one call.
+     */
+    protected StateStore stateStoreOf(Object key) {
+        return stateStoreOfKeyGroup(keyGroupOf(key));
+    }
+
+    /**
+     * state store which puts state into keyGroup, used when state of a key is changed without the key, e.g. by a sweep.
+     */
+    protected StateStore stateStoreOfKeyGroup(int keyGroup) {
+        StateStore stateStore = context.getStateStore();
+        if (keyGroup != KeyGroup.NONE) {
+            return new KeyGroupStateStore(stateStore, keyGroup);
+        }
+        return stateStore;
+    }
+
+    /**
+     * @return key group which state of key belongs to, {@link KeyGroup#NONE} if key group is disabled.
+     */
+    protected int keyGroupOf(Object key) {
+        if (!KeyGroup.enabled() || key == null) {
+            return KeyGroup.NONE;
+        }
+        String keyHash = key == context.getKey() ? context.getKeyHash() : Utils.toHexString(key);
+        return KeyGroup.of(keyHash);
+    }
+
     @SuppressWarnings("unchecked")
     protected <KEY> Data<KEY, T> convert(Data<?, ?> data) {
         return (Data<KEY, T>) new Data<>(data.getKey(), data.getValue(), data.getTimestamp(), data.getHeader());
@@ -74,7 +109,6 @@ public abstract class AbstractProcessor<T> implements Processor<T> {
 
 
 
-    private final ByteBuf buf = Unpooled.buffer(16);
     /**
      * encode
      * <pre>
@@ -92,22 +126,7 @@ public abstract class AbstractProcessor<T> implements Processor<T> {
             return new byte[]{};
         }
 
-        String name = obj.getClass().getName();
-        byte[] className = name.getBytes(StandardCharsets.UTF_8);
-        byte[] objBytes = Utils.object2Byte(obj);
-
-
-        buf.writeInt(className.length);
-        buf.writeBytes(className);
-        buf.writeInt(objBytes.length);
-        buf.writeBytes(objBytes);
-
-
-        byte[] bytes = new byte[buf.readableBytes()];
-        buf.readBytes(bytes);
-
-        buf.clear();
-        return bytes;
+        return Utils.object2ByteWithClassName(obj);
     }
 
     /**
@@ -128,28 +147,26 @@ public abstract class AbstractProcessor<T> implements Processor<T> {
             return null;
         }
 
-        ByteBuf byteBuf = Unpooled.wrappedBuffer(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
 
-        int classNameLength = byteBuf.readInt();
-        ByteBuf classNameBuf = byteBuf.readBytes(classNameLength);
-
-        byte[] clazzNameBytes = new byte[classNameBuf.readableBytes()];
-        classNameBuf.readBytes(clazzNameBytes);
+        int classNameLength = buffer.getInt();
         //实例化
-        String className = new String(clazzNameBytes, StandardCharsets.UTF_8);
-        Class<V> clazz = (Class<V>)Class.forName(className);
-
-        int objectLength = byteBuf.readInt();
-        ByteBuf objBuf = byteBuf.readBytes(objectLength);
-        byte[] objectBytes = new byte[objectLength];
-        objBuf.readBytes(objectBytes);
+        String className = new String(bytes, buffer.position(), classNameLength, StandardCharsets.UTF_8);
+        Class<V> clazz = (Class<V>) CodecCache.classForName(className);
+        buffer.position(buffer.position() + classNameLength);
 
-        classNameBuf.release();
-        objBuf.release();
+        int objectLength = buffer.getInt();
+        if (objectLength == 0) {
+            return null;
+        }
 
-        return Utils.byte2Object(objectBytes, clazz);
+        //直接从原数组反序列化，不拷贝
+        return CodecCache.readValue(bytes, buffer.position(), objectLength, clazz);
     }
 
+    /**
+     * string of key used in state key, the hash of current key is computed once per record.
+     */
     protected String toHexString(Object source) throws JsonProcessingException {
         if (source == null) {
             return null;
@@ -157,8 +174,10 @@ public abstract class AbstractProcessor<T> implements Processor<T> {
         if (source instanceof String) {
             return (String) source;
         }
-        byte[] sourceByte = this.object2Byte(source);
+        if (this.context != null && source == this.context.getKey()) {
+            return this.context.getKeyStateHash();
+        }
 
-        return Utils.toHexString(sourceByte);
+        return Utils.toStateHexString(source);
     }
 }
@@ -25,13 +25,13 @@ import org.apache.rocketmq.streams.core.util.Utils;
 import org.apache.rocketmq.streams.core.window.fire.IdleWindowScaner;
 import org.apache.rocketmq.streams.core.window.Window;
 import org.apache.rocketmq.streams.core.window.WindowInfo;
+import org.apache.rocketmq.streams.core.window.WindowPane;
 import org.apache.rocketmq.streams.core.window.fire.AccumulatorWindowFire;
 import org.apache.rocketmq.streams.core.window.fire.AccumulatorSessionWindowFire;
 import org.apache.rocketmq.streams.core.window.fire.AggregateSessionWindowFire;
 import org.apache.rocketmq.streams.core.window.fire.AggregateWindowFire;
 import org.apache.rocketmq.streams.core.window.fire.JoinWindowFire;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public abstract class AbstractWindowProcessor<V> extends AbstractProcessor<V> {
@@ -45,18 +45,7 @@ public abstract class AbstractWindowProcessor<V> extends AbstractProcessor<V> {
     protected JoinWindowFire<?, ?, ?, ?> joinWindowFire;
 
     protected List<Window> calculateWindow(WindowInfo windowInfo, long valueTime) {
-        long sizeInterval = windowInfo.getWindowSize().toMillSecond();
-        long slideInterval = windowInfo.getWindowSlide().toMillSecond();
-
-        List<Window> result = new ArrayList<>((int) (sizeInterval / slideInterval));
-        long lastStart = valueTime - (valueTime + slideInterval) % slideInterval;
-
-        for (long start = lastStart; start > valueTime - sizeInterval; start -= slideInterval) {
-            long end = start + sizeInterval;
-            Window window = new Window(start, end);
-            result.add(window);
-        }
-        return result;
+        return WindowPane.assignWindows(windowInfo, valueTime);
     }
 
 
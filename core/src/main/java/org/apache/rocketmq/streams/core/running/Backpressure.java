@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * credits of a worker: unresolved async records, state keys not persisted and time of the running persist.
+ * <p>
+ * When any credit is used up, queues of the consumer are paused and worker stops polling, so no more data is cached or
+ * processed until downstream catches up. Queues are resumed when all credits are back above half.
+ * <p>
+ * check is called by worker thread, persist time is set by checkpoint thread.
+ */
+public class Backpressure {
+    private static final Logger logger = LoggerFactory.getLogger(Backpressure.class.getName());
+
+    private final String workerName;
+    private final DefaultLitePullConsumer consumer;
+    private final Set<MessageQueue> pausedQueues = new HashSet<>();
+    private volatile long persistSince = 0;
+    private boolean paused = false;
+
+    public Backpressure(String workerName, DefaultLitePullConsumer consumer) {
+        this.workerName = workerName;
+        this.consumer = consumer;
+    }
+
+    public void persistStarted() {
+        this.persistSince = System.currentTimeMillis();
+    }
+
+    public void persistFinished() {
+        this.persistSince = 0;
+    }
+
+    /**
+     * @return true if worker should not poll.
+     */
+    public boolean check(int inFlightNum, int dirtyNum) throws Throwable {
+        if (!paused) {
+            String reason = exhausted(inFlightNum, dirtyNum, 1);
+            if (reason != null) {
+                pause(reason);
+            }
+        } else if (exhausted(inFlightNum, dirtyNum, 2) == null) {
+            resume();
+        }
+        return paused;
+    }
+
+    private String exhausted(int inFlightNum, int dirtyNum, int divisor) {
+        int maxInFlight = StreamConfig.BACKPRESSURE_MAX_IN_FLIGHT;
+        if (maxInFlight > 0 && inFlightNum >= maxInFlight / divisor) {
+            return "in-flight records: " + inFlightNum;
+        }
+
+        int maxDirty = StreamConfig.BACKPRESSURE_MAX_DIRTY_STATE;
+        if (maxDirty > 0 && dirtyNum >= maxDirty / divisor) {
+            return "dirty state keys: " + dirtyNum;
+        }
+
+        long since = this.persistSince;
+        long maxPersist = StreamConfig.BACKPRESSURE_MAX_PERSIST_MILLIS;
+        if (maxPersist > 0 && since != 0 && System.currentTimeMillis() - since >= maxPersist) {
+            return "persisting for: " + (System.currentTimeMillis() - since) + "ms";
+        }
+        return null;
+    }
+
+    private void pause(String reason) throws Throwable {
+        Set<MessageQueue> assignment = consumer.assignment();
+        if (assignment != null) {
+            pausedQueues.addAll(assignment);
+        }
+        consumer.pause(pausedQueues);
+        paused = true;
+        logger.warn("worker [{}] pauses {} queues, {}", workerName, pausedQueues.size(), reason);
+    }
+
+    private void resume() throws Throwable {
+        //queues assigned during pause are resumed too
+        Set<MessageQueue> assignment = consumer.assignment();
+        if (assignment != null) {
+            pausedQueues.addAll(assignment);
+        }
+        consumer.resume(pausedQueues);
+        logger.info("worker [{}] resumes {} queues", workerName, pausedQueues.size());
+        pausedQueues.clear();
+        paused = false;
+    }
+}
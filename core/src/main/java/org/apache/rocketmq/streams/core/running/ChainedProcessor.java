@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.streams.core.metadata.Data;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * consecutive stateless operators fused into one processor, data passes all steps in one call and only the result is
+ * forwarded to the next processor.
+ */
+public class ChainedProcessor<T> extends AbstractProcessor<T> implements BatchProcessor {
+    private final Step[] steps;
+    //processor is used by one worker thread, record is reused.
+    private final Record record = new Record();
+
+    public ChainedProcessor(List<Step> steps) {
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void process(T data) throws Throwable {
+        Record record = this.record;
+        record.key = this.context.getKey();
+        record.value = data;
+        record.timestamp = this.context.getDataTime();
+        record.header = this.context.getHeader();
+
+        try {
+            for (Step step : steps) {
+                if (!step.apply(record)) {
+                    return;
+                }
+            }
+
+            Data<Object, T> result = new Data<>(record.key, (T) record.value, record.timestamp, record.header);
+            this.context.forward(result);
+        } finally {
+            record.key = null;
+            record.value = null;
+            record.header = null;
+        }
+    }
+
+    /**
+     * batch passes the steps one by one, each step loops over all records left by previous step.
+     */
+    @Override
+    public void processBatch(RecordBatch batch) throws Throwable {
+        Record record = this.record;
+        try {
+            for (Step step : steps) {
+                int size = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    record.key = batch.getKey(i);
+                    record.value = batch.getValue(i);
+                    record.timestamp = batch.getTimestamp(i);
+                    record.header = batch.getHeader(i);
+
+                    if (!step.apply(record)) {
+                        continue;
+                    }
+
+                    batch.move(i, size);
+                    batch.setKey(size, record.key);
+                    batch.setValue(size, record.value);
+                    batch.setTimestamp(size, record.timestamp);
+                    size++;
+                }
+                batch.truncate(size);
+            }
+        } finally {
+            record.key = null;
+            record.value = null;
+            record.header = null;
+        }
+
+        this.context.forwardBatch(batch);
+    }
+
+    /**
+     * one stateless operator in chain.
+     */
+    public interface Step {
+        /**
+         * @return false if data is dropped.
+         */
+        boolean apply(Record record) throws Throwable;
+    }
+
+    public static class Record {
+        private Object key;
+        private Object value;
+        private long timestamp;
+        private Properties header;
+
+        public Object getKey() {
+            return key;
+        }
+
+        public void setKey(Object key) {
+            this.key = key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public Properties getHeader() {
+            return header;
+        }
+    }
+}
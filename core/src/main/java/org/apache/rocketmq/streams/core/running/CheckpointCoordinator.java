@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.apache.rocketmq.streams.core.state.StateSnapshot;
+import org.apache.rocketmq.streams.core.state.StateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * checkpoint of a worker. Worker thread takes offsets of consumed queues and snapshot of changed state together at record
+ * boundary and goes on processing, checkpoint thread persists the state and then commits the offsets, so offsets are
+ * never committed before the state they depend on.
+ * <p>
+ * Checkpoint is due when dirty keys or bytes of state reach the limit, or the max interval passed since the last one, see
+ * {@link StreamConfig#CHECKPOINT_MAX_INTERVAL_MILLIS}. Only one checkpoint is running at the same time. State of a failed
+ * checkpoint is persisted again in the next one.
+ * Methods except close are called by worker thread.
+ */
+public class CheckpointCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointCoordinator.class.getName());
+
+    private final String workerName;
+    private final DefaultLitePullConsumer consumer;
+    private final StateStore stateStore;
+    private final InFlightTracker inFlightTracker;
+    private final Backpressure backpressure;
+    private final ExecutorService executor;
+
+    //queues which have records processed since last checkpoint
+    private final Set<MessageQueue> changedQueues = new HashSet<>();
+    //offset after the last record polled from broker
+    private final Map<MessageQueue, Long> consumedOffsets = new HashMap<>();
+    private final ConcurrentLinkedQueue<Failed> failed = new ConcurrentLinkedQueue<>();
+
+    private Future<?> running;
+    private long lastCheckpoint = System.currentTimeMillis();
+
+    public CheckpointCoordinator(String workerName, DefaultLitePullConsumer consumer, StateStore stateStore,
+                                 InFlightTracker inFlightTracker, Backpressure backpressure) {
+        this.workerName = workerName;
+        this.consumer = consumer;
+        this.stateStore = stateStore;
+        this.inFlightTracker = inFlightTracker;
+        this.backpressure = backpressure;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Checkpoint_" + workerName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void changed(MessageQueue queue) {
+        changedQueues.add(queue);
+    }
+
+    /**
+     * state is changed without a record, e.g. by idle window fire.
+     *
+     * @param stateTopicQueue messageQueue of state topic.
+     */
+    public void stateChanged(MessageQueue stateTopicQueue) {
+        String stateTopic = stateTopicQueue.getTopic();
+        String sourceTopic = stateTopic.substring(0, stateTopic.lastIndexOf(Constant.STATE_TOPIC_SUFFIX));
+        changedQueues.add(new MessageQueue(sourceTopic, stateTopicQueue.getBrokerName(), stateTopicQueue.getQueueId()));
+    }
+
+    public void polled(MessageQueue queue, long offset) {
+        consumedOffsets.merge(queue, offset + 1, Math::max);
+        changedQueues.add(queue);
+    }
+
+    public void checkpointIfNeeded() throws Throwable {
+        Failed failedOne;
+        while ((failedOne = failed.poll()) != null) {
+            failedOne.snapshot.abort();
+            changedQueues.addAll(failedOne.queues);
+        }
+
+        if (running != null && !running.isDone()) {
+            return;
+        }
+        if (changedQueues.size() == 0) {
+            return;
+        }
+        String reason = due();
+        if (reason == null) {
+            return;
+        }
+
+        //有异步处理未完成的queue，只提交到最小的未完成位点
+        Map<MessageQueue, Long> offsets = new HashMap<>();
+        Set<MessageQueue> unresolved = new HashSet<>();
+        for (MessageQueue queue : changedQueues) {
+            Long offset = consumedOffsets.get(queue);
+            Long minUnresolved = this.inFlightTracker.minUnresolvedOffset(queue);
+            if (minUnresolved != null) {
+                unresolved.add(queue);
+                offset = offset == null ? minUnresolved : Math.min(offset, minUnresolved);
+            }
+            if (offset != null) {
+                offsets.put(queue, offset);
+            }
+        }
+
+        Set<MessageQueue> queues = new HashSet<>(changedQueues);
+        StateSnapshot snapshot = this.stateStore.snapshot(queues);
+
+        changedQueues.clear();
+        //commit again when async records are resolved
+        changedQueues.addAll(unresolved);
+        lastCheckpoint = System.currentTimeMillis();
+
+        logger.debug("worker [{}] starts checkpoint, {}", workerName, reason);
+        running = executor.submit(() -> persistAndCommit(snapshot, queues, offsets));
+    }
+
+    private String due() {
+        long maxDirtyBytes = StreamConfig.CHECKPOINT_MAX_DIRTY_BYTES;
+        if (maxDirtyBytes > 0) {
+            long dirtyBytes = this.stateStore.dirtyBytes();
+            if (dirtyBytes >= maxDirtyBytes) {
+                return "dirty state bytes: " + dirtyBytes;
+            }
+        }
+
+        int maxDirtyKeys = StreamConfig.CHECKPOINT_MAX_DIRTY_KEYS;
+        if (maxDirtyKeys > 0) {
+            int dirtyNum = this.stateStore.dirtyNum();
+            if (dirtyNum >= maxDirtyKeys) {
+                return "dirty state keys: " + dirtyNum;
+            }
+        }
+
+        long interval = System.currentTimeMillis() - lastCheckpoint;
+        if (interval >= StreamConfig.CHECKPOINT_MAX_INTERVAL_MILLIS) {
+            return "since last checkpoint: " + interval + "ms";
+        }
+        return null;
+    }
+
+    private void persistAndCommit(StateSnapshot snapshot, Set<MessageQueue> queues, Map<MessageQueue, Long> offsets) {
+        long start = System.currentTimeMillis();
+        this.backpressure.persistStarted();
+        try {
+            snapshot.persist();
+            if (offsets.size() != 0) {
+                this.consumer.commitSync(offsets, true);
+            }
+            logger.debug("worker [{}] checkpoint of {} queues finished, cost={}ms", workerName, queues.size(), System.currentTimeMillis() - start);
+        } catch (Throwable t) {
+            logger.error("worker [{}] checkpoint error, retry in next checkpoint.", workerName, t);
+            failed.add(new Failed(snapshot, queues));
+        } finally {
+            snapshot.release();
+            this.backpressure.persistFinished();
+        }
+    }
+
+    public void close() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("worker [{}] checkpoint is not finished when close.", workerName);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Failed {
+        private final StateSnapshot snapshot;
+        private final Set<MessageQueue> queues;
+
+        Failed(StateSnapshot snapshot, Set<MessageQueue> queues) {
+            this.snapshot = snapshot;
+            this.queues = queues;
+        }
+    }
+}
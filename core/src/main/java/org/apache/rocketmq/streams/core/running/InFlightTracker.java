@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * records which are still processed asynchronously, offset of a queue is not committed beyond the smallest unresolved one.
+ * <p>
+ * add/remove/drain are called by worker thread, minUnresolvedOffset is called by commit thread.
+ */
+public class InFlightTracker {
+    private final ConcurrentHashMap<MessageQueue, ConcurrentSkipListMap<Long/*offset*/, Integer/*num*/>> inFlight = new ConcurrentHashMap<>();
+    private final Set<Drainable> drainables = new LinkedHashSet<>();
+    private int size = 0;
+
+    public void add(MessageQueue queue, long offset) {
+        inFlight.computeIfAbsent(queue, mq -> new ConcurrentSkipListMap<>()).merge(offset, 1, Integer::sum);
+        size++;
+    }
+
+    public void remove(MessageQueue queue, long offset) {
+        ConcurrentSkipListMap<Long, Integer> offsets = inFlight.get(queue);
+        if (offsets == null || !offsets.containsKey(offset)) {
+            return;
+        }
+        offsets.computeIfPresent(offset, (key, num) -> num == 1 ? null : num - 1);
+        size--;
+    }
+
+    /**
+     * num of unresolved records of all queues.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return null if no record of this queue is unresolved.
+     */
+    public Long minUnresolvedOffset(MessageQueue queue) {
+        ConcurrentSkipListMap<Long, Integer> offsets = inFlight.get(queue);
+        if (offsets == null) {
+            return null;
+        }
+
+        Map.Entry<Long, Integer> first = offsets.firstEntry();
+        return first == null ? null : first.getKey();
+    }
+
+    public void register(Drainable drainable) {
+        drainables.add(drainable);
+    }
+
+    /**
+     * emit the results which are ready, called by worker thread when it is idle too.
+     */
+    public void drain() throws Throwable {
+        //downstream processors may register when data is emitted
+        for (Drainable drainable : new ArrayList<>(drainables)) {
+            drainable.drain();
+        }
+    }
+
+    public interface Drainable {
+        void drain() throws Throwable;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageAccessor;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+import java.util.HashMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * shuffle data whose target queue is owned by a worker in this process is handed over in memory.
+ * <p>
+ * The data is still sent to shuffle topic, so that it can be recovered and the offset of queue is committed as usual.
+ * Data of a queue is processed in offset order: a local copy is processed only when all data before it in the queue has
+ * been processed, from broker or from this inbox, then the consumed offset of queue covers it like data read from broker.
+ * The copy read back from broker is skipped by its offset, so every data is processed once by the owner of queue.
+ * <p>
+ * Local copies waiting in the inbox are at most {@link StreamConfig#LOCAL_SHUFFLE_INBOX_CAPACITY}, data which is not
+ * handed over is read back from broker.
+ */
+public class LocalShuffleInbox {
+    private static final ConcurrentHashMap<MessageQueue, LocalShuffleInbox> owners = new ConcurrentHashMap<>();
+
+    private final HashMap<MessageQueue, QueueState> states = new HashMap<>();
+    private int size = 0;
+
+    /**
+     * called by sink after the data is sent into shuffle topic.
+     *
+     * @return true if the data is handed over to the owner of queue in this process.
+     */
+    public static boolean deliver(Message message, SendResult result) {
+        if (result == null || result.getSendStatus() != SendStatus.SEND_OK || result.getMessageQueue() == null) {
+            return false;
+        }
+
+        LocalShuffleInbox inbox = owners.get(result.getMessageQueue());
+        if (inbox == null) {
+            return false;
+        }
+
+        MessageQueue queue = result.getMessageQueue();
+        MessageExt messageExt = new MessageExt();
+        messageExt.setTopic(queue.getTopic());
+        messageExt.setBrokerName(queue.getBrokerName());
+        messageExt.setQueueId(queue.getQueueId());
+        messageExt.setQueueOffset(result.getQueueOffset());
+        messageExt.setBody(message.getBody());
+        MessageAccessor.setProperties(messageExt, new HashMap<>(message.getProperties()));
+
+        return inbox.offer(queue, result.getQueueOffset(), messageExt);
+    }
+
+    synchronized void own(Set<MessageQueue> addQueues) {
+        for (MessageQueue queue : addQueues) {
+            if (!queue.getTopic().endsWith(Constant.SHUFFLE_TOPIC_SUFFIX)) {
+                continue;
+            }
+            states.put(queue, new QueueState());
+            owners.put(queue, this);
+        }
+    }
+
+    synchronized void release(Set<MessageQueue> removeQueues) {
+        for (MessageQueue queue : removeQueues) {
+            owners.remove(queue, this);
+            //数据由新的owner从broker读取
+            QueueState state = states.remove(queue);
+            if (state != null) {
+                size -= state.held.size();
+            }
+        }
+    }
+
+    synchronized void close() {
+        owners.values().removeIf(inbox -> inbox == this);
+        states.clear();
+        size = 0;
+    }
+
+    private synchronized boolean offer(MessageQueue queue, long offset, MessageExt messageExt) {
+        QueueState state = states.get(queue);
+        if (state == null || (state.next != -1 && offset < state.next) || size >= StreamConfig.LOCAL_SHUFFLE_INBOX_CAPACITY) {
+            return false;
+        }
+        if (state.held.put(offset, messageExt) == null) {
+            size++;
+        }
+        return true;
+    }
+
+    /**
+     * called by owner when data is read back from broker.
+     *
+     * @return true if the data has been processed from this inbox, and should be skipped.
+     */
+    synchronized boolean polled(MessageQueue queue, long offset) {
+        QueueState state = states.get(queue);
+        if (state == null) {
+            return false;
+        }
+        if (state.next != -1 && offset < state.next) {
+            return true;
+        }
+
+        state.next = offset + 1;
+        //local copies not after it are replaced by data from broker
+        SortedMap<Long, MessageExt> replaced = state.held.headMap(offset, true);
+        size -= replaced.size();
+        replaced.clear();
+        return false;
+    }
+
+    /**
+     * @return local copy whose previous data in its queue have all been processed, null if there is none. The caller
+     * processes it as data read from broker.
+     */
+    synchronized MessageExt poll() {
+        for (QueueState state : states.values()) {
+            if (state.next == -1 || state.held.isEmpty() || state.held.firstKey() != state.next) {
+                continue;
+            }
+            size--;
+            state.next++;
+            return state.held.pollFirstEntry().getValue();
+        }
+        return null;
+    }
+
+    /**
+     * @return num of local copies waiting in this inbox.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private static class QueueState {
+        //next offset to process, unknown before the first data is read back from broker
+        private long next = -1;
+        private final TreeMap<Long, MessageExt> held = new TreeMap<>();
+    }
+}
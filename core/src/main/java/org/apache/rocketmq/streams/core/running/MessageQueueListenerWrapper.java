@@ -41,6 +41,7 @@ class MessageQueueListenerWrapper implements MessageQueueListener {
     private final ConcurrentHashMap<String, Processor<?>> mq2Processor = new ConcurrentHashMap<>();
 
     private BiFunction<Set<MessageQueue>, Set<MessageQueue>, Throwable> recoverHandler;
+    private LocalShuffleInbox localInbox;
 
     MessageQueueListenerWrapper(MessageQueueListener originListener, TopologyBuilder topologyBuilder) {
         this.originListener = originListener;
@@ -63,6 +64,9 @@ class MessageQueueListenerWrapper implements MessageQueueListener {
 
         //从shuffle topic中读出的数据才能进行有状态计算。
         if (topic.endsWith(Constant.SHUFFLE_TOPIC_SUFFIX)) {
+            if (localInbox != null) {
+                localInbox.release(removeQueue);
+            }
             Throwable throwable = this.recoverHandler.apply(addQueue, removeQueue);
             if (throwable != null) {
                 throw new RuntimeException(throwable);
@@ -72,6 +76,9 @@ class MessageQueueListenerWrapper implements MessageQueueListener {
 
         buildTask(addQueue);
         removeTask(removeQueue);
+        if (localInbox != null) {
+            localInbox.own(addQueue);
+        }
         // Last step, add the addQueue to the listener after the state setup.
         originListener.messageQueueChanged(topic, mqAll, mqDivided);
     }
@@ -99,6 +106,10 @@ class MessageQueueListenerWrapper implements MessageQueueListener {
         return (Processor<T>) this.mq2Processor.get(key);
     }
 
+    public void setLocalInbox(LocalShuffleInbox localInbox) {
+        this.localInbox = localInbox;
+    }
+
     public void setRecoverHandler(BiFunction<Set<MessageQueue>, Set<MessageQueue>, Throwable> handler) {
         this.recoverHandler = handler;
     }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * poll timeout and pull batch size of a worker's consumer, and statistics of polls which are logged periodically.
+ * <p>
+ * In adaptive mode, pull batch size doubles when a poll is full, which means backlog, and halves when a poll is less than
+ * half full, in [{@link StreamConfig#ADAPTIVE_PULL_BATCH_SIZE_MIN}, {@link StreamConfig#PULL_BATCH_SIZE}]; poll timeout
+ * halves after an empty poll down to 1ms, so the worker handles async results and idle windows in time, and is reset
+ * by the next poll with data.
+ * <p>
+ * Used by worker thread only.
+ */
+public class PollController {
+    private static final Logger logger = LoggerFactory.getLogger(PollController.class.getName());
+
+    private final String workerName;
+    private final DefaultLitePullConsumer consumer;
+    private final boolean adaptive;
+    private final int maxBatchSize;
+    private final int minBatchSize;
+    private final long maxTimeout;
+
+    private int batchSize;
+    private long timeout;
+
+    private long pollNum;
+    private long emptyPollNum;
+    private long messageNum;
+    private long pollNanos;
+    private long lastReport = System.currentTimeMillis();
+
+    public PollController(String workerName, DefaultLitePullConsumer consumer) {
+        this.workerName = workerName;
+        this.consumer = consumer;
+        this.adaptive = StreamConfig.ADAPTIVE_POLL;
+        this.maxBatchSize = StreamConfig.PULL_BATCH_SIZE;
+        this.minBatchSize = Math.min(StreamConfig.ADAPTIVE_PULL_BATCH_SIZE_MIN, maxBatchSize);
+        this.maxTimeout = StreamConfig.POLL_TIMEOUT_MILLIS;
+
+        this.batchSize = adaptive ? minBatchSize : maxBatchSize;
+        this.timeout = maxTimeout;
+        this.consumer.setPullBatchSize(batchSize);
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void polled(int size, long costNanos) {
+        pollNum++;
+        messageNum += size;
+        pollNanos += costNanos;
+        if (size == 0) {
+            emptyPollNum++;
+        }
+
+        if (adaptive) {
+            adapt(size);
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastReport >= StreamConfig.POLL_STATS_INTERVAL_MILLIS) {
+            report(now);
+        }
+    }
+
+    private void adapt(int size) {
+        if (size == 0) {
+            timeout = Math.max(1, timeout >> 1);
+            return;
+        }
+        timeout = maxTimeout;
+
+        int newBatchSize = batchSize;
+        if (size >= batchSize) {
+            newBatchSize = Math.min(maxBatchSize, batchSize << 1);
+        } else if (size < batchSize >> 1) {
+            newBatchSize = Math.max(minBatchSize, batchSize >> 1);
+        }
+
+        if (newBatchSize != batchSize) {
+            //拉取线程在下一次拉取时生效
+            batchSize = newBatchSize;
+            consumer.setPullBatchSize(batchSize);
+        }
+    }
+
+    private void report(long now) {
+        if (pollNum != 0) {
+            logger.info("poll stats of worker [{}]: polls={}, avg size={}, avg latency={}ms, empty ratio={}%, pull batch size={}, poll timeout={}ms",
+                    workerName, pollNum, messageNum / pollNum, String.format("%.3f", pollNanos / 1e6 / pollNum),
+                    emptyPollNum * 100 / pollNum, batchSize, timeout);
+        }
+
+        pollNum = 0;
+        emptyPollNum = 0;
+        messageNum = 0;
+        pollNanos = 0;
+        lastReport = now;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * records of one source queue which are processed together, stored by column so that operators loop over arrays.
+ * <p>
+ * Batch is used by one worker thread, operators filter and change it in place.
+ */
+public class RecordBatch {
+    private Object[] keys;
+    private Object[] values;
+    private long[] timestamps;
+    private long[] offsets;
+    private Properties[] headers;
+    private int size;
+
+    public RecordBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.timestamps = new long[capacity];
+        this.offsets = new long[capacity];
+        this.headers = new Properties[capacity];
+    }
+
+    public void add(Object key, Object value, long timestamp, long offset, Properties header) {
+        if (size == values.length) {
+            int capacity = size << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            headers = Arrays.copyOf(headers, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        timestamps[size] = timestamp;
+        offsets[size] = offset;
+        headers[size] = header;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Object getKey(int index) {
+        return keys[index];
+    }
+
+    public void setKey(int index, Object key) {
+        keys[index] = key;
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    public void setValue(int index, Object value) {
+        values[index] = value;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public void setTimestamp(int index, long timestamp) {
+        timestamps[index] = timestamp;
+    }
+
+    //offset of the source message which the record comes from.
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    public Properties getHeader(int index) {
+        return headers[index];
+    }
+
+    /**
+     * move record from index to a smaller index, used to compact the batch after records are dropped.
+     */
+    public void move(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        keys[to] = keys[from];
+        values[to] = values[from];
+        timestamps[to] = timestamps[from];
+        offsets[to] = offsets[from];
+        headers[to] = headers[from];
+    }
+
+    /**
+     * keep the first size records.
+     */
+    public void truncate(int size) {
+        if (size >= this.size) {
+            return;
+        }
+        Arrays.fill(keys, size, this.size, null);
+        Arrays.fill(values, size, this.size, null);
+        Arrays.fill(headers, size, this.size, null);
+        this.size = size;
+    }
+
+    public void clear() {
+        truncate(0);
+    }
+
+    /**
+     * copy for another branch of topology, header is copied because it may be changed by downstream.
+     */
+    public RecordBatch copy() {
+        RecordBatch result = new RecordBatch(size);
+        for (int i = 0; i < size; i++) {
+            Properties header = new Properties();
+            if (headers[i] != null) {
+                header.putAll(headers[i]);
+            }
+            result.add(keys[i], values[i], timestamps[i], offsets[i], header);
+        }
+        return result;
+    }
+}
@@ -17,13 +17,16 @@ package org.apache.rocketmq.streams.core.running;
  */
 
 import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.client.consumer.MessageSelector;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -37,17 +40,28 @@ public class RocketMQClient {
         this.nameSrvAddr = nameSrvAddr;
     }
 
-    public DefaultLitePullConsumer pullConsumer(String groupName, Set<String> topics) throws MQClientException {
+    /**
+     * @param selectors selector of topic which is filtered by broker, topic without selector subscribes all messages.
+     */
+    public DefaultLitePullConsumer pullConsumer(String groupName, Set<String> topics, Map<String, MessageSelector> selectors) throws MQClientException {
         DefaultLitePullConsumer pullConsumer = new DefaultLitePullConsumer(groupName);
         pullConsumer.setNamesrvAddr(nameSrvAddr);
         pullConsumer.setConsumeFromWhere(ConsumeFromWhere.CONSUME_FROM_LAST_OFFSET);
         pullConsumer.setAutoCommit(false);
-        pullConsumer.setPullBatchSize(1000);
+        pullConsumer.setPullBatchSize(StreamConfig.PULL_BATCH_SIZE);
+        pullConsumer.setPullThresholdForQueue(StreamConfig.PULL_THRESHOLD_FOR_QUEUE);
+        pullConsumer.setPullThresholdForAll(StreamConfig.PULL_THRESHOLD_FOR_ALL);
+        pullConsumer.setPullThreadNums(StreamConfig.PULL_THREAD_NUM);
 
 
         for (String topic : topics) {
-            pullConsumer.subscribe(topic, SUB_ALL);
-            logger.debug("subscribe topic:{}, groupName:{}", topic, groupName);
+            MessageSelector selector = selectors.get(topic);
+            if (selector == null) {
+                pullConsumer.subscribe(topic, SUB_ALL);
+            } else {
+                pullConsumer.subscribe(topic, selector);
+            }
+            logger.debug("subscribe topic:{}, groupName:{}, selector:{}", topic, groupName, selector == null ? SUB_ALL : selector.getExpression());
         }
 
         return pullConsumer;
@@ -33,6 +33,12 @@ public interface StreamContext<V> {
 
     <K> K getKey();
 
+    //hash of current key for routing, computed once until key changes.
+    String getKeyHash();
+
+    //string of current key used in state key, computed once until key changes.
+    String getKeyStateHash();
+
     Properties getUserProperties();
 
     Properties getHeader();
@@ -45,9 +51,20 @@ public interface StreamContext<V> {
 
     Integer getSourceQueueId();
 
+    //offset of the source message which is processing.
+    long getSourceOffset();
+
+    InFlightTracker getInFlightTracker();
+
     IdleWindowScaner getDefaultWindowScaner();
 
     StreamContext<V> copy();
 
     <K> void forward(Data<K, V> data) throws Throwable;
+
+    //forward records of the same source queue together.
+    void forwardBatch(RecordBatch batch) throws Throwable;
+
+    //make record index of batch the current record, a batch processor calls it before it forwards data of one record.
+    void setCurrentRecord(RecordBatch batch, int index);
 }
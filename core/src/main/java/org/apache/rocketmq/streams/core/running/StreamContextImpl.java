@@ -17,8 +17,10 @@ package org.apache.rocketmq.streams.core.running;
  */
 
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
 import org.apache.rocketmq.streams.core.metadata.Data;
 import org.apache.rocketmq.streams.core.state.StateStore;
+import org.apache.rocketmq.streams.core.util.KeyHasher;
 import org.apache.rocketmq.streams.core.util.Utils;
 import org.apache.rocketmq.streams.core.window.fire.IdleWindowScaner;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
@@ -43,8 +45,13 @@ public class StreamContextImpl<V> implements StreamContext<V> {
     private final StateStore stateStore;
     private final String messageFromWhichSourceTopicQueue;
     private final IdleWindowScaner idleWindowScaner;
+    private final InFlightTracker inFlightTracker;
 
+    private long sourceOffset;
     private Object key;
+    //cache of key hash, cleared when key is replaced.
+    private String keyHash;
+    private String keyStateHash;
     private long dataTime;
     private Properties header = new Properties();
 
@@ -55,13 +62,15 @@ public class StreamContextImpl<V> implements StreamContext<V> {
                       DefaultMQAdminExt mqAdmin,
                       StateStore stateStore,
                       String messageFromWhichSourceTopicQueue,
-                      IdleWindowScaner idleWindowScaner) {
+                      IdleWindowScaner idleWindowScaner,
+                      InFlightTracker inFlightTracker) {
         this.properties = properties;
         this.producer = producer;
         this.mqAdmin = mqAdmin;
         this.stateStore = stateStore;
         this.messageFromWhichSourceTopicQueue = messageFromWhichSourceTopicQueue;
         this.idleWindowScaner = idleWindowScaner;
+        this.inFlightTracker = inFlightTracker;
     }
 
     @Override
@@ -98,6 +107,20 @@ public class StreamContextImpl<V> implements StreamContext<V> {
         return Integer.parseInt(split[2]);
     }
 
+    @Override
+    public long getSourceOffset() {
+        return sourceOffset;
+    }
+
+    void setSourceOffset(long sourceOffset) {
+        this.sourceOffset = sourceOffset;
+    }
+
+    @Override
+    public InFlightTracker getInFlightTracker() {
+        return inFlightTracker;
+    }
+
     @Override
     public long getDataTime() {
         return this.dataTime;
@@ -111,7 +134,40 @@ public class StreamContextImpl<V> implements StreamContext<V> {
     }
 
     <K> void setKey(K key) {
-        this.key = key;
+        changeKey(key);
+    }
+
+    @Override
+    public String getKeyHash() {
+        if (this.keyHash == null && this.key != null) {
+            this.keyHash = Utils.toHexString(this.key);
+        }
+        return this.keyHash;
+    }
+
+    @Override
+    public String getKeyStateHash() {
+        if (this.keyStateHash == null && this.key != null) {
+            if (!(this.key instanceof String) && !KeyHasher.MD5.equals(KeyHasher.current().name())) {
+                //state key and routing use the same hash
+                this.keyStateHash = getKeyHash();
+                return this.keyStateHash;
+            }
+            try {
+                this.keyStateHash = Utils.toStateHexString(this.key);
+            } catch (Throwable t) {
+                throw new RStreamsException("object to HexString error, object=" + this.key, t);
+            }
+        }
+        return this.keyStateHash;
+    }
+
+    private void changeKey(Object key) {
+        if (key != this.key) {
+            this.key = key;
+            this.keyHash = null;
+            this.keyStateHash = null;
+        }
     }
 
 
@@ -145,8 +201,12 @@ public class StreamContextImpl<V> implements StreamContext<V> {
                 this.mqAdmin,
                 this.stateStore,
                 this.messageFromWhichSourceTopicQueue,
-                this.idleWindowScaner);
+                this.idleWindowScaner,
+                this.inFlightTracker);
+        streamContext.sourceOffset = this.sourceOffset;
         streamContext.key = this.key;
+        streamContext.keyHash = this.keyHash;
+        streamContext.keyStateHash = this.keyStateHash;
         streamContext.dataTime = this.dataTime;
         streamContext.header = new Properties(this.header);
         streamContext.childList.addAll(this.childList);
@@ -156,7 +216,7 @@ public class StreamContextImpl<V> implements StreamContext<V> {
 
     @Override
     public <K> void forward(Data<K, V> data) throws Throwable {
-        this.key = data.getKey();
+        changeKey(data.getKey());
 
         if (data.getTimestamp() != null) {
             this.dataTime = data.getTimestamp();
@@ -178,5 +238,48 @@ public class StreamContextImpl<V> implements StreamContext<V> {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forwardBatch(RecordBatch batch) throws Throwable {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Processor<V>> store = new ArrayList<>(childList);
 
+        for (int i = 0; i < store.size(); i++) {
+            Processor<V> processor = store.get(i);
+            //batch is changed in place by processor, other branches use a copy
+            RecordBatch current = i == store.size() - 1 ? batch : batch.copy();
+
+            try {
+                if (processor instanceof BatchProcessor) {
+                    setCurrentRecord(current, current.size() - 1);
+                    processor.preProcess(this);
+                    ((BatchProcessor) processor).processBatch(current);
+                    continue;
+                }
+
+                for (int j = 0; j < current.size(); j++) {
+                    setCurrentRecord(current, j);
+                    processor.preProcess(this);
+                    processor.process((V) current.getValue(j));
+
+                    this.childList.clear();
+                    this.childList.addAll(store);
+                }
+            } finally {
+                this.childList.clear();
+                this.childList.addAll(store);
+            }
+        }
+    }
+
+    @Override
+    public void setCurrentRecord(RecordBatch batch, int index) {
+        changeKey(batch.getKey(index));
+        this.dataTime = batch.getTimestamp(index);
+        this.sourceOffset = batch.getOffset(index);
+        this.header = batch.getHeader(index);
+    }
 }
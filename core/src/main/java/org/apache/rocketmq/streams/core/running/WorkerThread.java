@@ -36,6 +36,7 @@ import org.apache.rocketmq.streams.core.state.RocketMQStore;
 import org.apache.rocketmq.streams.core.state.RocksDBStore;
 import org.apache.rocketmq.streams.core.state.StateStore;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
+import org.apache.rocketmq.streams.core.util.KeyGroup;
 import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.RocketMQUtil;
 import org.apache.rocketmq.streams.core.util.Utils;
@@ -44,12 +45,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import static org.apache.rocketmq.streams.core.metadata.StreamConfig.ROCKETMQ_STREAMS_CONSUMER_GROUP;
 
@@ -80,7 +79,7 @@ public class WorkerThread extends Thread {
         Set<String> topicNames = topologyBuilder.getSourceTopic();
 
 
-        DefaultLitePullConsumer unionConsumer = rocketMQClient.pullConsumer(groupName, topicNames);
+        DefaultLitePullConsumer unionConsumer = rocketMQClient.pullConsumer(groupName, topicNames, topologyBuilder.getSourceSelectors());
 
         MessageQueueListener originListener = unionConsumer.getMessageQueueListener();
         MessageQueueListenerWrapper wrapper = new MessageQueueListenerWrapper(originListener, topologyBuilder);
@@ -123,12 +122,13 @@ public class WorkerThread extends Thread {
         private final StateStore stateStore;
         private final MessageQueueListenerWrapper wrapper;
         private final IdleWindowScaner idleWindowScaner;
+        private final InFlightTracker inFlightTracker = new InFlightTracker();
+        private final LocalShuffleInbox localInbox = new LocalShuffleInbox();
+        private final PollController pollController;
+        private final Backpressure backpressure;
+        private final CheckpointCoordinator checkpoint;
         private volatile boolean stop = false;
 
-        private long lastCommit = 0;
-        private int commitInterval = 10 * 1000;
-        private final HashSet<MessageQueue> mq2Commit = new HashSet<>();
-
 
         public PlanetaryEngine(DefaultLitePullConsumer unionConsumer, DefaultMQProducer producer, StateStore stateStore,
                                DefaultMQAdminExt mqAdmin, MessageQueueListenerWrapper wrapper) {
@@ -137,6 +137,12 @@ public class WorkerThread extends Thread {
             this.mqAdmin = mqAdmin;
             this.stateStore = stateStore;
             this.wrapper = wrapper;
+            this.pollController = new PollController(WorkerThread.this.getName(), unionConsumer);
+            this.backpressure = new Backpressure(WorkerThread.this.getName(), unionConsumer);
+            this.checkpoint = new CheckpointCoordinator(WorkerThread.this.getName(), unionConsumer, stateStore, inFlightTracker, backpressure);
+            if (StreamConfig.LOCAL_SHUFFLE_SHORTCUT) {
+                this.wrapper.setLocalInbox(this.localInbox);
+            }
             this.wrapper.setRecoverHandler((addQueue, removeQueue) -> {
                 try {
                     PlanetaryEngine.this.stateStore.recover(addQueue, removeQueue);
@@ -148,13 +154,6 @@ public class WorkerThread extends Thread {
             });
             Integer idleTime = (Integer) WorkerThread.this.properties.getOrDefault(StreamConfig.IDLE_TIME_TO_FIRE_WINDOW, 2000);
             this.idleWindowScaner = new IdleWindowScaner(idleTime, executor);
-            WorkerThread.this.executor.scheduleAtFixedRate(() -> {
-                try {
-                    doCommit(mq2Commit);
-                } catch (Throwable t) {
-                    logger.error("commit offset and state error.", t);
-                }
-            }, 10, 10, TimeUnit.SECONDS);
         }
 
 
@@ -169,51 +168,58 @@ public class WorkerThread extends Thread {
         void runInLoop() throws Throwable {
             while (!stop) {
                 try {
-                    List<MessageExt> list = this.unionConsumer.poll(10);
+                    //数据处理的间隙触发空闲窗口并做checkpoint
+                    this.idleWindowScaner.fireIfDue(this.checkpoint::stateChanged);
+                    this.checkpoint.checkpointIfNeeded();
+
+                    //local inbox is bounded by its own capacity, and its copies may wait for data from broker, so it is not counted
+                    if (this.backpressure.check(this.inFlightTracker.size(), this.stateStore.dirtyNum())) {
+                        //下游变慢，不再拉取，只处理异步完成的数据和本地inbox中可以处理的数据，等待提交
+                        this.inFlightTracker.drain();
+                        drainLocalInbox();
+                        Thread.sleep(this.pollController.getTimeout());
+                        continue;
+                    }
+
+                    long begin = System.nanoTime();
+                    List<MessageExt> list = this.unionConsumer.poll(this.pollController.getTimeout());
+                    this.pollController.polled(list.size(), System.nanoTime() - begin);
+                    //异步处理完成的数据
+                    this.inFlightTracker.drain();
+
+                    List<MessageExt> batch = new ArrayList<>();
+                    MessageQueue batchQueue = null;
                     for (MessageExt messageExt : list) {
                         byte[] body = messageExt.getBody();
                         if (body == null || body.length == 0) {
                             break;
                         }
 
-                        String keyClassName = messageExt.getUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME);
-                        String valueClassName = messageExt.getUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME);
-
-                        String topic = messageExt.getTopic();
-                        int queueId = messageExt.getQueueId();
-                        String brokerName = messageExt.getBrokerName();
-                        MessageQueue queue = new MessageQueue(topic, brokerName, queueId);
-                        mq2Commit.add(queue);
-                        logger.debug("source topic queue:[{}]", queue);
-
-
-                        String key = Utils.buildKey(brokerName, topic, queueId);
-                        SourceSupplier.SourceProcessor<K, V> processor = (SourceSupplier.SourceProcessor<K, V>) wrapper.selectProcessor(key);
-
-                        StreamContextImpl<V> context = new StreamContextImpl<>(properties, producer, mqAdmin, stateStore, key, idleWindowScaner);
-
-                        processor.preProcess(context);
-
-                        Pair<K, V> pair = processor.deserialize(keyClassName, valueClassName, body);
-
-                        long timestamp = prepareTime(messageExt, processor);
+                        MessageQueue queue = new MessageQueue(messageExt.getTopic(), messageExt.getBrokerName(), messageExt.getQueueId());
+                        this.checkpoint.polled(queue, messageExt.getQueueOffset());
+                        if (this.localInbox.polled(queue, messageExt.getQueueOffset())) {
+                            //已经从本地inbox处理过
+                            continue;
+                        }
 
-                        Data<K, V> data = new Data<>(pair.getKey(), pair.getValue(), timestamp, new Properties());
-                        context.setKey(pair.getKey());
-                        if (topic.contains(Constant.SHUFFLE_TOPIC_SUFFIX)) {
-                            logger.debug("shuffle data: [{}]", data);
-                        } else {
-                            logger.debug("source data: [{}]", data);
+                        if (StreamConfig.MICRO_BATCH_SIZE <= 1) {
+                            process(messageExt, queue);
+                            continue;
                         }
 
-                        try {
-                            context.forward(data);
-                        } catch (Throwable t) {
-                            logger.error("process error.", t);
-                            throw new DataProcessThrowable(t);
+                        //连续的同一queue的数据一起处理
+                        if (batchQueue != null && (!batchQueue.equals(queue) || batch.size() >= StreamConfig.MICRO_BATCH_SIZE)) {
+                            processBatch(batch, batchQueue);
+                            batch.clear();
                         }
+                        batchQueue = queue;
+                        batch.add(messageExt);
+                    }
+                    if (!batch.isEmpty()) {
+                        processBatch(batch, batchQueue);
                     }
 
+                    drainLocalInbox();
                 } catch (Throwable t) {
                     Object skipDataError = properties.getOrDefault(Constant.SKIP_DATA_ERROR, Boolean.TRUE);
                     if (skipDataError == Boolean.TRUE) {
@@ -226,17 +232,96 @@ public class WorkerThread extends Thread {
             }
         }
 
-        void doCommit(HashSet<MessageQueue> set) throws Throwable {
-            if ((System.currentTimeMillis() - lastCommit > commitInterval) && set.size() != 0) {
+        //shuffle data handed over by workers in this process, in offset order of its queue
+        private void drainLocalInbox() throws Throwable {
+            MessageExt local;
+            while ((local = this.localInbox.poll()) != null) {
+                MessageQueue queue = new MessageQueue(local.getTopic(), local.getBrokerName(), local.getQueueId());
+                this.checkpoint.polled(queue, local.getQueueOffset());
+                process(local, queue);
+            }
+        }
+
+        private void process(MessageExt messageExt, MessageQueue queue) throws Throwable {
+            byte[] body = messageExt.getBody();
+            String keyClassName = messageExt.getUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME);
+            String valueClassName = messageExt.getUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME);
+
+            String topic = queue.getTopic();
+            this.checkpoint.changed(queue);
+            logger.debug("source topic queue:[{}]", queue);
 
-                this.stateStore.persist(set);
-                this.unionConsumer.commit(set, true);
 
-                for (MessageQueue messageQueue : set) {
-                    logger.debug("committed messageQueue: [{}]", messageQueue);
+            String key = Utils.buildKey(queue.getBrokerName(), topic, queue.getQueueId());
+            SourceSupplier.SourceProcessor<K, V> processor = (SourceSupplier.SourceProcessor<K, V>) wrapper.selectProcessor(key);
+            if (processor == null) {
+                logger.debug("queue is not owned any more, skip data. queue:[{}]", queue);
+                return;
+            }
+
+            StreamContextImpl<V> context = new StreamContextImpl<>(properties, producer, mqAdmin, stateStore, key, idleWindowScaner, inFlightTracker);
+            context.setSourceOffset(messageExt.getQueueOffset());
+
+            processor.preProcess(context);
+
+            Pair<K, V> pair = processor.deserialize(keyClassName, valueClassName, body);
+            if (pair == null) {
+                logger.debug("data is dropped by deserializer, queue:[{}], offset:[{}]", queue, messageExt.getQueueOffset());
+                return;
+            }
+
+            long timestamp = prepareTime(messageExt, processor);
+
+            Data<K, V> data = new Data<>(pair.getKey(), pair.getValue(), timestamp, new Properties());
+            context.setKey(pair.getKey());
+            if (topic.contains(Constant.SHUFFLE_TOPIC_SUFFIX)) {
+                logger.debug("shuffle data: [{}]", data);
+            } else {
+                logger.debug("source data: [{}]", data);
+            }
+
+            try {
+                context.forward(data);
+            } catch (Throwable t) {
+                logger.error("process error.", t);
+                throw new DataProcessThrowable(t);
+            }
+        }
+
+        private void processBatch(List<MessageExt> messageExts, MessageQueue queue) throws Throwable {
+            String topic = queue.getTopic();
+            this.checkpoint.changed(queue);
+
+            String key = Utils.buildKey(queue.getBrokerName(), topic, queue.getQueueId());
+            SourceSupplier.SourceProcessor<K, V> processor = (SourceSupplier.SourceProcessor<K, V>) wrapper.selectProcessor(key);
+            if (processor == null) {
+                logger.debug("queue is not owned any more, skip data. queue:[{}]", queue);
+                return;
+            }
+
+            StreamContextImpl<V> context = new StreamContextImpl<>(properties, producer, mqAdmin, stateStore, key, idleWindowScaner, inFlightTracker);
+            processor.preProcess(context);
+
+            RecordBatch batch = new RecordBatch(messageExts.size());
+            for (MessageExt messageExt : messageExts) {
+                String keyClassName = messageExt.getUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME);
+                String valueClassName = messageExt.getUserProperty(Constant.SHUFFLE_VALUE_CLASS_NAME);
+
+                Pair<K, V> pair = processor.deserialize(keyClassName, valueClassName, messageExt.getBody());
+                if (pair == null) {
+                    continue;
                 }
-                lastCommit = System.currentTimeMillis();
-                set.clear();
+                long timestamp = prepareTime(messageExt, processor);
+
+                batch.add(pair.getKey(), pair.getValue(), timestamp, messageExt.getQueueOffset(), new Properties());
+            }
+            logger.debug("batch of source topic queue:[{}], size: {}", queue, batch.size());
+
+            try {
+                context.forwardBatch(batch);
+            } catch (Throwable t) {
+                logger.error("process error.", t);
+                throw new DataProcessThrowable(t);
             }
         }
 
@@ -267,9 +352,66 @@ public class WorkerThread extends Thread {
                 }
             }
 
+            if (shuffleTopic.size() == 0) {
+                return;
+            }
+
+            Integer jobQueueNum = getJobShuffleQueueNum();
+            int defaultQueueNum = -1;
+
             for (String topicName : shuffleTopic) {
-                RocketMQUtil.createStaticTopic(mqAdmin, topicName, StreamConfig.SHUFFLE_TOPIC_QUEUE_NUM);
+                Integer queueNum = WorkerThread.this.topologyBuilder.getShuffleQueueNum(topicName);
+                if (queueNum == null) {
+                    queueNum = jobQueueNum;
+                }
+
+                if (queueNum != null) {
+                    if (KeyGroup.enabled() && queueNum > StreamConfig.KEY_GROUP_NUM) {
+                        throw new IllegalArgumentException(String.format("shuffle queue num %s is more than key group num %s, topic=%s",
+                                queueNum, StreamConfig.KEY_GROUP_NUM, topicName));
+                    }
+                    RocketMQUtil.createStaticTopic(mqAdmin, topicName, queueNum);
+                    //queue num is set explicitly, expand the existing topic.
+                    if (RocketMQUtil.expandStaticTopic(mqAdmin, topicName, queueNum, false) && !KeyGroup.enabled()) {
+                        logger.warn("shuffle topic [{}] is expanded to {} queues, keys routed to other queues start with empty state.", topicName, queueNum);
+                    }
+                } else {
+                    if (defaultQueueNum == -1) {
+                        defaultQueueNum = defaultShuffleQueueNum(total);
+                    }
+                    RocketMQUtil.createStaticTopic(mqAdmin, topicName, defaultQueueNum);
+                }
+            }
+        }
+
+        private Integer getJobShuffleQueueNum() {
+            Object value = properties.get(StreamConfig.SHUFFLE_TOPIC_QUEUE_NUM_KEY);
+            if (value == null) {
+                return null;
+            }
+
+            int queueNum = Integer.parseInt(String.valueOf(value).trim());
+            if (queueNum <= 0) {
+                throw new IllegalArgumentException("shuffle queue num must be positive. queueNum=" + queueNum);
+            }
+            return queueNum;
+        }
+
+        //不少于source topic的queue数和并发线程数，shuffle后的有状态计算并发不受限制
+        private int defaultShuffleQueueNum(Set<String> total) throws Exception {
+            int sourceQueueNum = 0;
+            for (String topic : total) {
+                if (!topic.endsWith(Constant.SHUFFLE_TOPIC_SUFFIX)) {
+                    sourceQueueNum += RocketMQUtil.getQueueNum(mqAdmin, topic);
+                }
+            }
+
+            int queueNum = Math.max(StreamConfig.SHUFFLE_TOPIC_QUEUE_NUM, Math.max(sourceQueueNum, StreamConfig.STREAMS_PARALLEL_THREAD_NUM));
+            if (KeyGroup.enabled()) {
+                //every queue owns at least one key group
+                queueNum = Math.min(queueNum, StreamConfig.KEY_GROUP_NUM);
             }
+            return queueNum;
         }
 
         public synchronized void stop() {
@@ -280,6 +422,8 @@ public class WorkerThread extends Thread {
             this.stop = true;
 
             try {
+                this.localInbox.close();
+                this.checkpoint.close();
                 this.unionConsumer.shutdown();
 
                 this.stateStore.close();
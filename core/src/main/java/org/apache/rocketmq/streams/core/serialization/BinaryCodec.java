@@ -0,0 +1,662 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+import org.apache.rocketmq.streams.core.util.CodecCache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * schema aware binary codec, every value is written as type id and body.
+ * <pre>
+ * +-------------+---------------------------+------------------------------------------------+
+ * | type id     | class name                | body                                           |
+ * | varint      | only when id = CLASS_NAME |                                                |
+ * +-------------+---------------------------+------------------------------------------------+
+ * </pre>
+ * Body of built-in type is its binary form, int and long are zigzag varint. Date and java.time types are written as
+ * their epoch values. Body of enum is its name. Body of array is component class name, length and elements. Body of POJO
+ * is the field num and fields in schema order, schema is all non-static, non-transient fields of the class and its super
+ * classes, sorted by name. Field of primitive type is written without type id.
+ * <p>
+ * List, set and map are read back as ArrayList, LinkedHashSet and LinkedHashMap, a field declared as a concrete collection
+ * type, such as LinkedList or TreeMap, is filled into a new instance of that type made by its no-arg constructor.
+ * <p>
+ * POJO must have a no-arg constructor. Field types which can not be read back, such as a JDK class which is not built-in
+ * or a collection interface which is not List, Set or Map, are rejected when the schema of the class is built. Register
+ * the class in {@link TypeRegistry} to avoid writing its class name.
+ */
+public class BinaryCodec {
+    private static final ConcurrentHashMap<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> type : new Class<?>[]{int.class, long.class, double.class, float.class, boolean.class, short.class, byte.class, char.class}) {
+            PRIMITIVES.put(type.getName(), type);
+        }
+    }
+
+    public static byte[] encode(Object value) throws Throwable {
+        ByteBuf buf = Unpooled.buffer(64);
+        try {
+            writeValue(buf, value);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return bytes;
+        } finally {
+            buf.release();
+        }
+    }
+
+    public static Object decode(byte[] bytes) throws Throwable {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return readValue(Unpooled.wrappedBuffer(bytes));
+    }
+
+    public static void writeValue(ByteBuf buf, Object value) throws Throwable {
+        if (value == null) {
+            writeVarInt(buf, TypeRegistry.NULL);
+            return;
+        }
+
+        Class<?> clazz = value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+        Integer id = TypeRegistry.idOf(clazz);
+        if (id != null) {
+            writeVarInt(buf, id);
+            if (id < TypeRegistry.FIRST_USER_ID) {
+                writeBuiltIn(buf, id, value);
+            } else {
+                writeObject(buf, clazz, value);
+            }
+        } else if (clazz.isArray()) {
+            writeVarInt(buf, TypeRegistry.ARRAY);
+            writeArray(buf, clazz.getComponentType(), value);
+        } else if (value instanceof List) {
+            writeVarInt(buf, TypeRegistry.LIST);
+            writeCollection(buf, (Collection<?>) value);
+        } else if (value instanceof Set) {
+            writeVarInt(buf, TypeRegistry.SET);
+            writeCollection(buf, (Collection<?>) value);
+        } else if (value instanceof Map) {
+            writeVarInt(buf, TypeRegistry.MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeVarInt(buf, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(buf, entry.getKey());
+                writeValue(buf, entry.getValue());
+            }
+        } else {
+            writeVarInt(buf, TypeRegistry.CLASS_NAME);
+            writeString(buf, clazz.getName());
+            writeObject(buf, clazz, value);
+        }
+    }
+
+    public static Object readValue(ByteBuf buf) throws Throwable {
+        int id = readVarInt(buf);
+        switch (id) {
+            case TypeRegistry.NULL:
+                return null;
+            case TypeRegistry.STRING:
+                return readString(buf);
+            case TypeRegistry.INTEGER:
+                return decodeZigZag(readVarInt(buf));
+            case TypeRegistry.LONG:
+                return decodeZigZag(readVarLong(buf));
+            case TypeRegistry.DOUBLE:
+                return buf.readDouble();
+            case TypeRegistry.FLOAT:
+                return buf.readFloat();
+            case TypeRegistry.SHORT:
+                return buf.readShort();
+            case TypeRegistry.BYTE:
+                return buf.readByte();
+            case TypeRegistry.BOOLEAN:
+                return buf.readBoolean();
+            case TypeRegistry.CHARACTER:
+                return buf.readChar();
+            case TypeRegistry.BYTES: {
+                byte[] bytes = new byte[readVarInt(buf)];
+                buf.readBytes(bytes);
+                return bytes;
+            }
+            case TypeRegistry.BIG_DECIMAL:
+                return new BigDecimal(readString(buf));
+            case TypeRegistry.DATE:
+                return new Date(decodeZigZag(readVarLong(buf)));
+            case TypeRegistry.TIMESTAMP: {
+                Timestamp timestamp = new Timestamp(decodeZigZag(readVarLong(buf)));
+                timestamp.setNanos(readVarInt(buf));
+                return timestamp;
+            }
+            case TypeRegistry.INSTANT: {
+                long seconds = decodeZigZag(readVarLong(buf));
+                return Instant.ofEpochSecond(seconds, readVarInt(buf));
+            }
+            case TypeRegistry.LOCAL_DATE:
+                return LocalDate.ofEpochDay(decodeZigZag(readVarLong(buf)));
+            case TypeRegistry.LOCAL_TIME:
+                return LocalTime.ofNanoOfDay(readVarLong(buf));
+            case TypeRegistry.LOCAL_DATE_TIME: {
+                LocalDate date = LocalDate.ofEpochDay(decodeZigZag(readVarLong(buf)));
+                return LocalDateTime.of(date, LocalTime.ofNanoOfDay(readVarLong(buf)));
+            }
+            case TypeRegistry.BIG_INTEGER: {
+                byte[] bytes = new byte[readVarInt(buf)];
+                buf.readBytes(bytes);
+                return new BigInteger(bytes);
+            }
+            case TypeRegistry.UUID: {
+                long most = buf.readLong();
+                return new UUID(most, buf.readLong());
+            }
+            case TypeRegistry.ARRAY:
+                return readArray(buf);
+            case TypeRegistry.LIST: {
+                int size = readVarInt(buf);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buf));
+                }
+                return list;
+            }
+            case TypeRegistry.SET: {
+                int size = readVarInt(buf);
+                Set<Object> set = new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(buf));
+                }
+                return set;
+            }
+            case TypeRegistry.MAP: {
+                int size = readVarInt(buf);
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue(buf);
+                    map.put(key, readValue(buf));
+                }
+                return map;
+            }
+            case TypeRegistry.CLASS_NAME: {
+                Class<?> clazz = CodecCache.classForName(readString(buf));
+                return readObject(buf, clazz);
+            }
+            default:
+                return readObject(buf, TypeRegistry.classOf(id));
+        }
+    }
+
+    private static void writeBuiltIn(ByteBuf buf, int id, Object value) {
+        switch (id) {
+            case TypeRegistry.STRING:
+                writeString(buf, (String) value);
+                break;
+            case TypeRegistry.INTEGER:
+                writeVarInt(buf, encodeZigZag((Integer) value));
+                break;
+            case TypeRegistry.LONG:
+                writeVarLong(buf, encodeZigZag((Long) value));
+                break;
+            case TypeRegistry.DOUBLE:
+                buf.writeDouble((Double) value);
+                break;
+            case TypeRegistry.FLOAT:
+                buf.writeFloat((Float) value);
+                break;
+            case TypeRegistry.SHORT:
+                buf.writeShort((Short) value);
+                break;
+            case TypeRegistry.BYTE:
+                buf.writeByte((Byte) value);
+                break;
+            case TypeRegistry.BOOLEAN:
+                buf.writeBoolean((Boolean) value);
+                break;
+            case TypeRegistry.CHARACTER:
+                buf.writeChar((Character) value);
+                break;
+            case TypeRegistry.BYTES: {
+                byte[] bytes = (byte[]) value;
+                writeVarInt(buf, bytes.length);
+                buf.writeBytes(bytes);
+                break;
+            }
+            case TypeRegistry.BIG_DECIMAL:
+                writeString(buf, ((BigDecimal) value).toPlainString());
+                break;
+            case TypeRegistry.DATE:
+                writeVarLong(buf, encodeZigZag(((Date) value).getTime()));
+                break;
+            case TypeRegistry.TIMESTAMP: {
+                Timestamp timestamp = (Timestamp) value;
+                writeVarLong(buf, encodeZigZag(timestamp.getTime()));
+                writeVarInt(buf, timestamp.getNanos());
+                break;
+            }
+            case TypeRegistry.INSTANT: {
+                Instant instant = (Instant) value;
+                writeVarLong(buf, encodeZigZag(instant.getEpochSecond()));
+                writeVarInt(buf, instant.getNano());
+                break;
+            }
+            case TypeRegistry.LOCAL_DATE:
+                writeVarLong(buf, encodeZigZag(((LocalDate) value).toEpochDay()));
+                break;
+            case TypeRegistry.LOCAL_TIME:
+                writeVarLong(buf, ((LocalTime) value).toNanoOfDay());
+                break;
+            case TypeRegistry.LOCAL_DATE_TIME: {
+                LocalDateTime dateTime = (LocalDateTime) value;
+                writeVarLong(buf, encodeZigZag(dateTime.toLocalDate().toEpochDay()));
+                writeVarLong(buf, dateTime.toLocalTime().toNanoOfDay());
+                break;
+            }
+            case TypeRegistry.BIG_INTEGER: {
+                byte[] bytes = ((BigInteger) value).toByteArray();
+                writeVarInt(buf, bytes.length);
+                buf.writeBytes(bytes);
+                break;
+            }
+            case TypeRegistry.UUID: {
+                UUID uuid = (UUID) value;
+                buf.writeLong(uuid.getMostSignificantBits());
+                buf.writeLong(uuid.getLeastSignificantBits());
+                break;
+            }
+            default:
+                throw new RStreamsException("unknown built-in type id: " + id);
+        }
+    }
+
+    private static void writeArray(ByteBuf buf, Class<?> componentType, Object array) throws Throwable {
+        writeString(buf, componentType.getName());
+        int length = Array.getLength(array);
+        writeVarInt(buf, length);
+        for (int i = 0; i < length; i++) {
+            if (componentType.isPrimitive()) {
+                writePrimitive(buf, componentType, Array.get(array, i));
+            } else {
+                writeValue(buf, Array.get(array, i));
+            }
+        }
+    }
+
+    private static Object readArray(ByteBuf buf) throws Throwable {
+        String componentName = readString(buf);
+        Class<?> componentType = PRIMITIVES.get(componentName);
+        if (componentType == null) {
+            componentType = CodecCache.classForName(componentName);
+        }
+
+        int length = readVarInt(buf);
+        Object array = Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            if (componentType.isPrimitive()) {
+                Array.set(array, i, readPrimitive(buf, componentType));
+            } else {
+                Array.set(array, i, readValue(buf));
+            }
+        }
+        return array;
+    }
+
+    private static void writePrimitive(ByteBuf buf, Class<?> type, Object value) {
+        if (type == int.class) {
+            writeVarInt(buf, encodeZigZag((Integer) value));
+        } else if (type == long.class) {
+            writeVarLong(buf, encodeZigZag((Long) value));
+        } else if (type == double.class) {
+            buf.writeDouble((Double) value);
+        } else if (type == float.class) {
+            buf.writeFloat((Float) value);
+        } else if (type == boolean.class) {
+            buf.writeBoolean((Boolean) value);
+        } else if (type == short.class) {
+            buf.writeShort((Short) value);
+        } else if (type == byte.class) {
+            buf.writeByte((Byte) value);
+        } else {
+            buf.writeChar((Character) value);
+        }
+    }
+
+    private static Object readPrimitive(ByteBuf buf, Class<?> type) {
+        if (type == int.class) {
+            return decodeZigZag(readVarInt(buf));
+        } else if (type == long.class) {
+            return decodeZigZag(readVarLong(buf));
+        } else if (type == double.class) {
+            return buf.readDouble();
+        } else if (type == float.class) {
+            return buf.readFloat();
+        } else if (type == boolean.class) {
+            return buf.readBoolean();
+        } else if (type == short.class) {
+            return buf.readShort();
+        } else if (type == byte.class) {
+            return buf.readByte();
+        } else {
+            return buf.readChar();
+        }
+    }
+
+    private static void writeCollection(ByteBuf buf, Collection<?> collection) throws Throwable {
+        writeVarInt(buf, collection.size());
+        for (Object element : collection) {
+            writeValue(buf, element);
+        }
+    }
+
+    private static void writeObject(ByteBuf buf, Class<?> clazz, Object value) throws Throwable {
+        if (clazz.isEnum()) {
+            writeString(buf, ((Enum<?>) value).name());
+            return;
+        }
+
+        Schema schema = schemaOf(clazz);
+        writeVarInt(buf, schema.fields.length);
+        for (Field field : schema.fields) {
+            Class<?> type = field.getType();
+            if (!type.isPrimitive()) {
+                writeValue(buf, field.get(value));
+            } else if (type == int.class) {
+                writeVarInt(buf, encodeZigZag(field.getInt(value)));
+            } else if (type == long.class) {
+                writeVarLong(buf, encodeZigZag(field.getLong(value)));
+            } else if (type == double.class) {
+                buf.writeDouble(field.getDouble(value));
+            } else if (type == float.class) {
+                buf.writeFloat(field.getFloat(value));
+            } else if (type == boolean.class) {
+                buf.writeBoolean(field.getBoolean(value));
+            } else if (type == short.class) {
+                buf.writeShort(field.getShort(value));
+            } else if (type == byte.class) {
+                buf.writeByte(field.getByte(value));
+            } else {
+                buf.writeChar(field.getChar(value));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readObject(ByteBuf buf, Class<?> clazz) throws Throwable {
+        if (clazz.isEnum()) {
+            return Enum.valueOf((Class<Enum>) clazz, readString(buf));
+        }
+
+        Schema schema = schemaOf(clazz);
+        int fieldNum = readVarInt(buf);
+        if (fieldNum != schema.fields.length) {
+            throw new RStreamsException("schema of class " + clazz.getName() + " is not compatible, field num in data: "
+                    + fieldNum + ", field num in class: " + schema.fields.length);
+        }
+
+        Object result = schema.constructor.newInstance();
+        for (int i = 0; i < schema.fields.length; i++) {
+            Field field = schema.fields[i];
+            Class<?> type = field.getType();
+            if (!type.isPrimitive()) {
+                Object value = readValue(buf);
+                Constructor<?> collectionConstructor = schema.collectionConstructors[i];
+                if (collectionConstructor != null && value != null && !type.isInstance(value)) {
+                    value = toDeclaredType(collectionConstructor, value);
+                }
+                field.set(result, value);
+            } else if (type == int.class) {
+                field.setInt(result, decodeZigZag(readVarInt(buf)));
+            } else if (type == long.class) {
+                field.setLong(result, decodeZigZag(readVarLong(buf)));
+            } else if (type == double.class) {
+                field.setDouble(result, buf.readDouble());
+            } else if (type == float.class) {
+                field.setFloat(result, buf.readFloat());
+            } else if (type == boolean.class) {
+                field.setBoolean(result, buf.readBoolean());
+            } else if (type == short.class) {
+                field.setShort(result, buf.readShort());
+            } else if (type == byte.class) {
+                field.setByte(result, buf.readByte());
+            } else {
+                field.setChar(result, buf.readChar());
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toDeclaredType(Constructor<?> constructor, Object value) throws Throwable {
+        Object result = constructor.newInstance();
+        if (result instanceof Map) {
+            ((Map<Object, Object>) result).putAll((Map<?, ?>) value);
+        } else {
+            ((Collection<Object>) result).addAll((Collection<?>) value);
+        }
+        return result;
+    }
+
+    private static Schema schemaOf(Class<?> clazz) {
+        Schema schema = schemas.get(clazz);
+        if (schema == null) {
+            schema = new Schema(clazz);
+            schemas.putIfAbsent(clazz, schema);
+        }
+        return schema;
+    }
+
+    public static void writeString(ByteBuf buf, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    public static String readString(ByteBuf buf) {
+        int length = readVarInt(buf);
+        String result = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return result;
+    }
+
+    public static void writeVarInt(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf buf) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buf.readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new RStreamsException("malformed varint.");
+    }
+
+    public static void writeVarLong(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteBuf buf) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new RStreamsException("malformed varlong.");
+    }
+
+    private static int encodeZigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int decodeZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Schema {
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        //no-arg constructor of field declared as a concrete collection type, null for other fields
+        private final Constructor<?>[] collectionConstructors;
+
+        Schema(Class<?> clazz) {
+            if (isJdkClass(clazz)) {
+                throw new RStreamsException("class " + clazz.getName() + " is not supported by BinaryCodec, wrap it in a POJO or use a built-in type.");
+            }
+            this.constructor = noArgConstructor(clazz, clazz);
+
+            //父类字段在前，同一个类中按名称排序
+            LinkedList<Class<?>> hierarchy = new LinkedList<>();
+            for (Class<?> temp = clazz; temp != null && temp != Object.class; temp = temp.getSuperclass()) {
+                hierarchy.addFirst(temp);
+            }
+
+            List<Field> result = new ArrayList<>();
+            for (Class<?> temp : hierarchy) {
+                Field[] declaredFields = temp.getDeclaredFields();
+                Arrays.sort(declaredFields, Comparator.comparing(Field::getName));
+                for (Field field : declaredFields) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    result.add(field);
+                }
+            }
+            this.fields = result.toArray(new Field[0]);
+
+            this.collectionConstructors = new Constructor<?>[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                Class<?> type = fields[i].getType();
+                checkSupported(clazz, fields[i], type);
+                if (isCollection(type) && !isAbstract(type)) {
+                    collectionConstructors[i] = noArgConstructor(clazz, type);
+                }
+            }
+        }
+
+        private static void checkSupported(Class<?> owner, Field field, Class<?> type) {
+            if (type.isPrimitive() || type.isEnum() || type == Object.class || TypeRegistry.idOf(type) != null) {
+                return;
+            }
+            if (type.isArray()) {
+                checkSupported(owner, field, type.getComponentType());
+                return;
+            }
+            if (isCollection(type)) {
+                //interface or abstract collection type must accept what is read back
+                if (isAbstract(type) && !type.isAssignableFrom(ArrayList.class)
+                        && !type.isAssignableFrom(LinkedHashSet.class) && !type.isAssignableFrom(LinkedHashMap.class)) {
+                    throw unsupported(owner, field, "declare it as List, Set, Map or a concrete collection type");
+                }
+                return;
+            }
+            if (isJdkClass(type)) {
+                if (isAbstract(type) && TypeRegistry.hasBuiltInSubtype(type)) {
+                    //such as Number or CharSequence, class of the value is written with it
+                    return;
+                }
+                throw unsupported(owner, field, "it is a JDK class which is not built-in");
+            }
+            if (isAbstract(type)) {
+                //class of the value is written with it, checked when it is encoded
+                return;
+            }
+            noArgConstructor(owner, type);
+        }
+
+        private static RStreamsException unsupported(Class<?> owner, Field field, String reason) {
+            return new RStreamsException("field " + field.getName() + " of class " + owner.getName() + " with type "
+                    + field.getType().getName() + " can not be encoded by BinaryCodec, " + reason + ".");
+        }
+
+        private static Constructor<?> noArgConstructor(Class<?> owner, Class<?> type) {
+            try {
+                Constructor<?> result = type.getDeclaredConstructor();
+                result.setAccessible(true);
+                return result;
+            } catch (NoSuchMethodException e) {
+                throw new RStreamsException("class " + type.getName() + " has no no-arg constructor, can not be encoded by BinaryCodec"
+                        + (owner == type ? "." : ", used by class " + owner.getName() + "."), e);
+            }
+        }
+
+        private static boolean isCollection(Class<?> type) {
+            return Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+        }
+
+        private static boolean isAbstract(Class<?> type) {
+            return type.isInterface() || Modifier.isAbstract(type.getModifiers());
+        }
+
+        private static boolean isJdkClass(Class<?> type) {
+            String name = type.getName();
+            return name.startsWith("java.") || name.startsWith("javax.");
+        }
+    }
+}
@@ -23,5 +23,8 @@ public interface KeyValueDeserializer<K, V> {
     default void configure(Object... args) throws Throwable {
     }
 
+    /**
+     * @return null if the record is dropped, only for deserializer of source topic.
+     */
     Pair<K, V> deserialize(byte[] source) throws Throwable;
 }
@@ -18,4 +18,11 @@ package org.apache.rocketmq.streams.core.serialization;
 
 public interface KeyValueSerializer<KEY, T> {
     byte[] serialize(KEY key, T data) throws Throwable;
+
+    /**
+     * @return true if types of key and value are encoded in the body, then class names are not attached to the message.
+     */
+    default boolean isTypeEncoded() {
+        return false;
+    }
 }
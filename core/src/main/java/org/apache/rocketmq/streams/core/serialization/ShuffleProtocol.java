@@ -16,11 +16,11 @@
  */
 package org.apache.rocketmq.streams.core.serialization;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.Unpooled;
 import org.apache.rocketmq.streams.core.util.Pair;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * shuffle data how to encode KV
  * <pre>
@@ -31,46 +31,56 @@ import org.apache.rocketmq.streams.core.util.Pair;
  * </pre>
  */
 public class ShuffleProtocol {
-    private final ByteBuf buf = Unpooled.buffer(16);
+    private static final int HEADER_LENGTH = 8;
+
+    /**
+     * the size of result is computed up front, key and value are copied into it once.
+     */
     public byte[] merge(byte[] keyBytes, byte[] valueBytes) {
-        if (keyBytes == null || keyBytes.length ==0) {
+        if (keyBytes == null || keyBytes.length == 0) {
             return valueBytes;
         }
 
-        if (valueBytes == null || valueBytes.length ==0) {
+        if (valueBytes == null || valueBytes.length == 0) {
             return keyBytes;
         }
 
-        buf.writeInt(keyBytes.length);
-        buf.writeInt(valueBytes.length);
-        buf.writeBytes(keyBytes);
-        buf.writeBytes(valueBytes);
-
-        byte[] bytes = new byte[buf.readableBytes()];
-        buf.readBytes(bytes);
+        byte[] result = new byte[HEADER_LENGTH + keyBytes.length + valueBytes.length];
+        ByteBuffer buffer = ByteBuffer.wrap(result);
+        buffer.putInt(keyBytes.length);
+        buffer.putInt(valueBytes.length);
+        buffer.put(keyBytes);
+        buffer.put(valueBytes);
 
-        buf.clear();
-        return bytes;
+        return result;
     }
 
     public Pair<byte[], byte[]> split(byte[] total) {
-        ByteBuf byteBuf = Unpooled.wrappedBuffer(total);
-
-        int keyLength = byteBuf.readInt();
-        int valueLength = byteBuf.readInt();
-        ByteBuf keyByteBuf = byteBuf.readBytes(keyLength);
-        ByteBuf valueByteBuf = byteBuf.readBytes(valueLength);
-
-        byte[] keyBytes = new byte[keyByteBuf.readableBytes()];
-        keyByteBuf.readBytes(keyBytes);
+        Pair<ByteBuffer, ByteBuffer> views = splitView(total);
 
-        byte[] valueBytes = new byte[valueByteBuf.readableBytes()];
-        valueByteBuf.readBytes(valueBytes);
+        ByteBuffer keyView = views.getKey();
+        ByteBuffer valueView = views.getValue();
+        byte[] keyBytes = Arrays.copyOfRange(total, keyView.arrayOffset(), keyView.arrayOffset() + keyView.remaining());
+        byte[] valueBytes = Arrays.copyOfRange(total, valueView.arrayOffset(), valueView.arrayOffset() + valueView.remaining());
 
-        byteBuf.release();
-        keyByteBuf.release();
-        valueByteBuf.release();
         return new Pair<>(keyBytes, valueBytes);
     }
 
+    /**
+     * key and value are views of total without copy, they are valid as long as total is not modified.
+     */
+    public Pair<ByteBuffer, ByteBuffer> splitView(byte[] total) {
+        ByteBuffer buffer = ByteBuffer.wrap(total);
+
+        int keyLength = buffer.getInt();
+        int valueLength = buffer.getInt();
+        if (keyLength < 0 || valueLength < 0 || HEADER_LENGTH + (long) keyLength + valueLength > total.length) {
+            throw new IllegalArgumentException("illegal shuffle data, key length: " + keyLength + ", value length: "
+                    + valueLength + ", total length: " + total.length);
+        }
+
+        ByteBuffer keyView = ByteBuffer.wrap(total, HEADER_LENGTH, keyLength).slice();
+        ByteBuffer valueView = ByteBuffer.wrap(total, HEADER_LENGTH + keyLength, valueLength).slice();
+        return new Pair<>(keyView, valueView);
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+import org.apache.rocketmq.streams.core.serialization.deImpl.KVBinaryDeserializer;
+import org.apache.rocketmq.streams.core.serialization.deImpl.KVJsonDeserializer;
+import org.apache.rocketmq.streams.core.serialization.serImpl.KVBinarySerializer;
+import org.apache.rocketmq.streams.core.serialization.serImpl.KVJsonSerializer;
+
+import java.util.ServiceLoader;
+
+/**
+ * serde of shuffle topic, selected by {@link org.apache.rocketmq.streams.core.metadata.StreamConfig#SHUFFLE_SERDE}.
+ * <p>
+ * Besides the built-in json and binary serde, implementations can be provided with java ServiceLoader in
+ * META-INF/services/org.apache.rocketmq.streams.core.serialization.ShuffleSerde.
+ */
+public interface ShuffleSerde {
+    String JSON = "json";
+    String BINARY = "binary";
+
+    String name();
+
+    <K, V> KeyValueSerializer<K, V> serializer();
+
+    <K, V> KeyValueDeserializer<K, V> deserializer();
+
+    static ShuffleSerde of(String name) {
+        if (name == null || JSON.equals(name)) {
+            return new Json();
+        }
+        if (BINARY.equals(name)) {
+            return new Binary();
+        }
+
+        for (ShuffleSerde serde : ServiceLoader.load(ShuffleSerde.class)) {
+            if (name.equals(serde.name())) {
+                return serde;
+            }
+        }
+        throw new RStreamsException("unknown shuffle serde: " + name);
+    }
+
+    class Json implements ShuffleSerde {
+        @Override
+        public String name() {
+            return JSON;
+        }
+
+        @Override
+        public <K, V> KeyValueSerializer<K, V> serializer() {
+            return new KVJsonSerializer<>();
+        }
+
+        @Override
+        public <K, V> KeyValueDeserializer<K, V> deserializer() {
+            return new KVJsonDeserializer<>();
+        }
+    }
+
+    class Binary implements ShuffleSerde {
+        @Override
+        public String name() {
+            return BINARY;
+        }
+
+        @Override
+        public <K, V> KeyValueSerializer<K, V> serializer() {
+            return new KVBinarySerializer<>();
+        }
+
+        @Override
+        public <K, V> KeyValueDeserializer<K, V> deserializer() {
+            return new KVBinaryDeserializer<>();
+        }
+    }
+}
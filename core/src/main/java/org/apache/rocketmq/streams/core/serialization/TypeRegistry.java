@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * type id of classes used by {@link BinaryCodec}, a registered class is encoded as a small integer instead of its class name.
+ * <p>
+ * Id less than {@link #FIRST_USER_ID} is reserved for built-in types. User types must be registered with the same id
+ * in every process of the job, before the job starts.
+ */
+public class TypeRegistry {
+    public static final int NULL = 0;
+    public static final int STRING = 1;
+    public static final int INTEGER = 2;
+    public static final int LONG = 3;
+    public static final int DOUBLE = 4;
+    public static final int FLOAT = 5;
+    public static final int SHORT = 6;
+    public static final int BYTE = 7;
+    public static final int BOOLEAN = 8;
+    public static final int CHARACTER = 9;
+    public static final int BYTES = 10;
+    public static final int BIG_DECIMAL = 11;
+    public static final int LIST = 12;
+    public static final int MAP = 13;
+    public static final int SET = 14;
+    //class is not registered, class name follows the id
+    public static final int CLASS_NAME = 15;
+    public static final int DATE = 16;
+    public static final int TIMESTAMP = 17;
+    public static final int INSTANT = 18;
+    public static final int LOCAL_DATE = 19;
+    public static final int LOCAL_TIME = 20;
+    public static final int LOCAL_DATE_TIME = 21;
+    public static final int BIG_INTEGER = 22;
+    public static final int UUID = 23;
+    //array other than byte[], component class name follows the id
+    public static final int ARRAY = 24;
+
+    public static final int FIRST_USER_ID = 64;
+
+    private static final ConcurrentHashMap<Class<?>, Integer> class2Id = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Class<?>> id2Class = new ConcurrentHashMap<>();
+
+    static {
+        builtIn(String.class, STRING);
+        builtIn(Integer.class, INTEGER);
+        builtIn(Long.class, LONG);
+        builtIn(Double.class, DOUBLE);
+        builtIn(Float.class, FLOAT);
+        builtIn(Short.class, SHORT);
+        builtIn(Byte.class, BYTE);
+        builtIn(Boolean.class, BOOLEAN);
+        builtIn(Character.class, CHARACTER);
+        builtIn(byte[].class, BYTES);
+        builtIn(BigDecimal.class, BIG_DECIMAL);
+        builtIn(Date.class, DATE);
+        builtIn(Timestamp.class, TIMESTAMP);
+        builtIn(Instant.class, INSTANT);
+        builtIn(LocalDate.class, LOCAL_DATE);
+        builtIn(LocalTime.class, LOCAL_TIME);
+        builtIn(LocalDateTime.class, LOCAL_DATE_TIME);
+        builtIn(BigInteger.class, BIG_INTEGER);
+        builtIn(java.util.UUID.class, UUID);
+    }
+
+    private static void builtIn(Class<?> clazz, int id) {
+        class2Id.put(clazz, id);
+        id2Class.put(id, clazz);
+    }
+
+    public static synchronized void register(Class<?> clazz, int id) {
+        if (clazz == null) {
+            throw new IllegalArgumentException("class is null.");
+        }
+        if (id < FIRST_USER_ID) {
+            throw new IllegalArgumentException("type id less than " + FIRST_USER_ID + " is reserved, class=" + clazz.getName() + ", id=" + id);
+        }
+
+        Integer existId = class2Id.get(clazz);
+        Class<?> existClass = id2Class.get(id);
+        if (existId != null && existId == id && existClass == clazz) {
+            return;
+        }
+        if (existId != null || existClass != null) {
+            throw new RStreamsException("type id conflict, class=" + clazz.getName() + ", id=" + id
+                    + ", registered id of class=" + existId + ", registered class of id=" + (existClass == null ? null : existClass.getName()));
+        }
+
+        class2Id.put(clazz, id);
+        id2Class.put(id, clazz);
+    }
+
+    /**
+     * @return null if class is not registered.
+     */
+    public static Integer idOf(Class<?> clazz) {
+        return class2Id.get(clazz);
+    }
+
+    /**
+     * @return true if type is a built-in type or a super type of it.
+     */
+    public static boolean hasBuiltInSubtype(Class<?> type) {
+        for (Map.Entry<Integer, Class<?>> entry : id2Class.entrySet()) {
+            if (entry.getKey() < FIRST_USER_ID && type.isAssignableFrom(entry.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static Class<?> classOf(int id) {
+        Class<?> clazz = id2Class.get(id);
+        if (clazz == null) {
+            throw new RStreamsException("unknown type id: " + id + ", register it with TypeRegistry.register before job starts.");
+        }
+        return clazz;
+    }
+}
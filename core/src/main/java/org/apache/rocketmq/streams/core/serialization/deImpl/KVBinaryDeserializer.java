@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization.deImpl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.rocketmq.streams.core.serialization.BinaryCodec;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
+import org.apache.rocketmq.streams.core.util.Pair;
+
+public class KVBinaryDeserializer<K, V> implements KeyValueDeserializer<K, V> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Pair<K, V> deserialize(byte[] source) throws Throwable {
+        if (source == null || source.length == 0) {
+            return new Pair<>(null, null);
+        }
+
+        ByteBuf buf = Unpooled.wrappedBuffer(source);
+        K key = (K) BinaryCodec.readValue(buf);
+        V value = (V) BinaryCodec.readValue(buf);
+
+        return new Pair<>(key, value);
+    }
+}
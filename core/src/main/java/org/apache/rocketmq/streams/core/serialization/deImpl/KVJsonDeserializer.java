@@ -16,57 +16,50 @@
  */
 package org.apache.rocketmq.streams.core.serialization.deImpl;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.streams.core.util.CodecCache;
 import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
 import org.apache.rocketmq.streams.core.serialization.ShuffleProtocol;
 
-public class KVJsonDeserializer<K, V> extends ShuffleProtocol implements KeyValueDeserializer<K, V> {
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private Class<K> keyType;
-    private Class<V> valueType;
-
-    public KVJsonDeserializer() {
-        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-                .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
-                .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
-                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
-                .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
-                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+import java.nio.ByteBuffer;
 
-    }
+public class KVJsonDeserializer<K, V> extends ShuffleProtocol implements KeyValueDeserializer<K, V> {
+    //deserializer is shared by worker threads, types configured by one thread must not be seen by others.
+    private final ThreadLocal<Class<?>[]> types = ThreadLocal.withInitial(() -> new Class<?>[2]);
 
     @Override
-    @SuppressWarnings("unchecked")
     public void configure(Object... args) throws Throwable {
+        Class<?>[] keyValueTypes = types.get();
+
         String keyClassName = (String) args[0];
         if (!StringUtils.isEmpty(keyClassName)) {
-            keyType = (Class<K>) Class.forName(keyClassName);
+            keyValueTypes[0] = CodecCache.classForName(keyClassName);
         }
 
         String valueClassName = (String) args[1];
         if (!StringUtils.isEmpty(valueClassName)) {
-            valueType = (Class<V>) Class.forName(valueClassName);
+            keyValueTypes[1] = CodecCache.classForName(valueClassName);
         }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Pair<K, V> deserialize(byte[] total) throws Throwable {
-        Pair<byte[], byte[]> pair = split(total);
+        Class<?>[] keyValueTypes = types.get();
+        Class<K> keyType = (Class<K>) keyValueTypes[0];
+        Class<V> valueType = (Class<V>) keyValueTypes[1];
+
+        Pair<ByteBuffer, ByteBuffer> pair = splitView(total);
 
         K key = null;
-        byte[] keyBytes = pair.getKey();
-        if (keyBytes != null && keyBytes.length != 0) {
-            key = objectMapper.readValue(keyBytes, keyType);
+        ByteBuffer keyView = pair.getKey();
+        if (keyView.remaining() != 0) {
+            key = CodecCache.readValue(keyView.array(), keyView.arrayOffset(), keyView.remaining(), keyType);
         }
 
-        V value;
-        byte[] valueBytes = pair.getValue();
-        value = objectMapper.readValue(valueBytes, valueType);
+        ByteBuffer valueView = pair.getValue();
+        V value = CodecCache.readValue(valueView.array(), valueView.arrayOffset(), valueView.remaining(), valueType);
 
         return new Pair<>(key, value);
     }
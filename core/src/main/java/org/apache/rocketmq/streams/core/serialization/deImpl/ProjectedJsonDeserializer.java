@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization.deImpl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.rocketmq.streams.core.function.FilterAction;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
+import org.apache.rocketmq.streams.core.util.CodecCache;
+import org.apache.rocketmq.streams.core.util.Pair;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * json deserializer of source topic which filters records before binding.
+ * <p>
+ * Only the given top level fields are read with jackson streaming and passed to predicate as field name to scalar value,
+ * nested object or array is passed as null. The whole body is bound to valueType only when predicate passes, otherwise
+ * the record is dropped at source.
+ */
+public class ProjectedJsonDeserializer<V> implements KeyValueDeserializer<Void, V> {
+    private final Class<V> valueType;
+    private final FilterAction<Map<String, Object>> predicate;
+    private final Set<String> fields;
+    private final JsonFactory jsonFactory = CodecCache.getObjectMapper().getFactory();
+
+    public ProjectedJsonDeserializer(Class<V> valueType, FilterAction<Map<String, Object>> predicate, String... fields) {
+        if (fields == null || fields.length == 0) {
+            throw new IllegalArgumentException("fields referenced by predicate are required.");
+        }
+        this.valueType = valueType;
+        this.predicate = predicate;
+        this.fields = new HashSet<>(Arrays.asList(fields));
+    }
+
+    @Override
+    public Pair<Void, V> deserialize(byte[] source) throws Throwable {
+        if (!predicate.apply(project(source))) {
+            return null;
+        }
+
+        V value = CodecCache.readValue(source, valueType);
+        return new Pair<>(null, value);
+    }
+
+    Map<String, Object> project(byte[] source) throws Throwable {
+        Map<String, Object> result = new HashMap<>(fields.size() * 2);
+
+        try (JsonParser parser = jsonFactory.createParser(source)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return result;
+            }
+
+            //所有字段都找到后不再解析剩余部分
+            while (result.size() < fields.size() && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (!fields.contains(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                result.put(name, scalar(parser, token));
+            }
+        }
+        return result;
+    }
+
+    private Object scalar(JsonParser parser, JsonToken token) throws Throwable {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                parser.skipChildren();
+                return null;
+        }
+    }
+}
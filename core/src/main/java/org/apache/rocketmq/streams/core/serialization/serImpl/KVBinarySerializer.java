@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization.serImpl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.rocketmq.streams.core.serialization.BinaryCodec;
+import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
+
+/**
+ * key and value are encoded by {@link BinaryCodec} one after another, types are in the body.
+ */
+public class KVBinarySerializer<K, V> implements KeyValueSerializer<K, V> {
+
+    @Override
+    public byte[] serialize(K key, V value) throws Throwable {
+        if (key == null && value == null) {
+            return new byte[0];
+        }
+
+        ByteBuf buf = Unpooled.buffer(64);
+        try {
+            BinaryCodec.writeValue(buf, key);
+            BinaryCodec.writeValue(buf, value);
+
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            return bytes;
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Override
+    public boolean isTypeEncoded() {
+        return true;
+    }
+}
@@ -16,24 +16,11 @@
  */
 package org.apache.rocketmq.streams.core.serialization.serImpl;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import org.apache.rocketmq.streams.core.serialization.KeyValueSerializer;
 import org.apache.rocketmq.streams.core.serialization.ShuffleProtocol;
+import org.apache.rocketmq.streams.core.util.CodecCache;
 
 public class KVJsonSerializer<K, V> extends ShuffleProtocol implements KeyValueSerializer<K, V> {
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public KVJsonSerializer() {
-        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-                .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
-                .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
-                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
-                .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
-                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
-    }
 
     @Override
     public byte[] serialize(K key, V value) throws Throwable {
@@ -44,7 +31,7 @@ public class KVJsonSerializer<K, V> extends ShuffleProtocol implements KeyValueS
         } else if (key instanceof byte[]) {
             keyBytes = (byte[]) key;
         } else {
-            keyBytes = objectMapper.writeValueAsBytes(key);
+            keyBytes = CodecCache.writeValueAsBytes(key);
         }
 
         byte[] valueBytes;
@@ -53,7 +40,7 @@ public class KVJsonSerializer<K, V> extends ShuffleProtocol implements KeyValueS
         } else if (value instanceof byte[]) {
             valueBytes = (byte[]) value;
         } else {
-            valueBytes = objectMapper.writeValueAsBytes(value);
+            valueBytes = CodecCache.writeValueAsBytes(value);
         }
 
 
@@ -20,12 +20,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.Utils;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -53,6 +54,10 @@ public abstract class AbstractStore {
         return wrapper.getAll(stateTopicQueue);
     }
 
+    protected int calculatingNum() {
+        return wrapper.calculatingNum();
+    }
+
 
     protected String whichStateTopicQueueBelongTo(byte[] key) {
         return wrapper.whichStateTopicQueueBelongTo(key);
@@ -117,17 +122,18 @@ public abstract class AbstractStore {
         private final ConcurrentHashMap<String/*brokerName@topic@queueId of state topic*/, Set<byte[]/*Key*/>> calculating = new ConcurrentHashMap<>();
         //全量, 与rocksdb保持同步
         private final ConcurrentHashMap<String/*brokerName@topic@queueId of state topic*/, Set<byte[]/*Key*/>> recover = new ConcurrentHashMap<>();
+        //反向索引，key所属的queue以及它在recover集合中的实例，避免遍历全部key
+        private final ConcurrentHashMap<ByteBuffer/*Key*/, Pair<String/*brokerName@topic@queueId of state topic*/, byte[]>> index = new ConcurrentHashMap<>();
 
         public void putInRecover(String stateTopicQueueKey, byte[] key) {
-            Set<byte[]> allSet = this.recover.computeIfAbsent(stateTopicQueueKey, s -> new HashSet<>());
-
-            for (byte[] item : allSet) {
-                if (Arrays.equals(item, key)) {
-                    return;
-                }
+            Pair<String, byte[]> exist = this.index.get(ByteBuffer.wrap(key));
+            if (exist != null && exist.getKey().equals(stateTopicQueueKey)) {
+                return;
             }
 
+            Set<byte[]> allSet = this.recover.computeIfAbsent(stateTopicQueueKey, s -> new HashSet<>());
             allSet.add(key);
+            this.index.put(ByteBuffer.wrap(key), new Pair<>(stateTopicQueueKey, key));
         }
 
         public void putInCalculating(String stateTopicQueueKey, byte[] key) {
@@ -144,6 +150,14 @@ public abstract class AbstractStore {
             putInRecover(stateTopicQueueKey, key);
         }
 
+        public int calculatingNum() {
+            int result = 0;
+            for (Set<byte[]> keySet : calculating.values()) {
+                result += keySet.size();
+            }
+            return result;
+        }
+
         public Set<byte[]> getInCalculating(String stateTopicQueue) {
             return calculating.getOrDefault(stateTopicQueue, new HashSet<>());
         }
@@ -161,63 +175,28 @@ public abstract class AbstractStore {
         }
 
         public String whichStateTopicQueueBelongTo(byte[] key) {
-            for (String uniqueQueue : recover.keySet()) {
-                for (byte[] tempKeyByte : recover.getOrDefault(uniqueQueue, new HashSet<>())) {
-                    if (Arrays.equals(tempKeyByte, key)) {
-                        return uniqueQueue;
-                    }
-                }
-            }
-
-            for (String uniqueQueue : calculating.keySet()) {
-                for (byte[] tempKeyByte : calculating.getOrDefault(uniqueQueue, new HashSet<>())) {
-                    if (Arrays.equals(tempKeyByte, key)) {
-                        return uniqueQueue;
-                    }
-                }
-            }
-
-            return null;
+            //key in calculating is put in recover too
+            Pair<String, byte[]> exist = this.index.get(ByteBuffer.wrap(key));
+            return exist == null ? null : exist.getKey();
         }
 
 
         public void deleteByKey(byte[] key) {
-            {
-                Set<Map.Entry<String, Set<byte[]>>> entries = calculating.entrySet();
-                Iterator<Map.Entry<String, Set<byte[]>>> iterator = entries.iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Set<byte[]>> next = iterator.next();
-
-                    Set<byte[]> keySet = next.getValue();
-
-                    if (keySet != null) {
-                        keySet.removeIf(rocksDBKey -> Arrays.equals(rocksDBKey, key));
-                        if (keySet.size() == 0) {
-                            iterator.remove();
-                        }
-                    }
-                }
-            }
-
-            {
-                Set<Map.Entry<String, Set<byte[]>>> entries = recover.entrySet();
-                Iterator<Map.Entry<String, Set<byte[]>>> iterator = entries.iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Set<byte[]>> next = iterator.next();
-
-                    Set<byte[]> keySet = next.getValue();
-
-                    if (keySet != null) {
-                        keySet.removeIf(rocksDBKey -> Arrays.equals(rocksDBKey, key));
-                        if (keySet.size() == 0) {
-                            iterator.remove();
-                        }
-                    }
-                }
+            Pair<String, byte[]> exist = this.index.remove(ByteBuffer.wrap(key));
+            if (exist == null) {
+                return;
             }
+            String stateTopicQueueKey = exist.getKey();
 
+            this.calculating.computeIfPresent(stateTopicQueueKey, (queue, keySet) -> {
+                keySet.removeIf(rocksDBKey -> Arrays.equals(rocksDBKey, key));
+                return keySet.size() == 0 ? null : keySet;
+            });
 
-
+            this.recover.computeIfPresent(stateTopicQueueKey, (queue, keySet) -> {
+                keySet.remove(exist.getValue());
+                return keySet.size() == 0 ? null : keySet;
+            });
         }
 
         public void removeCalculating(String stateTopicQueueKey) {
@@ -225,7 +204,12 @@ public abstract class AbstractStore {
         }
 
         public void removeAll(String stateTopicQueueKey) {
-            this.recover.remove(stateTopicQueueKey);
+            Set<byte[]> keySet = this.recover.remove(stateTopicQueueKey);
+            if (keySet != null) {
+                for (byte[] key : keySet) {
+                    this.index.computeIfPresent(ByteBuffer.wrap(key), (k, exist) -> exist.getKey().equals(stateTopicQueueKey) ? null : exist);
+                }
+            }
             this.calculating.remove(stateTopicQueueKey);
         }
 
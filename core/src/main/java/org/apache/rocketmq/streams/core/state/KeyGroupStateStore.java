@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.state;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
+import org.apache.rocketmq.streams.core.function.ValueMapperAction;
+import org.apache.rocketmq.streams.core.util.Pair;
+import org.apache.rocketmq.streams.core.window.WindowKey;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * state store used when processing data of a key, state put into it belongs to the key group of the key.
+ */
+public class KeyGroupStateStore implements StateStore {
+    private final StateStore stateStore;
+    private final int keyGroup;
+
+    public KeyGroupStateStore(StateStore stateStore, int keyGroup) {
+        this.stateStore = stateStore;
+        this.keyGroup = keyGroup;
+    }
+
+    @Override
+    public void init() throws Throwable {
+        this.stateStore.init();
+    }
+
+    @Override
+    public void recover(Set<MessageQueue> addQueues, Set<MessageQueue> removeQueues) throws Throwable {
+        this.stateStore.recover(addQueues, removeQueues);
+    }
+
+    @Override
+    public void waitIfNotReady(MessageQueue messageQueue) throws RecoverStateStoreThrowable {
+        this.stateStore.waitIfNotReady(messageQueue);
+    }
+
+    @Override
+    public byte[] get(byte[] key) throws Throwable {
+        return this.stateStore.get(key);
+    }
+
+    @Override
+    public void put(MessageQueue stateTopicMessageQueue, byte[] key, byte[] value) throws Throwable {
+        this.stateStore.put(stateTopicMessageQueue, keyGroup, key, value);
+    }
+
+    @Override
+    public void put(MessageQueue stateTopicMessageQueue, int keyGroup, byte[] key, byte[] value) throws Throwable {
+        this.stateStore.put(stateTopicMessageQueue, keyGroup, key, value);
+    }
+
+    @Override
+    public List<Pair<byte[], byte[]>> searchStateLessThanWatermark(String operatorName, long lessThanThisTime, ValueMapperAction<byte[], WindowKey> deserializer) throws Throwable {
+        return this.stateStore.searchStateLessThanWatermark(operatorName, lessThanThisTime, deserializer);
+    }
+
+    @Override
+    public List<Pair<String, byte[]>> searchByKeyPrefix(String keyPrefix, ValueMapperAction<String, byte[]> string2Bytes, ValueMapperAction<byte[], String> byte2String) throws Throwable {
+        return this.stateStore.searchByKeyPrefix(keyPrefix, string2Bytes, byte2String);
+    }
+
+    @Override
+    public List<Pair<byte[], byte[]>> searchByKeyRange(byte[] from, byte[] to, int limit) throws Throwable {
+        return this.stateStore.searchByKeyRange(from, to, limit);
+    }
+
+    @Override
+    public void delete(byte[] key) throws Throwable {
+        this.stateStore.delete(key);
+    }
+
+    @Override
+    public void delete(List<byte[]> keys) throws Throwable {
+        this.stateStore.delete(keys);
+    }
+
+    @Override
+    public void persist(Set<MessageQueue> messageQueue) throws Throwable {
+        this.stateStore.persist(messageQueue);
+    }
+
+    @Override
+    public StateSnapshot snapshot(Set<MessageQueue> messageQueue) throws Throwable {
+        return this.stateStore.snapshot(messageQueue);
+    }
+
+    @Override
+    public int dirtyNum() {
+        return this.stateStore.dirtyNum();
+    }
+
+    @Override
+    public long dirtyBytes() {
+        return this.stateStore.dirtyBytes();
+    }
+
+    @Override
+    public void close() throws Exception {
+        //closed by owner of the underlying store
+    }
+}
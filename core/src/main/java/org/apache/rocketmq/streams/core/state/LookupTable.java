@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.state;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.apache.rocketmq.streams.core.running.RocketMQClient;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
+import org.apache.rocketmq.streams.core.util.Pair;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * read only table loaded from a compacted topic, the key of table is the key of message, and the value is deserialized from
+ * the body of message. Message with empty body deletes the key.
+ * <p>
+ * The whole topic is loaded once per process and deserializer, and shared by all worker threads, then it is kept updated from
+ * the tail of topic. If the update fails, the table stops updating and every get throws.
+ * Table with more messages than {@link StreamConfig#LOOKUP_TABLE_IN_MEMORY_MAX_NUM} is stored in rocksdb, otherwise in memory.
+ */
+public class LookupTable<V> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LookupTable.class.getName());
+    private static final ConcurrentHashMap<TableKey, LookupTable<?>> tables = new ConcurrentHashMap<>();
+
+    private final String topic;
+    private final String id;
+    private final KeyValueDeserializer<Void, V> deserializer;
+    private final DefaultLitePullConsumer consumer;
+    private final DefaultMQAdminExt mqAdmin;
+    private final Thread pullThread;
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    //offset to load before the table is ready, and next offset of every queue polled
+    private final Map<MessageQueue, Long> loadTo = new ConcurrentHashMap<>();
+    private final Map<MessageQueue, Long> position = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, V> memoryTable = new ConcurrentHashMap<>();
+    private volatile RocksDBStore rocksDBStore;
+    private volatile Throwable error;
+    private volatile boolean stop = false;
+
+    private LookupTable(String nameSrvAddr, String topic, KeyValueDeserializer<Void, V> deserializer) throws Throwable {
+        this.topic = topic;
+        this.deserializer = deserializer;
+
+        RocketMQClient rocketMQClient = new RocketMQClient(nameSrvAddr);
+        this.id = UUID.randomUUID().toString();
+        String groupName = String.join("_", "lookup", topic, id);
+        this.consumer = new DefaultLitePullConsumer(groupName);
+        this.consumer.setNamesrvAddr(nameSrvAddr);
+        this.consumer.setAutoCommit(false);
+        this.consumer.setPullBatchSize(1000);
+        this.mqAdmin = rocketMQClient.getMQAdmin();
+
+        this.pullThread = new Thread(this::pullInLoop, "LookupTable_" + topic);
+        this.pullThread.setDaemon(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> LookupTable<V> getOrCreate(String nameSrvAddr, String topic, KeyValueDeserializer<Void, V> deserializer) {
+        return (LookupTable<V>) tables.computeIfAbsent(new TableKey(nameSrvAddr, topic, deserializer), key -> {
+            try {
+                LookupTable<V> table = new LookupTable<>(nameSrvAddr, topic, deserializer);
+                table.consumer.start();
+                table.pullThread.start();
+                return table;
+            } catch (Throwable t) {
+                throw new RStreamsException("create lookup table error, topic=" + topic, t);
+            }
+        });
+    }
+
+    public static void closeAll() {
+        for (LookupTable<?> table : tables.values()) {
+            try {
+                table.close();
+            } catch (Throwable t) {
+                logger.error("close lookup table error, topic={}", table.topic, t);
+            }
+        }
+        tables.clear();
+    }
+
+    /**
+     * block until all messages in topic when the table is created are loaded.
+     */
+    public void waitLoaded() throws InterruptedException {
+        if (!this.loaded.await(StreamConfig.LOOKUP_TABLE_LOAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            throw new RStreamsException(String.format("load lookup table timeout, topic=%s, position=%s, loadTo=%s", topic, position, loadTo));
+        }
+        if (error != null) {
+            throw new RStreamsException("load lookup table error, topic=" + topic, error);
+        }
+    }
+
+    public V get(String key) throws Throwable {
+        if (key == null) {
+            return null;
+        }
+        if (error != null) {
+            throw new RStreamsException("lookup table is not updated any more, topic=" + topic, error);
+        }
+
+        RocksDBStore store = this.rocksDBStore;
+        if (store == null) {
+            return memoryTable.get(key);
+        }
+
+        byte[] body = store.get(key.getBytes(StandardCharsets.UTF_8));
+        if (body == null) {
+            return null;
+        }
+        Pair<Void, V> pair = deserializer.deserialize(body);
+        return pair == null ? null : pair.getValue();
+    }
+
+    private void pullInLoop() {
+        try {
+            Collection<MessageQueue> queues = consumer.fetchMessageQueues(topic);
+            consumer.assign(queues);
+
+            long total = 0;
+            for (MessageQueue queue : queues) {
+                long minOffset = mqAdmin.minOffset(queue);
+                long maxOffset = mqAdmin.maxOffset(queue);
+                consumer.seek(queue, minOffset);
+
+                if (maxOffset > minOffset) {
+                    loadTo.put(queue, maxOffset);
+                    total += maxOffset - minOffset;
+                }
+            }
+
+            if (total > StreamConfig.LOOKUP_TABLE_IN_MEMORY_MAX_NUM) {
+                this.rocksDBStore = new RocksDBStore(String.join("_", "lookup", topic, id), 0);
+            }
+            logger.info("start loading lookup table, topic={}, message num={}, in rocksdb={}", topic, total, rocksDBStore != null);
+
+            long begin = System.currentTimeMillis();
+            long lastPolled = begin;
+            while (!stop) {
+                List<MessageExt> messageExts = consumer.poll(100);
+                for (MessageExt messageExt : messageExts) {
+                    apply(messageExt);
+
+                    MessageQueue queue = new MessageQueue(messageExt.getTopic(), messageExt.getBrokerName(), messageExt.getQueueId());
+                    position.merge(queue, messageExt.getQueueOffset() + 1, Math::max);
+                }
+
+                long now = System.currentTimeMillis();
+                if (messageExts.size() != 0) {
+                    lastPolled = now;
+                }
+                if (loaded.getCount() != 0) {
+                    loadTo.entrySet().removeIf(entry -> position.getOrDefault(entry.getKey(), 0L) >= entry.getValue());
+
+                    if (!loadTo.isEmpty() && now - lastPolled >= StreamConfig.LOOKUP_TABLE_LOAD_IDLE_MILLIS) {
+                        //compacted topic may have no message at the end of queue
+                        logger.warn("no more message of lookup table, treat as loaded, topic={}, position={}, loadTo={}", topic, position, loadTo);
+                        loadTo.clear();
+                    }
+
+                    if (loadTo.isEmpty()) {
+                        logger.info("lookup table loaded, topic={}, cost={}ms", topic, now - begin);
+                        loaded.countDown();
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            if (loaded.getCount() != 0) {
+                logger.error("load lookup table error, topic={}", topic, t);
+            } else {
+                logger.error("update lookup table error, stop updating, topic={}, position={}", topic, position, t);
+            }
+            this.error = t;
+            this.loaded.countDown();
+        }
+    }
+
+    private void apply(MessageExt messageExt) throws Throwable {
+        String key = messageExt.getKeys();
+        if (StringUtils.isEmpty(key)) {
+            return;
+        }
+
+        byte[] body = messageExt.getBody();
+        boolean delete = body == null || body.length == 0
+                || Constant.TRUE.equals(messageExt.getUserProperty(Constant.EMPTY_BODY));
+
+        RocksDBStore store = this.rocksDBStore;
+        if (store != null) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            if (delete) {
+                store.deleteByKey(keyBytes);
+            } else {
+                store.put(keyBytes, body);
+            }
+        } else {
+            Pair<Void, V> pair = delete ? null : deserializer.deserialize(body);
+            //dropped by deserializer is the same as deleted
+            if (pair == null || pair.getValue() == null) {
+                memoryTable.remove(key);
+            } else {
+                memoryTable.put(key, pair.getValue());
+            }
+        }
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.stop = true;
+        this.pullThread.join(1000);
+        this.consumer.shutdown();
+        this.mqAdmin.shutdown();
+        if (this.rocksDBStore != null) {
+            this.rocksDBStore.close();
+        }
+    }
+
+    private static class TableKey {
+        private final String nameSrvAddr;
+        private final String topic;
+        //tables are not shared by different deserializers, they hold deserialized values
+        private final KeyValueDeserializer<Void, ?> deserializer;
+
+        TableKey(String nameSrvAddr, String topic, KeyValueDeserializer<Void, ?> deserializer) {
+            this.nameSrvAddr = nameSrvAddr;
+            this.topic = topic;
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TableKey tableKey = (TableKey) o;
+            return Objects.equals(nameSrvAddr, tableKey.nameSrvAddr) && Objects.equals(topic, tableKey.topic)
+                    && deserializer == tableKey.deserializer;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nameSrvAddr, topic, System.identityHashCode(deserializer));
+        }
+    }
+}
@@ -19,7 +19,9 @@ package org.apache.rocketmq.streams.core.state;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.client.consumer.store.ReadOffsetType;
 import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.common.CountDownLatch2;
 import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.consumer.ConsumeFromWhere;
@@ -30,25 +32,34 @@ import org.apache.rocketmq.common.protocol.route.BrokerData;
 import org.apache.rocketmq.common.protocol.route.QueueData;
 import org.apache.rocketmq.common.protocol.route.TopicRouteData;
 import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
 import org.apache.rocketmq.streams.core.exception.RecoverStateStoreThrowable;
 import org.apache.rocketmq.streams.core.function.ValueMapperAction;
 import org.apache.rocketmq.streams.core.metadata.StreamConfig;
 import org.apache.rocketmq.streams.core.serialization.ShuffleProtocol;
+import org.apache.rocketmq.streams.core.util.KeyGroup;
 import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.RocketMQUtil;
 import org.apache.rocketmq.streams.core.util.Utils;
 import org.apache.rocketmq.streams.core.window.WindowKey;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.slf4j.Logger;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.Snapshot;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -59,6 +70,8 @@ import java.util.stream.Collectors;
 
 public class RocketMQStore extends AbstractStore implements StateStore {
     private static final Logger logger = LoggerFactory.getLogger(RocketMQStore.class.getName());
+    private static final int TOMBSTONE_BATCH_SIZE = 256;
+    private static final byte[] LEGACY_TOMBSTONE_BODY = Constant.EMPTY_BODY.getBytes(StandardCharsets.UTF_8);
     private final DefaultMQProducer producer;
     private final DefaultMQAdminExt mqAdmin;
     private final RocksDBStore rocksDBStore;
@@ -69,6 +82,17 @@ public class RocketMQStore extends AbstractStore implements StateStore {
 
     private final ConcurrentHashMap<MessageQueue/*messageQueue of state topic*/, CountDownLatch2> recoveringQueueMutex = new ConcurrentHashMap<>();
 
+    private final ConcurrentHashMap<String/*source topic*/, Integer/*queue num*/> sourceTopicQueueNum = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MessageQueue/*messageQueue of source topic*/, Set<MessageQueue>/*key group queues of state topic*/> keyGroupQueues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/*state topic*/, Integer/*queue num*/> stateTopicQueueNum = new ConcurrentHashMap<>();
+    //估算值，同一个key多次写入会重复计算
+    private final ConcurrentHashMap<String/*brokerName@topic@queueId of state topic*/, Long/*bytes*/> dirtyBytes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/*brokerName@topic@queueId of state topic*/, Long/*time*/> lastCompaction = new ConcurrentHashMap<>();
+    //deleted keys whose tombstone is not sent yet, only changed by compute/remove of the map, window may be fired by other thread
+    private final ConcurrentHashMap<String/*brokerName@topic@queueId of state topic*/, List<byte[]>> tombstones = new ConcurrentHashMap<>();
+    //only used to read and write the replay start offset of state topic queues, no queue is assigned to it
+    private DefaultLitePullConsumer offsetConsumer;
+
     public RocketMQStore(DefaultMQProducer producer, RocksDBStore rocksDBStore, DefaultMQAdminExt mqAdmin, Properties properties) {
         this.producer = producer;
         this.mqAdmin = mqAdmin;
@@ -82,13 +106,91 @@ public class RocketMQStore extends AbstractStore implements StateStore {
 
     @Override
     public void recover(Set<MessageQueue> addQueues, Set<MessageQueue> removeQueues) throws Throwable {
-        this.loadState(addQueues);
-        this.removeState(removeQueues);
+        if (!KeyGroup.enabled()) {
+            this.loadState(addQueues);
+            this.removeState(removeQueues);
+            return;
+        }
+
+        //state topic queues of removed queues, with the mapping they are loaded with
+        Set<MessageQueue> removeStateQueues = convertSourceTopicQueue2StateTopicQueue(removeQueues);
+        if (removeQueues != null) {
+            removeQueues.forEach(this.keyGroupQueues::remove);
+        }
+        Set<MessageQueue> loadStateQueues = refreshKeyGroupQueues(addQueues, removeQueues, removeStateQueues);
+        loadStateQueues.addAll(convertSourceTopicQueue2StateTopicQueue(addQueues));
+
+        //key group moved between queues of this process is kept
+        Set<MessageQueue> owned = new HashSet<>(loadStateQueues);
+        this.keyGroupQueues.values().forEach(owned::addAll);
+        removeStateQueues.removeAll(owned);
+
+        this.loadState(loadStateQueues);
+        this.removeState(removeStateQueues);
+    }
+
+    /**
+     * queue num of source topic is read again on rebalance, key groups of queues still owned are reassigned if it changes.
+     *
+     * @return state topic queues newly assigned to queues still owned, state topic queues no longer assigned to them are
+     * added into removeStateQueues.
+     */
+    private Set<MessageQueue> refreshKeyGroupQueues(Set<MessageQueue> addQueues, Set<MessageQueue> removeQueues,
+                                                    Set<MessageQueue> removeStateQueues) {
+        Set<String> topics = new HashSet<>();
+        for (Set<MessageQueue> queues : Arrays.asList(addQueues, removeQueues)) {
+            if (queues == null) {
+                continue;
+            }
+            for (MessageQueue queue : queues) {
+                if (isKeyGroupQueue(queue) && !queue.getTopic().endsWith(Constant.STATE_TOPIC_SUFFIX)) {
+                    topics.add(queue.getTopic());
+                }
+            }
+        }
+
+        Set<MessageQueue> loadStateQueues = new HashSet<>();
+        for (String topic : topics) {
+            Integer before = this.sourceTopicQueueNum.remove(topic);
+            if (before == null || before == getSourceTopicQueueNum(topic)) {
+                continue;
+            }
+            logger.info("queue num of topic changed, reassign key groups, topic={}, before={}, now={}", topic, before, getSourceTopicQueueNum(topic));
+
+            for (MessageQueue sourceTopicQueue : new ArrayList<>(this.keyGroupQueues.keySet())) {
+                if (!sourceTopicQueue.getTopic().equals(topic)) {
+                    continue;
+                }
+                Set<MessageQueue> previous = this.keyGroupQueues.remove(sourceTopicQueue);
+                Set<MessageQueue> current = keyGroupQueues(sourceTopicQueue);
+
+                for (MessageQueue queue : current) {
+                    if (!previous.contains(queue)) {
+                        loadStateQueues.add(queue);
+                    }
+                }
+                for (MessageQueue queue : previous) {
+                    if (!current.contains(queue)) {
+                        removeStateQueues.add(queue);
+                    }
+                }
+            }
+        }
+        return loadStateQueues;
     }
 
     @Override
     public void waitIfNotReady(MessageQueue messageQueue) throws RecoverStateStoreThrowable {
-        MessageQueue stateTopicQueue = convertSourceTopicQueue2StateTopicQueue(messageQueue);
+        if (isKeyGroupQueue(messageQueue)) {
+            for (MessageQueue stateTopicQueue : keyGroupQueues(messageQueue)) {
+                waitIfNotReady0(stateTopicQueue);
+            }
+        } else {
+            waitIfNotReady0(convertSourceTopicQueue2StateTopicQueue(messageQueue));
+        }
+    }
+
+    private void waitIfNotReady0(MessageQueue stateTopicQueue) throws RecoverStateStoreThrowable {
         CountDownLatch2 waitPoint = this.recoveringQueueMutex.get(stateTopicQueue);
 
         long start = 0;
@@ -119,8 +221,22 @@ public class RocketMQStore extends AbstractStore implements StateStore {
 
     @Override
     public void put(MessageQueue stateTopicMessageQueue, byte[] key, byte[] value) throws Throwable {
-        String stateTopicQueueKey = buildKey(stateTopicMessageQueue);
+        this.put(stateTopicMessageQueue, KeyGroup.NONE, key, value);
+    }
+
+    @Override
+    public void put(MessageQueue stateTopicMessageQueue, int keyGroup, byte[] key, byte[] value) throws Throwable {
+        MessageQueue queue = stateTopicMessageQueue;
+        if (isKeyGroupQueue(stateTopicMessageQueue)) {
+            if (keyGroup == KeyGroup.NONE) {
+                keyGroup = KeyGroup.queueStateId(stateTopicMessageQueue.getQueueId());
+            }
+            queue = new MessageQueue(stateTopicMessageQueue.getTopic(), stateTopicMessageQueue.getBrokerName(), keyGroup);
+        }
+
+        String stateTopicQueueKey = buildKey(queue);
         super.putInCalculating(stateTopicQueueKey, key);
+        this.dirtyBytes.merge(stateTopicQueueKey, (long) key.length + (value == null ? 0 : value.length), Long::sum);
         this.rocksDBStore.put(key, value);
     }
 
@@ -144,22 +260,20 @@ public class RocketMQStore extends AbstractStore implements StateStore {
         return this.rocksDBStore.searchByKeyPrefix(keyPrefix, string2Bytes, byte2String);
     }
 
+    @Override
+    public List<Pair<byte[], byte[]>> searchByKeyRange(byte[] from, byte[] to, int limit) throws Throwable {
+        return this.rocksDBStore.searchByKeyRange(from, to, limit);
+    }
+
+    /**
+     * key is deleted from rocksdb at once, its tombstone is sent to state topic with the next persist.
+     */
     @Override
     public void delete(byte[] key) throws Throwable {
         if (key == null || key.length == 0) {
             return;
         }
-        //删除远程
-        String stateTopicQueue = super.whichStateTopicQueueBelongTo(key);
-        String[] split = Utils.split(stateTopicQueue);
-        String topic = split[1];
-        MessageQueue queue = new MessageQueue(split[1], split[0], Integer.parseInt(split[2]));
-
-        Message message = new Message(topic, Constant.EMPTY_BODY.getBytes(StandardCharsets.UTF_8));
-        message.setKeys(Utils.toHexString(key));
-        message.putUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME, key.getClass().getName());
-        message.putUserProperty(Constant.EMPTY_BODY, Constant.TRUE);
-        producer.send(message, queue);
+        String stateTopicQueueKey = super.whichStateTopicQueueBelongTo(key);
 
         //删除rocksdb
         this.rocksDBStore.deleteByKey(key);
@@ -167,7 +281,72 @@ public class RocketMQStore extends AbstractStore implements StateStore {
         //删除内存中的key
         super.removeAllKey(key);
 
-        logger.debug("delete key from RocketMQ and Rocksdb, key=" + new String(key, StandardCharsets.UTF_8) + ",MessageQueue: " + queue);
+        tombstone(stateTopicQueueKey, key);
+    }
+
+    @Override
+    public void delete(List<byte[]> keys) throws Throwable {
+        if (keys == null || keys.size() == 0) {
+            return;
+        }
+
+        List<byte[]> toDelete = new ArrayList<>(keys.size());
+        List<String> stateTopicQueueKeys = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            if (key == null || key.length == 0) {
+                continue;
+            }
+            toDelete.add(key);
+            stateTopicQueueKeys.add(super.whichStateTopicQueueBelongTo(key));
+        }
+
+        this.rocksDBStore.deleteByKeys(toDelete);
+
+        for (int i = 0; i < toDelete.size(); i++) {
+            super.removeAllKey(toDelete.get(i));
+            tombstone(stateTopicQueueKeys.get(i), toDelete.get(i));
+        }
+    }
+
+    //added after local delete, so a checkpoint taken in between persists neither the value nor the tombstone.
+    private void tombstone(String stateTopicQueueKey, byte[] key) {
+        if (stateTopicQueueKey == null) {
+            //never put or recovered, nothing in state topic
+            return;
+        }
+
+        this.tombstones.compute(stateTopicQueueKey, (queue, keys) -> {
+            List<byte[]> result = keys == null ? new ArrayList<>() : keys;
+            result.add(key);
+            return result;
+        });
+        this.dirtyBytes.merge(stateTopicQueueKey, (long) key.length, Long::sum);
+    }
+
+    private void sendTombstones(MessageQueue stateTopicQueue, List<byte[]> keys) throws Throwable {
+        if (keys == null || keys.size() == 0) {
+            return;
+        }
+        createStateTopic(stateTopicQueue.getTopic(), stateTopicQueue.getBrokerName().equals(Constant.STATIC_TOPIC_BROKER_NAME));
+
+        List<Message> batch = new ArrayList<>(Math.min(keys.size(), TOMBSTONE_BATCH_SIZE));
+        for (byte[] key : keys) {
+            //body is the key, so recovery knows which key to delete
+            Message message = new Message(stateTopicQueue.getTopic(), key);
+            message.setKeys(Utils.toHexString(key));
+            message.putUserProperty(Constant.SHUFFLE_KEY_CLASS_NAME, key.getClass().getName());
+            message.putUserProperty(Constant.EMPTY_BODY, Constant.TRUE);
+            batch.add(message);
+
+            if (batch.size() >= TOMBSTONE_BATCH_SIZE) {
+                this.producer.send(batch, stateTopicQueue);
+                batch = new ArrayList<>(TOMBSTONE_BATCH_SIZE);
+            }
+        }
+        if (batch.size() != 0) {
+            this.producer.send(batch, stateTopicQueue);
+        }
+        logger.debug("send {} tombstones to state topic queue: {}", keys.size(), stateTopicQueue);
     }
 
     @Override
@@ -179,38 +358,232 @@ public class RocketMQStore extends AbstractStore implements StateStore {
         Set<MessageQueue> stateTopicQueues = convertSourceTopicQueue2StateTopicQueue(messageQueues);
         for (MessageQueue stateTopicQueue : stateTopicQueues) {
             String stateTopicQueueKey = buildKey(stateTopicQueue);
+            sendTombstones(stateTopicQueue, this.tombstones.remove(stateTopicQueueKey));
+
             Set<byte[]> keySet = super.getInCalculating(stateTopicQueueKey);
 
             if (keySet == null || keySet.size() == 0) {
-                return;
+                continue;
             }
 
-            String stateTopic = stateTopicQueue.getTopic();
-            boolean isStaticTopic = stateTopicQueue.getBrokerName().equals(Constant.STATIC_TOPIC_BROKER_NAME);
-            createStateTopic(stateTopic, isStaticTopic);
+            persist(stateTopicQueue, keySet, null);
+            super.removeCalculating(stateTopicQueueKey);
+            this.dirtyBytes.remove(stateTopicQueueKey);
+        }
+    }
 
-            for (byte[] key : keySet) {
+    @Override
+    public StateSnapshot snapshot(Set<MessageQueue> messageQueues) throws Throwable {
+        Map<MessageQueue, Set<byte[]>> dirty = new HashMap<>();
+        Map<MessageQueue, Long> bytes = new HashMap<>();
+        Map<MessageQueue, Set<byte[]>> compact = new HashMap<>();
+        Map<MessageQueue, List<byte[]>> deleted = new HashMap<>();
 
-                byte[] valueBytes = this.rocksDBStore.get(key);
-                if (valueBytes == null) {
-                    continue;
-                }
+        Set<MessageQueue> stateTopicQueues = convertSourceTopicQueue2StateTopicQueue(messageQueues);
+        for (MessageQueue stateTopicQueue : stateTopicQueues) {
+            String stateTopicQueueKey = buildKey(stateTopicQueue);
+            List<byte[]> tombstones = this.tombstones.remove(stateTopicQueueKey);
+            if (tombstones != null) {
+                deleted.put(stateTopicQueue, tombstones);
+            }
+            Long size = this.dirtyBytes.remove(stateTopicQueueKey);
+            if (size != null) {
+                bytes.put(stateTopicQueue, size);
+            }
+
+            Set<byte[]> keySet = super.getInCalculating(stateTopicQueueKey);
+            if (keySet == null || keySet.size() == 0) {
+                continue;
+            }
+            //之后的修改记录在新的集合中
+            dirty.put(stateTopicQueue, keySet);
+            super.removeCalculating(stateTopicQueueKey);
+
+            if (compactionDue(stateTopicQueueKey)) {
+                //getAll返回副本，之后worker线程的修改不影响它
+                compact.put(stateTopicQueue, super.getAll(stateTopicQueueKey));
+            }
+        }
 
-                byte[] body = this.protocol.merge(key, valueBytes);
+        return new RocksDBSnapshot(dirty, bytes, compact, deleted);
+    }
 
-                Message message = new Message(stateTopicQueue.getTopic(), body);
-                message.setKeys(Utils.toHexString(key));
+    private boolean compactionDue(String stateTopicQueueKey) {
+        if (!StreamConfig.STATE_COMPACTION) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long last = this.lastCompaction.computeIfAbsent(stateTopicQueueKey, key -> now);
+        if (now - last < StreamConfig.STATE_COMPACTION_INTERVAL_MILLIS) {
+            return false;
+        }
+        this.lastCompaction.put(stateTopicQueueKey, now);
+        return true;
+    }
 
-                try {
-                    logger.debug("persist key: " + new String(key, StandardCharsets.UTF_8) + ",messageQueue: " + stateTopicQueue);
-                } catch (Throwable t) {
-                    //key is not string, maybe.
+    /**
+     * rewrite all live keys of the queue as a new generation, then recovery replays from the start of it.
+     */
+    private void compact(MessageQueue stateTopicQueue, Set<byte[]> keySet, ReadOptions readOptions) throws Throwable {
+        long start = System.currentTimeMillis();
+        long replayFrom = persist(stateTopicQueue, keySet, readOptions);
+        if (replayFrom < 0) {
+            //no live key, nothing before the tail needs to be replayed
+            replayFrom = this.mqAdmin.maxOffset(stateTopicQueue);
+        }
+
+        getOffsetConsumer().getOffsetStore().updateConsumeOffsetToBroker(stateTopicQueue, replayFrom, false);
+        logger.info("compact state queue: {}, live keys: {}, replay from: {}, cost={}ms", stateTopicQueue, keySet.size(),
+                replayFrom, System.currentTimeMillis() - start);
+    }
+
+    private long replayFrom(MessageQueue stateTopicQueue) throws Throwable {
+        long offset = getOffsetConsumer().getOffsetStore().readOffset(stateTopicQueue, ReadOffsetType.READ_FROM_STORE);
+        //早于最小位点说明消息已过期，从头恢复
+        if (offset <= this.mqAdmin.minOffset(stateTopicQueue)) {
+            return -1;
+        }
+        return offset;
+    }
+
+    private synchronized DefaultLitePullConsumer getOffsetConsumer() throws Throwable {
+        if (this.offsetConsumer == null) {
+            DefaultLitePullConsumer consumer = new DefaultLitePullConsumer(StreamConfig.ROCKETMQ_STREAMS_STATE_CONSUMER_GROUP);
+            consumer.setNamesrvAddr(properties.getProperty(MixAll.NAMESRV_ADDR_PROPERTY));
+            //do not share client instance with the consumer of the same group which loads state
+            consumer.setInstanceName(UUID.randomUUID().toString());
+            consumer.setAutoCommit(false);
+            consumer.start();
+            this.offsetConsumer = consumer;
+        }
+        return this.offsetConsumer;
+    }
+
+    /**
+     * @return offset of the first message sent, -1 if nothing is sent.
+     */
+    private long persist(MessageQueue stateTopicQueue, Set<byte[]> keySet, ReadOptions readOptions) throws Throwable {
+        long first = -1;
+        String stateTopic = stateTopicQueue.getTopic();
+        boolean isStaticTopic = stateTopicQueue.getBrokerName().equals(Constant.STATIC_TOPIC_BROKER_NAME);
+        createStateTopic(stateTopic, isStaticTopic);
+
+        for (byte[] key : keySet) {
+
+            //value at the snapshot if there is one, otherwise the live value
+            byte[] valueBytes = readOptions != null ? this.rocksDBStore.get(readOptions, key) : this.rocksDBStore.get(key);
+            if (valueBytes == null) {
+                //deleted, tombstone is sent later
+                continue;
+            }
+
+            byte[] body = this.protocol.merge(key, valueBytes);
+
+            Message message = new Message(stateTopicQueue.getTopic(), body);
+            message.setKeys(Utils.toHexString(key));
+
+            try {
+                logger.debug("persist key: " + new String(key, StandardCharsets.UTF_8) + ",messageQueue: " + stateTopicQueue);
+            } catch (Throwable t) {
+                //key is not string, maybe.
+            }
+
+            SendResult sendResult = this.producer.send(message, stateTopicQueue);
+            if (first < 0) {
+                first = sendResult.getQueueOffset();
+            }
+        }
+        return first;
+    }
+
+    private class RocksDBSnapshot implements StateSnapshot {
+        private final Map<MessageQueue/*messageQueue of state topic*/, Set<byte[]>> dirty;
+        private final Map<MessageQueue/*messageQueue of state topic*/, Long> bytes;
+        //queues rewritten with all keys instead of the dirty ones
+        private final Map<MessageQueue/*messageQueue of state topic*/, Set<byte[]>> compact;
+        private final Map<MessageQueue/*messageQueue of state topic*/, List<byte[]>> deleted;
+        private final Snapshot snapshot;
+        private final ReadOptions readOptions;
+
+        RocksDBSnapshot(Map<MessageQueue, Set<byte[]>> dirty, Map<MessageQueue, Long> bytes,
+                        Map<MessageQueue, Set<byte[]>> compact, Map<MessageQueue, List<byte[]>> deleted) {
+            this.dirty = dirty;
+            this.bytes = bytes;
+            this.compact = compact;
+            this.deleted = deleted;
+            this.snapshot = dirty.isEmpty() ? null : rocksDBStore.getSnapshot();
+            this.readOptions = snapshot == null ? null : new ReadOptions().setSnapshot(snapshot);
+        }
+
+        @Override
+        public void persist() throws Throwable {
+            //tombstones first, value of a key put again after deleted overrides its tombstone
+            for (Map.Entry<MessageQueue, List<byte[]>> entry : deleted.entrySet()) {
+                sendTombstones(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<MessageQueue, Set<byte[]>> entry : dirty.entrySet()) {
+                if (compact.containsKey(entry.getKey())) {
+                    continue;
                 }
+                RocketMQStore.this.persist(entry.getKey(), entry.getValue(), readOptions);
+            }
+            for (Map.Entry<MessageQueue, Set<byte[]>> entry : compact.entrySet()) {
+                RocketMQStore.this.compact(entry.getKey(), entry.getValue(), readOptions);
+            }
+        }
 
-                this.producer.send(message, stateTopicQueue);
+        @Override
+        public void release() {
+            if (snapshot != null) {
+                readOptions.close();
+                rocksDBStore.releaseSnapshot(snapshot);
             }
-            super.removeCalculating(stateTopicQueueKey);
         }
+
+        @Override
+        public void abort() {
+            for (Map.Entry<MessageQueue, Set<byte[]>> entry : dirty.entrySet()) {
+                String stateTopicQueueKey = buildKey(entry.getKey());
+                for (byte[] key : entry.getValue()) {
+                    RocketMQStore.this.putInCalculating(stateTopicQueueKey, key);
+                }
+            }
+            for (Map.Entry<MessageQueue, Long> entry : bytes.entrySet()) {
+                dirtyBytes.merge(buildKey(entry.getKey()), entry.getValue(), Long::sum);
+            }
+            for (Map.Entry<MessageQueue, List<byte[]>> entry : deleted.entrySet()) {
+                tombstones.compute(buildKey(entry.getKey()), (queue, keys) -> {
+                    if (keys == null) {
+                        return entry.getValue();
+                    }
+                    List<byte[]> result = new ArrayList<>(entry.getValue());
+                    result.addAll(keys);
+                    return result;
+                });
+            }
+            //compact again in next checkpoint
+            for (MessageQueue stateTopicQueue : compact.keySet()) {
+                lastCompaction.put(buildKey(stateTopicQueue), 0L);
+            }
+        }
+    }
+
+    @Override
+    public int dirtyNum() {
+        int result = super.calculatingNum();
+        for (List<byte[]> keys : this.tombstones.values()) {
+            result += keys.size();
+        }
+        return result;
+    }
+
+    @Override
+    public long dirtyBytes() {
+        long result = 0;
+        for (Long size : this.dirtyBytes.values()) {
+            result += size;
+        }
+        return result;
     }
 
     public void loadState(Set<MessageQueue> addQueues) throws Throwable {
@@ -231,7 +604,13 @@ public class RocketMQStore extends AbstractStore implements StateStore {
 
         consumer.assign(stateTopicQueue);
         for (MessageQueue queue : stateTopicQueue) {
-            consumer.seekToBegin(queue);
+            //只恢复最近一次压缩之后的数据
+            long replayFrom = replayFrom(queue);
+            if (replayFrom > 0) {
+                consumer.seek(queue, replayFrom);
+            } else {
+                consumer.seekToBegin(queue);
+            }
         }
 
         Future<?> future = this.executor.submit(() -> {
@@ -270,6 +649,9 @@ public class RocketMQStore extends AbstractStore implements StateStore {
                         this.rocksDBStore.deleteByKey(key);
                     }
                     super.removeAll(stateUniqueQueue);
+                    this.dirtyBytes.remove(stateUniqueQueue);
+                    this.lastCompaction.remove(stateUniqueQueue);
+                    this.tombstones.remove(stateUniqueQueue);
                 }
 
 
@@ -329,6 +711,7 @@ public class RocketMQStore extends AbstractStore implements StateStore {
         }
 
         Map<String/*brokerName@topic@queueId of state topic*/, List<MessageExt>> groupByQueueId = msgs.stream().parallel().collect(Collectors.groupingBy(this::buildKey));
+        List<byte[]> deleted = new ArrayList<>();
 
         for (String uniqueQueue : groupByQueueId.keySet()) {
             List<MessageExt> messageExts = groupByQueueId.get(uniqueQueue);
@@ -349,6 +732,11 @@ public class RocketMQStore extends AbstractStore implements StateStore {
 
                 String emptyBody = result.getUserProperty(Constant.EMPTY_BODY);
                 if (Constant.TRUE.equals(emptyBody)) {
+                    //早期版本的tombstone不带key，无法删除之前批次恢复的值
+                    byte[] deletedKey = result.getBody();
+                    if (deletedKey != null && deletedKey.length != 0 && !Arrays.equals(deletedKey, LEGACY_TOMBSTONE_BODY)) {
+                        deleted.add(deletedKey);
+                    }
                     continue;
                 }
 
@@ -370,24 +758,102 @@ public class RocketMQStore extends AbstractStore implements StateStore {
                 this.rocksDBStore.put(key, value);
             }
         }
+
+        //deleted by a later batch than the one it was recovered from
+        this.rocksDBStore.deleteByKeys(deleted);
+        for (byte[] key : deleted) {
+            super.removeAllKey(key);
+        }
     }
 
 
     private void createStateTopic(String stateTopic, boolean sourceTopicIsStaticTopic) throws Exception {
+        String sourceTopic = stateTopic2SourceTopic(stateTopic);
         if (RocketMQUtil.checkWhetherExist(stateTopic)) {
+            if (sourceTopicIsStaticTopic && KeyGroup.enabled()) {
+                expandQueueStateQueues(stateTopic, sourceTopic);
+            }
             return;
         }
 
-        String sourceTopic = stateTopic2SourceTopic(stateTopic);
         Pair<Integer, Set<String>> clustersPair = getTotalQueueNumAndClusters(sourceTopic);
 
         if (sourceTopicIsStaticTopic) {
-            RocketMQUtil.createStaticCompactTopic(mqAdmin, stateTopic, clustersPair.getKey(), clustersPair.getValue());
+            //a queue for each key group and then a queue for state of each queue of source topic, otherwise a queue for
+            //each queue of source topic
+            int queueNum = KeyGroup.enabled() ? KeyGroup.queueStateId(clustersPair.getKey()) : clustersPair.getKey();
+            RocketMQUtil.createStaticCompactTopic(mqAdmin, stateTopic, queueNum, clustersPair.getValue());
+            //source topic has been expanded
+            RocketMQUtil.expandStaticTopic(mqAdmin, stateTopic, queueNum, true);
+            if (KeyGroup.enabled()) {
+                expandQueueStateQueues(stateTopic, sourceTopic);
+            }
         } else {
             RocketMQUtil.createNormalTopic(mqAdmin, sourceTopic, stateTopic);
         }
     }
 
+    /**
+     * queues for state of the whole queue grow with source topic.
+     */
+    private void expandQueueStateQueues(String stateTopic, String sourceTopic) throws Exception {
+        int queueNum = KeyGroup.queueStateId(getSourceTopicQueueNum(sourceTopic));
+        if (this.stateTopicQueueNum.getOrDefault(stateTopic, 0) >= queueNum) {
+            return;
+        }
+        RocketMQUtil.expandStaticTopic(mqAdmin, stateTopic, queueNum, true);
+        this.stateTopicQueueNum.put(stateTopic, queueNum);
+    }
+
+    /**
+     * with key group, state of a queue of static source topic is in the queues of state topic whose queueId is in its key group range,
+     * and in the queue holding state of the whole queue.
+     */
+    @Override
+    protected Set<MessageQueue> convertSourceTopicQueue2StateTopicQueue(Set<MessageQueue> messageQueues) {
+        if (messageQueues == null || messageQueues.size() == 0 || !KeyGroup.enabled()) {
+            return super.convertSourceTopicQueue2StateTopicQueue(messageQueues);
+        }
+
+        HashSet<MessageQueue> result = new HashSet<>();
+        for (MessageQueue messageQueue : messageQueues) {
+            if (isKeyGroupQueue(messageQueue) && !messageQueue.getTopic().endsWith(Constant.STATE_TOPIC_SUFFIX)) {
+                result.addAll(keyGroupQueues(messageQueue));
+            } else {
+                result.addAll(super.convertSourceTopicQueue2StateTopicQueue(Collections.singleton(messageQueue)));
+            }
+        }
+        return result;
+    }
+
+    private boolean isKeyGroupQueue(MessageQueue messageQueue) {
+        return KeyGroup.enabled() && Constant.STATIC_TOPIC_BROKER_NAME.equals(messageQueue.getBrokerName());
+    }
+
+    private Set<MessageQueue> keyGroupQueues(MessageQueue sourceTopicQueue) {
+        return this.keyGroupQueues.computeIfAbsent(sourceTopicQueue, queue -> {
+            int queueNum = getSourceTopicQueueNum(queue.getTopic());
+            String stateTopic = queue.getTopic() + Constant.STATE_TOPIC_SUFFIX;
+
+            Set<MessageQueue> result = new HashSet<>();
+            for (int keyGroup = KeyGroup.start(queue.getQueueId(), queueNum); keyGroup < KeyGroup.end(queue.getQueueId(), queueNum); keyGroup++) {
+                result.add(new MessageQueue(stateTopic, queue.getBrokerName(), keyGroup));
+            }
+            result.add(new MessageQueue(stateTopic, queue.getBrokerName(), KeyGroup.queueStateId(queue.getQueueId())));
+            return Collections.unmodifiableSet(result);
+        });
+    }
+
+    private int getSourceTopicQueueNum(String sourceTopic) {
+        return this.sourceTopicQueueNum.computeIfAbsent(sourceTopic, topic -> {
+            try {
+                return RocketMQUtil.getQueueNum(mqAdmin, topic);
+            } catch (Exception e) {
+                throw new RStreamsException("get queue num of topic error, topic=" + topic, e);
+            }
+        });
+    }
+
     private Pair<Integer, Set<String>> getTotalQueueNumAndClusters(String sourceTopic) throws Exception {
         int queueNum = 0;
 
@@ -410,5 +876,10 @@ public class RocketMQStore extends AbstractStore implements StateStore {
     public void close() throws Exception {
         this.rocksDBStore.close();
         this.executor.shutdown();
+        synchronized (this) {
+            if (this.offsetConsumer != null) {
+                this.offsetConsumer.shutdown();
+            }
+        }
     }
 }
@@ -17,6 +17,7 @@ package org.apache.rocketmq.streams.core.state;
  */
 
 
+import com.google.common.primitives.UnsignedBytes;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.streams.core.common.Constant;
@@ -29,7 +30,9 @@ import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Snapshot;
 import org.rocksdb.TtlDB;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,22 +41,38 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class RocksDBStore extends AbstractStore implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(RocksDBStore.class);
 
     private static final String ROCKSDB_PATH = "/tmp/rocksdb";
+    //adjacent keys fewer than this are deleted one by one, range tombstone slows down reads more than point tombstone.
+    private static final int DELETE_RANGE_MIN_KEYS = 16;
+    //put holds the read lock, so no key is inserted while deleteByKeys checks adjacency and writes its range deletes.
+    private final ReadWriteLock rangeDeleteLock = new ReentrantReadWriteLock();
     private RocksDB rocksDB;
     private WriteOptions writeOptions;
     private ReadOptions readOptions;
     private File storeFile;
 
     public RocksDBStore(String path) {
-        createRocksDB(path);
+        this(path, 10800);
     }
 
-    private void createRocksDB(String path) {
+    /**
+     * @param ttl seconds, data never expires if ttl is not positive.
+     */
+    public RocksDBStore(String path, int ttl) {
+        createRocksDB(path, ttl);
+    }
+
+    private void createRocksDB(String path, int ttl) {
         try (final Options options = new Options().setCreateIfMissing(true)) {
 
             try {
@@ -69,7 +88,7 @@ public class RocksDBStore extends AbstractStore implements AutoCloseable {
                     throw new RuntimeException("before create rocksdb,mkdir path " + rocksdbFilePath + " error");
                 }
 
-                this.rocksDB = TtlDB.open(options, rocksdbFilePath, 10800, false);
+                this.rocksDB = TtlDB.open(options, rocksdbFilePath, ttl, false);
 
                 writeOptions = new WriteOptions();
                 writeOptions.setSync(false);
@@ -92,8 +111,29 @@ public class RocksDBStore extends AbstractStore implements AutoCloseable {
     }
 
 
+    public byte[] get(ReadOptions readOptions, byte[] key) throws RocksDBException {
+        return rocksDB.get(readOptions, key);
+    }
+
+    /**
+     * point in time view of db, it must be released by {@link #releaseSnapshot(Snapshot)}.
+     */
+    public Snapshot getSnapshot() {
+        return rocksDB.getSnapshot();
+    }
+
+    public void releaseSnapshot(Snapshot snapshot) {
+        rocksDB.releaseSnapshot(snapshot);
+    }
+
     public void put(byte[] key, byte[] value) throws RocksDBException {
-        rocksDB.put(writeOptions, key, value);
+        Lock lock = this.rangeDeleteLock.readLock();
+        lock.lock();
+        try {
+            rocksDB.put(writeOptions, key, value);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public List<Pair<byte[], byte[]>> searchStateLessThanWatermark(String name,
@@ -112,11 +152,21 @@ public class RocksDBStore extends AbstractStore implements AutoCloseable {
             byte[] valueBytes = rocksIterator.value();
             rocksIterator.next();
 
+            if (!startsWith(keyBytes, keyBytePrefix)) {
+                break;
+            }
+
             if (skipWatermarkKey(keyBytes)) {
                 continue;
             }
 
-            WindowKey windowKey = deserializer.convert(keyBytes);
+            WindowKey windowKey;
+            try {
+                windowKey = deserializer.convert(keyBytes);
+            } catch (Throwable t) {
+                //key written by other operator in other format, such as index of interval join.
+                continue;
+            }
             if (!windowKey.getOperatorName().equals(name)) {
                 continue;
             }
@@ -145,27 +195,125 @@ public class RocksDBStore extends AbstractStore implements AutoCloseable {
         while (rocksIterator.isValid()) {
             byte[] keyBytes = rocksIterator.key();
             byte[] valueBytes = rocksIterator.value();
+            rocksIterator.next();
 
             if (skipWatermarkKey(keyBytes)) {
                 continue;
             }
 
-            String storeKey = byte2String.convert(keyBytes);
+            String storeKey;
+            try {
+                storeKey = byte2String.convert(keyBytes);
+            } catch (Throwable t) {
+                //key written by other operator in other format.
+                continue;
+            }
+
             if (storeKey.startsWith(keyPrefix)) {
                 Pair<String, byte[]> pair = new Pair<>(storeKey, valueBytes);
                 temp.add(pair);
+            } else if (temp.size() != 0 || storeKey.compareTo(keyPrefix) > 0) {
+                //keys are sorted, keys with same prefix are adjacent.
+                break;
             }
-
-            rocksIterator.next();
         }
 
         return temp;
     }
 
+    public List<Pair<byte[], byte[]>> searchByKeyRange(byte[] from, byte[] to, int limit) {
+        List<Pair<byte[], byte[]>> result = new ArrayList<>();
+        Comparator<byte[]> comparator = UnsignedBytes.lexicographicalComparator();
+
+        try (ReadOptions options = new ReadOptions().setTotalOrderSeek(true);
+             RocksIterator iterator = rocksDB.newIterator(options)) {
+            iterator.seek(from);
+            while (iterator.isValid() && result.size() < limit && comparator.compare(iterator.key(), to) < 0) {
+                result.add(new Pair<>(iterator.key(), iterator.value()));
+                iterator.next();
+            }
+        }
+        return result;
+    }
+
     public void deleteByKey(byte[] key) throws RocksDBException {
         rocksDB.delete(key);
     }
 
+    /**
+     * delete keys in one write. Keys which are adjacent in db, such as windows of an operator fired together, are deleted
+     * by range. Puts wait until the write is done, a key inserted into the range after adjacency is checked would be
+     * deleted with it.
+     */
+    public void deleteByKeys(List<byte[]> keys) throws RocksDBException {
+        if (keys == null || keys.size() == 0) {
+            return;
+        }
+
+        Comparator<byte[]> comparator = UnsignedBytes.lexicographicalComparator();
+        List<byte[]> sorted = new ArrayList<>(keys);
+        sorted.sort(comparator);
+
+        Lock lock = this.rangeDeleteLock.writeLock();
+        lock.lock();
+        try (WriteBatch batch = new WriteBatch();
+             ReadOptions options = new ReadOptions().setTotalOrderSeek(true);
+             RocksIterator iterator = rocksDB.newIterator(options)) {
+
+            int i = 0;
+            while (i < sorted.size()) {
+                //keys[i, end) are adjacent in db when the iterator meets them one after another
+                int end = i + 1;
+                iterator.seek(sorted.get(i));
+                if (iterator.isValid() && Arrays.equals(iterator.key(), sorted.get(i))) {
+                    iterator.next();
+                    while (end < sorted.size() && iterator.isValid()) {
+                        int compare = comparator.compare(iterator.key(), sorted.get(end));
+                        if (compare == 0) {
+                            iterator.next();
+                            end++;
+                        } else if (compare > 0 && comparator.compare(sorted.get(end - 1), sorted.get(end)) == 0) {
+                            //duplicated key
+                            end++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+
+                if (end - i >= DELETE_RANGE_MIN_KEYS) {
+                    batch.deleteRange(sorted.get(i), successor(sorted.get(end - 1)));
+                } else {
+                    for (int j = i; j < end; j++) {
+                        batch.delete(sorted.get(j));
+                    }
+                }
+                i = end;
+            }
+
+            rocksDB.write(writeOptions, batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean startsWith(byte[] source, byte[] prefix) {
+        if (source.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (source[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //the smallest key greater than source
+    private static byte[] successor(byte[] source) {
+        return Arrays.copyOf(source, source.length + 1);
+    }
+
     public void close() throws Exception {
         this.rocksDB.close();
         if (this.storeFile != null && storeFile.exists()) {
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.state;
+
+/**
+ * state changed since last snapshot, taken by worker thread at record boundary and persisted by another thread while
+ * worker goes on processing.
+ */
+public interface StateSnapshot {
+    /**
+     * send the state in snapshot to state topic, called by checkpoint thread.
+     */
+    void persist() throws Throwable;
+
+    /**
+     * free resources of snapshot, called by checkpoint thread after persist whether it succeeds or not.
+     */
+    void release();
+
+    /**
+     * persist failed, state in snapshot is persisted again in next snapshot. Called by worker thread.
+     */
+    void abort();
+}
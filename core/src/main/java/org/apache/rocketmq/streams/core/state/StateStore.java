@@ -41,12 +41,60 @@ public interface StateStore extends AutoCloseable {
 
     void put(MessageQueue stateTopicMessageQueue, byte[] key, byte[] value) throws Throwable;
 
+    //keyGroup of the key which state belongs to, state of a key group is moved together when shuffle topic is rescaled.
+    default void put(MessageQueue stateTopicMessageQueue, int keyGroup, byte[] key, byte[] value) throws Throwable {
+        put(stateTopicMessageQueue, key, value);
+    }
+
     List<Pair<byte[], byte[]>> searchStateLessThanWatermark(String operatorName, long lessThanThisTime, ValueMapperAction<byte[], WindowKey> deserializer) throws Throwable;
 
 
     List<Pair<String, byte[]>> searchByKeyPrefix(String keyPrefix, ValueMapperAction<String, byte[]> string2Bytes, ValueMapperAction<byte[], String> byte2String) throws Throwable;
 
+    //keys in [from, to) in byte order, at most limit pairs.
+    List<Pair<byte[], byte[]>> searchByKeyRange(byte[] from, byte[] to, int limit) throws Throwable;
+
     void delete(byte[] key) throws Throwable;
 
+    //delete keys together, such as windows fired by one watermark.
+    default void delete(List<byte[]> keys) throws Throwable {
+        for (byte[] key : keys) {
+            delete(key);
+        }
+    }
+
     void persist(Set<MessageQueue> messageQueue) throws Throwable;
+
+    /**
+     * take state of messageQueues changed since last snapshot, called by worker thread.
+     * Store without point in time view persists the latest state instead.
+     *
+     * @param messageQueue messageQueue of source topic.
+     */
+    default StateSnapshot snapshot(Set<MessageQueue> messageQueue) throws Throwable {
+        return new StateSnapshot() {
+            @Override
+            public void persist() throws Throwable {
+                StateStore.this.persist(messageQueue);
+            }
+
+            @Override
+            public void release() {
+            }
+
+            @Override
+            public void abort() {
+            }
+        };
+    }
+
+    //num of keys changed but not persisted yet.
+    default int dirtyNum() {
+        return 0;
+    }
+
+    //approximate size of keys and values changed but not persisted yet.
+    default long dirtyBytes() {
+        return 0;
+    }
 }
@@ -16,6 +16,9 @@ package org.apache.rocketmq.streams.core.topology;
  * limitations under the License.
  */
 
+import org.apache.rocketmq.client.consumer.MessageSelector;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
 import org.apache.rocketmq.streams.core.topology.real.ProcessorFactory;
 import org.apache.rocketmq.streams.core.topology.real.RealProcessorFactory;
@@ -27,6 +30,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -41,6 +46,10 @@ public class TopologyBuilder {
 
     private final HashMap<String/*source name*/, List<String/*subsequent processor without source*/>> source2Group = new HashMap<>();
 
+    private final HashMap<String/*shuffle topic*/, Integer/*queue num*/> shuffleTopic2QueueNum = new HashMap<>();
+
+    private final HashMap<String/*source topic*/, MessageSelector> topic2Selector = new HashMap<>();
+
     public TopologyBuilder(String jobId) {
         this.jobId = jobId;
     }
@@ -93,6 +102,54 @@ public class TopologyBuilder {
         return Collections.unmodifiableSet(this.topic2SourceNodeFactory.keySet());
     }
 
+    /**
+     * call it before the source is added, sources of the same topic share one subscription, so they must have the same
+     * selector. Null selector subscribes all messages.
+     */
+    public void setSourceSelector(String topicName, MessageSelector selector) {
+        if (this.topic2SourceNodeFactory.containsKey(topicName)) {
+            MessageSelector existing = this.topic2Selector.get(topicName);
+            if (!sameSelector(existing, selector)) {
+                throw new IllegalArgumentException(String.format("sources of topic [%s] have different selectors: [%s] and [%s]",
+                        topicName, describe(existing), describe(selector)));
+            }
+            return;
+        }
+        if (selector != null) {
+            this.topic2Selector.put(topicName, selector);
+        }
+    }
+
+    private static boolean sameSelector(MessageSelector one, MessageSelector other) {
+        if (one == null || other == null) {
+            return one == other;
+        }
+        return Objects.equals(one.getExpressionType(), other.getExpressionType())
+                && Objects.equals(one.getExpression(), other.getExpression());
+    }
+
+    private static String describe(MessageSelector selector) {
+        return selector == null ? "all" : selector.getExpressionType() + ": " + selector.getExpression();
+    }
+
+    /**
+     * @return selectors of source topics which are filtered by broker.
+     */
+    public Map<String, MessageSelector> getSourceSelectors() {
+        return Collections.unmodifiableMap(this.topic2Selector);
+    }
+
+    public void setShuffleQueueNum(String shuffleTopic, int queueNum) {
+        this.shuffleTopic2QueueNum.put(shuffleTopic, queueNum);
+    }
+
+    /**
+     * @return queue num set on operator, null if not set.
+     */
+    public Integer getShuffleQueueNum(String shuffleTopic) {
+        return this.shuffleTopic2QueueNum.get(shuffleTopic);
+    }
+
 
 
     @SuppressWarnings("unchecked")
@@ -106,16 +163,51 @@ public class TopologyBuilder {
         List<String> groupNames = source2Group.get(sourceName);
 
         Processor<T> parent = sourceProcessor;
+        //连续的无状态算子合并为一个processor
+        List<RealProcessorFactory<T>> chain = new ArrayList<>();
         for (String child : groupNames) {
             RealProcessorFactory<T> childProcessorFactory = (RealProcessorFactory<T>) realNodeFactory.get(child);
+            if (StreamConfig.OPERATOR_CHAINING && chainable(childProcessorFactory)) {
+                chain.add(childProcessorFactory);
+                continue;
+            }
+
+            parent = addChain(parent, chain);
+
             Processor<T> childProcessor = childProcessorFactory.build();
             parent.addChild(childProcessor);
             parent = childProcessor;
         }
+        addChain(parent, chain);
 
         return sourceProcessor;
     }
 
+    private <T> boolean chainable(RealProcessorFactory<T> factory) {
+        return factory instanceof ProcessorFactory && ((ProcessorFactory<T>) factory).step() != null;
+    }
+
+    private <T> Processor<T> addChain(Processor<T> parent, List<RealProcessorFactory<T>> chain) {
+        if (chain.size() == 0) {
+            return parent;
+        }
+
+        Processor<T> processor;
+        if (chain.size() == 1) {
+            processor = chain.get(0).build();
+        } else {
+            List<ChainedProcessor.Step> steps = new ArrayList<>();
+            for (RealProcessorFactory<T> factory : chain) {
+                steps.add(((ProcessorFactory<T>) factory).step());
+            }
+            processor = new ChainedProcessor<>(steps);
+        }
+        chain.clear();
+
+        parent.addChild(processor);
+        return processor;
+    }
+
     public String getJobId() {
         return jobId;
     }
@@ -17,6 +17,8 @@ package org.apache.rocketmq.streams.core.topology.real;
  */
 
 
+import org.apache.rocketmq.streams.core.running.ChainableSupplier;
+import org.apache.rocketmq.streams.core.running.ChainedProcessor;
 import org.apache.rocketmq.streams.core.running.Processor;
 
 import java.util.ArrayList;
@@ -42,4 +44,14 @@ public class ProcessorFactory<T> implements RealProcessorFactory<T> {
         return supplier.get();
     }
 
+    /**
+     * @return step of stateless operator which can be fused into {@link ChainedProcessor}, null if it can not.
+     */
+    public ChainedProcessor.Step step() {
+        if (supplier instanceof ChainableSupplier) {
+            return ((ChainableSupplier) supplier).step();
+        }
+        return null;
+    }
+
 }
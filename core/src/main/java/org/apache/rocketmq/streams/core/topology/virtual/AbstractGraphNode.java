@@ -16,6 +16,7 @@ package org.apache.rocketmq.streams.core.topology.virtual;
  * limitations under the License.
  */
 
+import org.apache.rocketmq.streams.core.function.SelectAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +32,11 @@ public abstract class AbstractGraphNode implements GraphNode {
     private final List<GraphNode> children = new ArrayList<>();
 
     protected String name;
+    private SelectAction<?, ?> partitionKeySelector;
+    private SelectAction<?, ?> keySelector;
+    private boolean partitionedByKey = false;
+    private boolean keepPartition = false;
+    private int shuffleQueueNum;
 
 
     public AbstractGraphNode(String name) {
@@ -73,8 +79,88 @@ public abstract class AbstractGraphNode implements GraphNode {
         return Collections.unmodifiableList(this.parents);
     }
 
+    @Override
+    public void removeChild(GraphNode graphNode) {
+        this.children.remove(graphNode);
+    }
+
+    @Override
+    public void removeParent(GraphNode graphNode) {
+        this.parents.remove(graphNode);
+    }
+
+    @Override
+    public void replaceChild(GraphNode oldChild, GraphNode newChild) {
+        int index = this.children.indexOf(oldChild);
+        if (index != -1) {
+            this.children.set(index, newChild);
+        } else {
+            this.children.add(newChild);
+        }
+    }
+
+    @Override
+    public void replaceParent(GraphNode oldParent, GraphNode newParent) {
+        int index = this.parents.indexOf(oldParent);
+        if (index != -1) {
+            this.parents.set(index, newParent);
+        } else {
+            this.parents.add(newParent);
+        }
+    }
+
     @Override
     public boolean shuffleNode() {
         return false;
     }
+
+    @Override
+    public SelectAction<?, ?> getPartitionKeySelector() {
+        return partitionKeySelector;
+    }
+
+    @Override
+    public void setPartitionKeySelector(SelectAction<?, ?> partitionKeySelector) {
+        this.partitionKeySelector = partitionKeySelector;
+    }
+
+    @Override
+    public SelectAction<?, ?> getKeySelector() {
+        return keySelector;
+    }
+
+    @Override
+    public void setKeySelector(SelectAction<?, ?> keySelector) {
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    public boolean isPartitionedByKey() {
+        return this.partitionedByKey || (this.keySelector != null && this.keySelector == this.partitionKeySelector);
+    }
+
+    @Override
+    public void setPartitionedByKey(boolean partitionedByKey) {
+        this.partitionedByKey = partitionedByKey;
+    }
+
+    @Override
+    public boolean keepPartition() {
+        return keepPartition;
+    }
+
+    @Override
+    public void setKeepPartition(boolean keepPartition) {
+        this.keepPartition = keepPartition;
+    }
+
+    @Override
+    public int getShuffleQueueNum() {
+        return shuffleQueueNum;
+    }
+
+    @Override
+    public void setShuffleQueueNum(int shuffleQueueNum) {
+        this.shuffleQueueNum = shuffleQueueNum;
+    }
 }
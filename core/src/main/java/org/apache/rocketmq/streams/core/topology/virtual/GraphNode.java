@@ -16,6 +16,7 @@ package org.apache.rocketmq.streams.core.topology.virtual;
  * limitations under the License.
  */
 
+import org.apache.rocketmq.streams.core.function.SelectAction;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
 
 import java.util.List;
@@ -32,8 +33,57 @@ public interface GraphNode {
 
     List<GraphNode> getAllParent();
 
+    void removeChild(GraphNode graphNode);
+
+    void removeParent(GraphNode graphNode);
+
+    //keep the position of child
+    void replaceChild(GraphNode oldChild, GraphNode newChild);
+
+    void replaceParent(GraphNode oldParent, GraphNode newParent);
+
     boolean shuffleNode();
 
+    /**
+     * @return key selector which the output data of this node is partitioned by, null if unknown.
+     */
+    SelectAction<?, ?> getPartitionKeySelector();
+
+    void setPartitionKeySelector(SelectAction<?, ?> keySelector);
+
+    /**
+     * @return key selector of keyBy node, null for other nodes.
+     */
+    SelectAction<?, ?> getKeySelector();
+
+    void setKeySelector(SelectAction<?, ?> keySelector);
+
+    /**
+     * @return true if this is a keyBy node and its input is already partitioned by the same key selector, then shuffle is not needed.
+     */
+    boolean isPartitionedByKey();
+
+    /**
+     * the shuffle of keyBy is skipped for this node and the nodes after it, set on stateless node which keeps the shuffle
+     * pending but changes value, so the partition of its output is unknown.
+     */
+    void setPartitionedByKey(boolean partitionedByKey);
+
+    /**
+     * @return true if the output value of this node is one of its input values, such as filter, then the output keeps the
+     * partition of input. Other nodes clear the partition.
+     */
+    boolean keepPartition();
+
+    void setKeepPartition(boolean keepPartition);
+
+    /**
+     * @return queue num of shuffle topic after this node, 0 if not set.
+     */
+    int getShuffleQueueNum();
+
+    void setShuffleQueueNum(int shuffleQueueNum);
+
 
     void addRealNode(TopologyBuilder builder);
 
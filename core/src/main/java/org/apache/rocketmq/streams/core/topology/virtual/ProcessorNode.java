@@ -24,7 +24,7 @@ import java.util.List;
 import java.util.function.Supplier;
 
 public class ProcessorNode<T> extends AbstractGraphNode {
-    protected final Supplier<Processor<T>> supplier;
+    protected Supplier<Processor<T>> supplier;
     protected final List<String> parentNames;
     protected boolean shuffle = false;
 
@@ -62,6 +62,23 @@ public class ProcessorNode<T> extends AbstractGraphNode {
         return this.shuffle;
     }
 
+    public Supplier<Processor<T>> getSupplier() {
+        return supplier;
+    }
+
+    public void setSupplier(Supplier<Processor<T>> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public void replaceParent(GraphNode oldParent, GraphNode newParent) {
+        super.replaceParent(oldParent, newParent);
+        int index = this.parentNames.indexOf(oldParent.getName());
+        if (index != -1) {
+            this.parentNames.set(index, newParent.getName());
+        }
+    }
+
 
     @Override
     public void addRealNode(TopologyBuilder builder) {
@@ -21,8 +21,8 @@ import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.function.supplier.SinkSupplier;
 import org.apache.rocketmq.streams.core.function.supplier.SourceSupplier;
 import org.apache.rocketmq.streams.core.running.Processor;
-import org.apache.rocketmq.streams.core.serialization.deImpl.KVJsonDeserializer;
-import org.apache.rocketmq.streams.core.serialization.serImpl.KVJsonSerializer;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.apache.rocketmq.streams.core.serialization.ShuffleSerde;
 import org.apache.rocketmq.streams.core.topology.TopologyBuilder;
 import java.util.function.Supplier;
 
@@ -41,12 +41,17 @@ public class ShuffleProcessorNode<T> extends ProcessorNode<T> {
         String topicName = name + Constant.SHUFFLE_TOPIC_SUFFIX;
         //join的时候需要一个相同的topicName
 
+        ShuffleSerde serde = ShuffleSerde.of(StreamConfig.SHUFFLE_SERDE);
+
         String shuffleSinkName = OperatorNameMaker.makeName(SHUFFLE_SINK_PREFIX, builder.getJobId());
         for (String parentName : parentNames) {
-            builder.addRealSink(shuffleSinkName, parentName, topicName, new SinkSupplier<>(topicName, new KVJsonSerializer<>()));
+            builder.addRealSink(shuffleSinkName, parentName, topicName, new SinkSupplier<>(topicName, serde.serializer()));
         }
         String shuffleSourceName = OperatorNameMaker.makeName(SHUFFLE_SOURCE_PREFIX, builder.getJobId());
-        builder.addRealSource(shuffleSourceName, topicName, new SourceSupplier<>(topicName, new KVJsonDeserializer<>()));
+        builder.addRealSource(shuffleSourceName, topicName, new SourceSupplier<>(topicName, serde.deserializer()));
+        if (getShuffleQueueNum() > 0) {
+            builder.setShuffleQueueNum(topicName, getShuffleQueueNum());
+        }
 
         builder.addRealNode(name, shuffleSourceName, supplier);
     }
@@ -24,7 +24,7 @@ import java.util.function.Supplier;
 public class SinkGraphNode<T> extends AbstractGraphNode {
     private final Supplier<Processor<T>> supplier;
     private final String topicName;
-    private final String parentName;
+    private String parentName;
 
     public SinkGraphNode(String name, String parentName, String topicName, Supplier<Processor<T>> supplier) {
         super(name);
@@ -39,6 +39,18 @@ public class SinkGraphNode<T> extends AbstractGraphNode {
         builder.addRealSink(name, parentName, topicName, supplier);
     }
 
+    public String getTopicName() {
+        return topicName;
+    }
+
+    @Override
+    public void replaceParent(GraphNode oldParent, GraphNode newParent) {
+        super.replaceParent(oldParent, newParent);
+        if (oldParent.getName().equals(this.parentName)) {
+            this.parentName = newParent.getName();
+        }
+    }
+
     @Override
     public String toString() {
         return "SinkGraphNode{" + "name=[" + name + "]}";
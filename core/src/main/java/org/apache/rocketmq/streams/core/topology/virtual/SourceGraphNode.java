@@ -16,6 +16,7 @@ package org.apache.rocketmq.streams.core.topology.virtual;
  * limitations under the License.
  */
 
+import org.apache.rocketmq.client.consumer.MessageSelector;
 import org.apache.rocketmq.streams.core.function.supplier.SourceSupplier;
 import org.apache.rocketmq.streams.core.running.Processor;
 import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
@@ -26,19 +27,34 @@ import java.util.function.Supplier;
 public class SourceGraphNode<T> extends AbstractGraphNode {
     private Supplier<Processor<T>> supplier;
     private String topicName;
+    private MessageSelector selector;
 
 
     public SourceGraphNode(String name, String topicName, KeyValueDeserializer<Void, T> deserializer) {
+        this(name, topicName, deserializer, null);
+    }
+
+    public SourceGraphNode(String name, String topicName, KeyValueDeserializer<Void, T> deserializer, MessageSelector selector) {
         super(name);
         this.topicName = topicName;
+        this.selector = selector;
         this.supplier = new SourceSupplier<>(topicName, deserializer);
     }
 
     @Override
     public void addRealNode(TopologyBuilder builder) {
+        builder.setSourceSelector(topicName, selector);
         builder.addRealSource(name, topicName, supplier);
     }
 
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public MessageSelector getSelector() {
+        return selector;
+    }
+
     @Override
     public String toString() {
         return "SourceGraphNode{" + "name=[" + name + "]}";
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * shared json codec, ObjectReader/ObjectWriter of every class and classes resolved by name are cached.
+ * <p>
+ * ObjectReader and ObjectWriter are immutable and thread safe, output buffer is reused by the same thread.
+ */
+public class CodecCache {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, byte[]> classNames = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ByteArrayBuilder> outputs = ThreadLocal.withInitial(() -> new ByteArrayBuilder(256));
+
+    //output buffer larger than this is not kept by thread
+    private static final int MAX_POOLED_OUTPUT_SIZE = 64 * 1024;
+
+    static {
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
+                .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
+                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+    }
+
+    public static ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public static ObjectReader readerFor(Class<?> clazz) {
+        ObjectReader reader = readers.get(clazz);
+        if (reader == null) {
+            reader = objectMapper.readerFor(clazz);
+            readers.putIfAbsent(clazz, reader);
+        }
+        return reader;
+    }
+
+    public static ObjectWriter writerFor(Class<?> clazz) {
+        ObjectWriter writer = writers.get(clazz);
+        if (writer == null) {
+            writer = objectMapper.writerFor(clazz);
+            writers.putIfAbsent(clazz, writer);
+        }
+        return writer;
+    }
+
+    public static Class<?> classForName(String className) throws ClassNotFoundException {
+        Class<?> clazz = classes.get(className);
+        if (clazz == null) {
+            clazz = Class.forName(className);
+            classes.putIfAbsent(className, clazz);
+        }
+        return clazz;
+    }
+
+    /**
+     * utf-8 bytes of class name, the result must not be modified.
+     */
+    public static byte[] classNameBytes(Class<?> clazz) {
+        byte[] bytes = classNames.get(clazz);
+        if (bytes == null) {
+            bytes = clazz.getName().getBytes(StandardCharsets.UTF_8);
+            classNames.putIfAbsent(clazz, bytes);
+        }
+        return bytes;
+    }
+
+    public static byte[] writeValueAsBytes(Object value) throws IOException {
+        ObjectWriter writer = writerFor(value.getClass());
+
+        ByteArrayBuilder output = outputs.get();
+        //serializer of user may call this method again
+        outputs.remove();
+        try {
+            writer.writeValue(output, value);
+            return output.toByteArray();
+        } finally {
+            if (output.size() <= MAX_POOLED_OUTPUT_SIZE) {
+                output.reset();
+                outputs.set(output);
+            }
+        }
+    }
+
+    public static <T> T readValue(byte[] bytes, Class<T> clazz) throws IOException {
+        return readerFor(clazz).readValue(bytes);
+    }
+
+    public static <T> T readValue(byte[] bytes, int offset, int length, Class<T> clazz) throws IOException {
+        return readerFor(clazz).readValue(bytes, offset, length);
+    }
+}
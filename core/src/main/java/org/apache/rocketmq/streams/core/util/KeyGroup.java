@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.util;
+
+import org.apache.rocketmq.client.producer.MessageQueueSelector;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+import java.util.List;
+
+/**
+ * keys are hashed into {@link StreamConfig#KEY_GROUP_NUM} key groups, and continuous ranges of key groups are assigned to
+ * queues of shuffle topic. Key group of a key never changes, so state of a key group is moved as a whole when queue num of
+ * shuffle topic changes.
+ */
+public class KeyGroup {
+    //state which belongs to the whole queue, not to a key.
+    public static final int NONE = -1;
+
+    public static boolean enabled() {
+        return StreamConfig.KEY_GROUP_NUM > 0;
+    }
+
+    /**
+     * @param hexKey the key used to route data into shuffle topic.
+     */
+    public static int of(String hexKey) {
+        if (hexKey == null) {
+            return NONE;
+        }
+        return Math.floorMod(hexKey.hashCode(), StreamConfig.KEY_GROUP_NUM);
+    }
+
+    public static int queueOf(int keyGroup, int queueNum) {
+        return (int) ((long) keyGroup * queueNum / StreamConfig.KEY_GROUP_NUM);
+    }
+
+    /**
+     * @return first key group assigned to queue, inclusive.
+     */
+    public static int start(int queueId, int queueNum) {
+        return (int) (((long) queueId * StreamConfig.KEY_GROUP_NUM + queueNum - 1) / queueNum);
+    }
+
+    /**
+     * @return last key group assigned to queue, exclusive.
+     */
+    public static int end(int queueId, int queueNum) {
+        return start(queueId + 1, queueNum);
+    }
+
+    /**
+     * state which belongs to the whole queue is not in any key group, it is kept in the queue of state topic after the
+     * queues of key groups, and moves with the queue when queue num changes.
+     *
+     * @return queueId of state topic holding state of the whole queue.
+     */
+    public static int queueStateId(int queueId) {
+        return StreamConfig.KEY_GROUP_NUM + queueId;
+    }
+
+    /**
+     * route data into the queue which its key group is assigned to, arg is hex key.
+     */
+    public static class QueueSelector implements MessageQueueSelector {
+        @Override
+        public MessageQueue select(List<MessageQueue> mqs, Message msg, Object arg) {
+            int keyGroup = of((String) arg);
+            return mqs.get(queueOf(keyGroup, mqs.size()));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+/**
+ * hash of the serialized key, the hex string is used to route data into queue and to build state key.
+ * <p>
+ * Both the queue of a key and its state depend on the hash, so the hasher of a job must not be changed once it has state.
+ * md5 is kept for the jobs created before murmur3 is available.
+ */
+public interface KeyHasher {
+    String MD5 = "md5";
+    String MURMUR3 = "murmur3";
+
+    String name();
+
+    String hashHex(byte[] bytes);
+
+    /**
+     * @return hasher selected by {@link StreamConfig#KEY_HASHER}.
+     */
+    static KeyHasher current() {
+        return of(StreamConfig.KEY_HASHER);
+    }
+
+    static KeyHasher of(String name) {
+        if (name == null || MD5.equals(name)) {
+            return Md5.INSTANCE;
+        }
+        if (MURMUR3.equals(name)) {
+            return Murmur3.INSTANCE;
+        }
+        throw new RStreamsException("unknown key hasher: " + name);
+    }
+
+    class Md5 implements KeyHasher {
+        static final Md5 INSTANCE = new Md5();
+
+        @Override
+        public String name() {
+            return MD5;
+        }
+
+        @Override
+        public String hashHex(byte[] bytes) {
+            return DigestUtils.md5Hex(bytes);
+        }
+    }
+
+    /**
+     * MurmurHash3 x64 128 bits with seed 0, the result is the same as the reference implementation, so it does not change
+     * with versions of any library.
+     */
+    class Murmur3 implements KeyHasher {
+        static final Murmur3 INSTANCE = new Murmur3();
+
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        @Override
+        public String name() {
+            return MURMUR3;
+        }
+
+        @Override
+        public String hashHex(byte[] bytes) {
+            long[] hash = hash128(bytes);
+            char[] result = new char[32];
+            writeHex(result, 0, hash[0]);
+            writeHex(result, 16, hash[1]);
+            return new String(result);
+        }
+
+        public static long[] hash128(byte[] data) {
+            int length = data.length;
+            int blocks = length >> 4;
+            long h1 = 0;
+            long h2 = 0;
+
+            for (int i = 0; i < blocks; i++) {
+                long k1 = getLongLittleEndian(data, i << 4);
+                long k2 = getLongLittleEndian(data, (i << 4) + 8);
+
+                h1 ^= mixK1(k1);
+                h1 = Long.rotateLeft(h1, 27);
+                h1 += h2;
+                h1 = h1 * 5 + 0x52dce729;
+
+                h2 ^= mixK2(k2);
+                h2 = Long.rotateLeft(h2, 31);
+                h2 += h1;
+                h2 = h2 * 5 + 0x38495ab5;
+            }
+
+            int tail = blocks << 4;
+            long k1 = 0;
+            long k2 = 0;
+            switch (length & 15) {
+                case 15:
+                    k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+                case 14:
+                    k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+                case 13:
+                    k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+                case 12:
+                    k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+                case 11:
+                    k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+                case 10:
+                    k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+                case 9:
+                    k2 ^= data[tail + 8] & 0xff;
+                    h2 ^= mixK2(k2);
+                case 8:
+                    k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+                case 7:
+                    k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+                case 6:
+                    k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+                case 5:
+                    k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+                case 4:
+                    k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+                case 3:
+                    k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+                case 2:
+                    k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+                case 1:
+                    k1 ^= data[tail] & 0xff;
+                    h1 ^= mixK1(k1);
+                default:
+                    break;
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+
+            return new long[]{h1, h2};
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private static long getLongLittleEndian(byte[] data, int index) {
+            return (data[index] & 0xffL)
+                    | (data[index + 1] & 0xffL) << 8
+                    | (data[index + 2] & 0xffL) << 16
+                    | (data[index + 3] & 0xffL) << 24
+                    | (data[index + 4] & 0xffL) << 32
+                    | (data[index + 5] & 0xffL) << 40
+                    | (data[index + 6] & 0xffL) << 48
+                    | (data[index + 7] & 0xffL) << 56;
+        }
+
+        //little endian bytes, the same as the byte order of the reference implementation
+        private static void writeHex(char[] result, int offset, long value) {
+            for (int i = 0; i < 8; i++) {
+                int b = (int) (value >>> (i << 3)) & 0xff;
+                result[offset + (i << 1)] = HEX[b >>> 4];
+                result[offset + (i << 1) + 1] = HEX[b & 0xf];
+            }
+        }
+    }
+}
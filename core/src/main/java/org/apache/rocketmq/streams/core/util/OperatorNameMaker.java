@@ -25,6 +25,7 @@ public class OperatorNameMaker {
     public static final String PRINT_PREFIX = "ROCKETMQ-PRINT";
     public static final String SHUFFLE_SINK_PREFIX = "ROCKETMQ-SHUFFLE-SINK";
     public static final String MAP_PREFIX = "ROCKETMQ-MAP";
+    public static final String MAP_ASYNC_PREFIX = "ROCKETMQ-MAP-ASYNC";
     public static final String FLAT_MAP_PREFIX = "ROCKETMQ-FLATMAP";
     public static final String FILTER_PREFIX = "ROCKETMQ-FILTER";
     public static final String GROUPBY_PREFIX = "ROCKETMQ-GROUPBY";
@@ -40,6 +41,8 @@ public class OperatorNameMaker {
     public static final String ACCUMULATE_PREFIX = "ROCKETMQ-ACCUMULATE";
     public static final String JOIN_WINDOW_PREFIX = "JOIN-WINDOW";
     public static final String JOIN_PREFIX = "JOIN";
+    public static final String INTERVAL_JOIN_PREFIX = "INTERVAL-JOIN";
+    public static final String LOOKUP_JOIN_PREFIX = "LOOKUP-JOIN";
 
     public static final String pattern = "%s-%s-%s";
 
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.util;
+
+import org.apache.rocketmq.streams.core.common.Constant;
+
+/**
+ * id of data stored by join, derived from source queue and offset of the record. It is unique among all instances of a
+ * job, and the same when the record is processed again after restart, so the data is overwritten by itself only.
+ * Data forwarded from one record, e.g. by flatMap, is numbered in order. The id contains no {@link Constant#SPLIT}.
+ */
+public class RecordIdGenerator {
+    private int lastQueueId = -1;
+    private long lastOffset = -1;
+    private int sequence;
+
+    public String next(int queueId, long offset) {
+        if (queueId != lastQueueId || offset != lastOffset) {
+            lastQueueId = queueId;
+            lastOffset = offset;
+            sequence = 0;
+        }
+        return String.format("%d_%019d_%d", queueId, offset, sequence++);
+    }
+}
@@ -158,6 +158,48 @@ public class RocketMQUtil {
         existTopic.add(topicName);
     }
 
+    /**
+     * expand static topic if it has less queues than queueNum, data in the existing queues is not moved.
+     *
+     * @return true if topic is expanded.
+     */
+    public static synchronized boolean expandStaticTopic(DefaultMQAdminExt mqAdmin, String topicName, int queueNum, boolean compact) throws Exception {
+        int current = getQueueNum(mqAdmin, topicName);
+        if (current <= 0 || current >= queueNum) {
+            return false;
+        }
+
+        Set<String> clusters = getCluster(mqAdmin);
+        for (String cluster : clusters) {
+            createStaticTopicWithCommand(topicName, queueNum, new HashSet<>(), cluster, mqAdmin.getNamesrvAddr());
+            if (compact) {
+                update2CompactTopicWithCommand(topicName, queueNum, cluster, mqAdmin.getNamesrvAddr());
+            }
+        }
+        logger.info("expand static topic:[{}] from {} to {} queues.", topicName, current, queueNum);
+        return true;
+    }
+
+    /**
+     * @return total read queue num of topic, 0 if topic does not exist.
+     */
+    public static int getQueueNum(DefaultMQAdminExt mqAdmin, String topicName) throws Exception {
+        TopicRouteData topicRouteData;
+        try {
+            topicRouteData = mqAdmin.examineTopicRouteInfo(topicName);
+        } catch (MQClientException exception) {
+            if (exception.getResponseCode() == ResponseCode.TOPIC_NOT_EXIST) {
+                return 0;
+            }
+            throw exception;
+        }
+
+        int queueNum = 0;
+        for (QueueData data : topicRouteData.getQueueDatas()) {
+            queueNum += data.getReadQueueNums();
+        }
+        return queueNum;
+    }
 
     private static void createStaticTopicWithCommand(String topic, int totalQueueNum, Set<String> brokers, String cluster, String nameservers) throws Exception {
         UpdateStaticTopicSubCommand cmd = new UpdateStaticTopicSubCommand();
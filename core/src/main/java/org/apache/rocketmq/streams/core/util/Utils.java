@@ -17,12 +17,8 @@
 package org.apache.rocketmq.streams.core.util;
 
 
-import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.streams.core.common.Constant;
@@ -36,18 +32,8 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 public class Utils {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
     public static final String pattern = "%s@%s@%s";
 
-    static {
-        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-                .disable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
-                .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
-                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
-                .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
-                .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
-    }
-
     public static String buildKey(String brokerName, String topic, int queueId) {
         return String.format(pattern, brokerName, topic, queueId);
     }
@@ -90,7 +76,13 @@ public class Utils {
             return new byte[]{};
         }
 
-        return objectMapper.writeValueAsBytes(target);
+        try {
+            return CodecCache.writeValueAsBytes(target);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RStreamsException("serialize object error, object=" + target, e);
+        }
     }
 
 
@@ -99,7 +91,7 @@ public class Utils {
             return null;
         }
 
-        return objectMapper.readValue(source, clazz);
+        return CodecCache.readValue(source, clazz);
     }
 
     public static SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -109,17 +101,21 @@ public class Utils {
         return df.format(date);
     }
 
+    /**
+     * hash of key for routing, by {@link KeyHasher#current()}.
+     */
     public static String toHexString(Object obj) {
         try {
+            KeyHasher hasher = KeyHasher.current();
             if (obj instanceof byte[]) {
-                return DigestUtils.md5Hex((byte[]) obj);
+                return hasher.hashHex((byte[]) obj);
             } else if (obj instanceof String) {
-                return DigestUtils.md5Hex((String) obj);
+                return hasher.hashHex(((String) obj).getBytes(StandardCharsets.UTF_8));
             } else if (obj instanceof InputStream) {
-                return DigestUtils.md5Hex((InputStream) obj);
+                return hasher.hashHex(IOUtils.toByteArray((InputStream) obj));
             } else {
                 byte[] bytes = object2Byte(obj);
-                return DigestUtils.md5Hex(bytes);
+                return hasher.hashHex(bytes);
             }
         } catch (Throwable t) {
             throw new RStreamsException("object to HexString error, object=" + obj, t);
@@ -127,6 +123,51 @@ public class Utils {
 
     }
 
+    /**
+     * string used in state key, String is used as it is, md5 hashes the class name and the json of key, murmur3 reuses
+     * the hash for routing so a key is hashed once.
+     */
+    public static String toStateHexString(Object obj) throws JsonProcessingException {
+        if (obj == null) {
+            return null;
+        }
+        if (obj instanceof String) {
+            return (String) obj;
+        }
+
+        KeyHasher hasher = KeyHasher.current();
+        if (KeyHasher.MD5.equals(hasher.name())) {
+            return hasher.hashHex(object2ByteWithClassName(obj));
+        }
+        return toHexString(obj);
+    }
+
+    /**
+     * <pre>
+     * +-----------+---------------+-------------+-------------+
+     * | Int(4)    |   className  | Int(4)       | value bytes |
+     * | classname |              |object length |             |
+     * +-----------+--------------+---------------+-------------+
+     * </pre>
+     */
+    public static byte[] object2ByteWithClassName(Object obj) throws JsonProcessingException {
+        if (obj == null) {
+            return new byte[]{};
+        }
+
+        byte[] className = CodecCache.classNameBytes(obj.getClass());
+        byte[] objBytes = object2Byte(obj);
+
+        byte[] bytes = new byte[4 + className.length + 4 + objBytes.length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(className.length);
+        buffer.put(className);
+        buffer.putInt(objBytes.length);
+        buffer.put(objBytes);
+
+        return bytes;
+    }
+
 
     public static byte[] long2Bytes(long time) {
         ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.window;
+
+/**
+ * how long the state of a non-window join is kept.
+ * <p>
+ * ttl is compared with the timestamp of data, an entry is expired when it is older than ttl. Each key of each stream keeps
+ * at most maxEntriesPerKey entries, the oldest one is evicted when more arrive.
+ */
+public class JoinRetention {
+    private static final long NEVER_EXPIRE = 0;
+
+    private final long ttl;
+    private final int maxEntriesPerKey;
+
+    private JoinRetention(long ttl, int maxEntriesPerKey) {
+        if (maxEntriesPerKey <= 0) {
+            throw new IllegalArgumentException("maxEntriesPerKey must be positive. maxEntriesPerKey=" + maxEntriesPerKey);
+        }
+        this.ttl = ttl;
+        this.maxEntriesPerKey = maxEntriesPerKey;
+    }
+
+    /**
+     * keep the latest value of each key, never expire.
+     */
+    public static JoinRetention latest() {
+        return new JoinRetention(NEVER_EXPIRE, 1);
+    }
+
+    public static JoinRetention ttl(Time ttl) {
+        return of(ttl, 1);
+    }
+
+    public static JoinRetention maxEntriesPerKey(int maxEntriesPerKey) {
+        return new JoinRetention(NEVER_EXPIRE, maxEntriesPerKey);
+    }
+
+    public static JoinRetention of(Time ttl, int maxEntriesPerKey) {
+        if (ttl == null || ttl.toMilliseconds() <= 0) {
+            throw new IllegalArgumentException("ttl must be positive.");
+        }
+        return new JoinRetention(ttl.toMilliseconds(), maxEntriesPerKey);
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public int getMaxEntriesPerKey() {
+        return maxEntriesPerKey;
+    }
+
+    public boolean expireEnable() {
+        return ttl != NEVER_EXPIRE;
+    }
+
+    public boolean isExpired(long entryTime, long now) {
+        return expireEnable() && now - entryTime > ttl;
+    }
+
+    @Override
+    public String toString() {
+        return "JoinRetention{" +
+                "ttl=" + ttl +
+                ", maxEntriesPerKey=" + maxEntriesPerKey +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.window;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * size and eviction counters of the state of a non-window join in this process, shared by all worker threads running it.
+ * <p>
+ * Retained entries and bytes count the state written since the process started, state recovered from state topic is
+ * counted when it is written again.
+ */
+public class JoinStateMetrics {
+    private static final ConcurrentHashMap<String/*name of join*/, JoinStateMetrics> metrics = new ConcurrentHashMap<>();
+
+    private final AtomicLong retainedEntries = new AtomicLong();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong evictedBySize = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    public static JoinStateMetrics of(String name) {
+        return metrics.computeIfAbsent(name, key -> new JoinStateMetrics());
+    }
+
+    public void retained(long entries, long bytes) {
+        this.retainedEntries.addAndGet(entries);
+        this.retainedBytes.addAndGet(bytes);
+    }
+
+    public void evictedBySize(long num) {
+        this.evictedBySize.addAndGet(num);
+    }
+
+    public void expired(long num) {
+        this.expired.addAndGet(num);
+    }
+
+    public long getRetainedEntries() {
+        return retainedEntries.get();
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public long getEvictedBySize() {
+        return evictedBySize.get();
+    }
+
+    public long getExpired() {
+        return expired.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JoinStateMetrics{" +
+                "retainedEntries=" + retainedEntries +
+                ", retainedBytes=" + retainedBytes +
+                ", evictedBySize=" + evictedBySize +
+                ", expired=" + expired +
+                '}';
+    }
+}
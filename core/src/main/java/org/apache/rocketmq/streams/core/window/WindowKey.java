@@ -84,6 +84,13 @@ public class WindowKey {
         return builder.toString();
     }
 
+    /**
+     * prefix of the string form of WindowKey, all keys with same operatorName and key2String prefix are adjacent.
+     */
+    public static String keyPrefix(String operatorName, String key2StringPrefix) {
+        return operatorName + WindowKey.SPLIT + key2StringPrefix;
+    }
+
     public static WindowKey byte2WindowKey(byte[] source) {
         String str = new String(source, StandardCharsets.UTF_8);
         String[] split = Utils.split(str, WindowKey.SPLIT);
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.window;
+
+import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.util.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sliding windows are cut into non-overlapping panes whose width is gcd(size, slide).
+ * A record only updates the pane it falls into, the window result is produced by merging
+ * the panes of that window when it fires.
+ */
+public class WindowPane {
+
+    public static boolean usePane(WindowInfo windowInfo) {
+        if (windowInfo == null || windowInfo.getWindowType() != WindowInfo.WindowType.SLIDING_WINDOW) {
+            return false;
+        }
+
+        long size = windowInfo.getWindowSize().toMillSecond();
+        long slide = windowInfo.getWindowSlide().toMillSecond();
+
+        return slide < size;
+    }
+
+    public static long paneSize(WindowInfo windowInfo) {
+        long size = windowInfo.getWindowSize().toMillSecond();
+        long slide = windowInfo.getWindowSlide().toMillSecond();
+
+        return gcd(size, slide);
+    }
+
+    public static Window assignPane(WindowInfo windowInfo, long valueTime) {
+        long paneSize = paneSize(windowInfo);
+        long start = valueTime - (valueTime + paneSize) % paneSize;
+
+        return new Window(start, start + paneSize);
+    }
+
+    /**
+     * all windows that contain valueTime, the window with the largest end time is the first one.
+     */
+    public static List<Window> assignWindows(WindowInfo windowInfo, long valueTime) {
+        long sizeInterval = windowInfo.getWindowSize().toMillSecond();
+        long slideInterval = windowInfo.getWindowSlide().toMillSecond();
+
+        List<Window> result = new ArrayList<>((int) (sizeInterval / slideInterval));
+        long lastStart = valueTime - (valueTime + slideInterval) % slideInterval;
+
+        for (long start = lastStart; start > valueTime - sizeInterval; start -= slideInterval) {
+            long end = start + sizeInterval;
+            Window window = new Window(start, end);
+            result.add(window);
+        }
+        return result;
+    }
+
+    /**
+     * pane never crosses a slide boundary, so the windows containing the pane are the windows containing its start.
+     */
+    public static List<Window> windowsOfPane(WindowInfo windowInfo, long paneStart) {
+        return assignWindows(windowInfo, paneStart);
+    }
+
+    /**
+     * the pane can be deleted after this window fired.
+     */
+    public static Window lastWindowOfPane(WindowInfo windowInfo, long paneStart) {
+        long slideInterval = windowInfo.getWindowSlide().toMillSecond();
+        long sizeInterval = windowInfo.getWindowSize().toMillSecond();
+
+        long lastStart = paneStart - (paneStart + slideInterval) % slideInterval;
+        return new Window(lastStart, lastStart + sizeInterval);
+    }
+
+    /**
+     * key2String of pane state is paneEnd@key, end time of fixed width comes first, so panes are sorted by end time and
+     * panes ending in a time range are found by range seek.
+     */
+    public static String paneKey2String(long paneEnd, String key2String) {
+        return Utils.buildKey(timePrefix(paneEnd), key2String);
+    }
+
+    /**
+     * @return key2String of the key which the pane belongs to.
+     */
+    public static String keyOfPane(String paneKey2String) {
+        return paneKey2String.substring(paneKey2String.indexOf(Constant.SPLIT) + 1);
+    }
+
+    public static String timePrefix(long time) {
+        return String.format("%019d", time);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long temp = a % b;
+            a = b;
+            b = temp;
+        }
+        return a;
+    }
+}
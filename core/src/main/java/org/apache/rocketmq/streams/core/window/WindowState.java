@@ -18,11 +18,11 @@ package org.apache.rocketmq.streams.core.window;
 
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import org.apache.rocketmq.streams.core.util.CodecCache;
 import org.apache.rocketmq.streams.core.util.Utils;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -139,7 +139,6 @@ public class WindowState<K, V> implements Serializable {
         this.recordLastTimestamp = recordLastTimestamp;
     }
 
-    private static final ByteBuf buf = Unpooled.buffer(16);
     public static byte[] windowState2Byte(WindowState<?, ?> state) throws Throwable {
         if (state == null) {
             return new byte[0];
@@ -149,7 +148,7 @@ public class WindowState<K, V> implements Serializable {
         if (keyClazz == null) {
             keyClazz = state.getKey().getClass();
         }
-        byte[] keyClazzBytes = keyClazz.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] keyClazzBytes = CodecCache.classNameBytes(keyClazz);
 
         byte[] keyBytes = state.getKeyBytes();
         if (keyBytes == null) {
@@ -160,7 +159,7 @@ public class WindowState<K, V> implements Serializable {
         if (valueClazz == null) {
             valueClazz = state.getValue().getClass();
         }
-        byte[] valueClazzBytes = valueClazz.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] valueClazzBytes = CodecCache.classNameBytes(valueClazz);
 
         byte[] valueBytes = state.getValueBytes();
         if (valueBytes == null) {
@@ -170,74 +169,49 @@ public class WindowState<K, V> implements Serializable {
 
         int length = 4 + 8 + 8 + 4 + keyClazzBytes.length + 4 + keyBytes.length + 4 + valueClazzBytes.length + 4 + valueBytes.length;
 
-        buf.writeInt(length);
+        //一次分配准确大小的数组
+        byte[] result = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(result);
+        buffer.putInt(length);
 
-        buf.writeLong(state.getRecordLastTimestamp());
-        buf.writeLong(state.getRecordEarliestTimestamp());
+        buffer.putLong(state.getRecordLastTimestamp());
+        buffer.putLong(state.getRecordEarliestTimestamp());
 
         //key class
-        buf.writeInt(keyClazzBytes.length);
-        buf.writeBytes(keyClazzBytes);
+        buffer.putInt(keyClazzBytes.length);
+        buffer.put(keyClazzBytes);
 
         //key
-        buf.writeInt(keyBytes.length);
-        buf.writeBytes(keyBytes);
+        buffer.putInt(keyBytes.length);
+        buffer.put(keyBytes);
 
         //value class
-        buf.writeInt(valueClazzBytes.length);
-        buf.writeBytes(valueClazzBytes);
+        buffer.putInt(valueClazzBytes.length);
+        buffer.put(valueClazzBytes);
 
         //value
-        buf.writeInt(valueBytes.length);
-        buf.writeBytes(valueBytes);
+        buffer.putInt(valueBytes.length);
+        buffer.put(valueBytes);
 
-        byte[] bytes = new byte[buf.readableBytes()];
-        buf.readBytes(bytes);
-
-        buf.clear();
-        return bytes;
+        return result;
     }
 
     public static <K,V> WindowState<K,V> byte2WindowState(byte[] bytes) throws Throwable {
-        ByteBuf byteBuf = Unpooled.wrappedBuffer(bytes);
-        int totalLength = byteBuf.readInt();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int totalLength = buffer.getInt();
         if (bytes.length < totalLength) {
             //上层已经拆好了包
             throw new IllegalArgumentException("byteBuf length less than total");
         }
 
-        long recordLastTimestamp = byteBuf.readLong();
-        long recordEarliestTimestamp = byteBuf.readLong();
-
-        //key class
-        int keyClazzLength = byteBuf.readInt();
-        ByteBuf buf = byteBuf.readBytes(keyClazzLength);
-        byte[] keyClazzBytes = new byte[keyClazzLength];
-        buf.readBytes(keyClazzBytes);
-        //实例化
-        String keyClassName = new String(keyClazzBytes, StandardCharsets.UTF_8);
-        Class<?> keyClazz = Class.forName(keyClassName);
+        long recordLastTimestamp = buffer.getLong();
+        long recordEarliestTimestamp = buffer.getLong();
 
-        //key
-        int keyLength = byteBuf.readInt();
-        ByteBuf keyBuf = byteBuf.readBytes(keyLength);
-        byte[] keyBytes = new byte[keyLength];
-        keyBuf.readBytes(keyBytes);
+        Class<?> keyClazz = readClass(buffer);
+        byte[] keyBytes = readBytes(buffer);
 
-        //value class
-        int valueClazzLength = byteBuf.readInt();
-        ByteBuf valueClazzBuf = byteBuf.readBytes(valueClazzLength);
-        byte[] valueClazzBytes = new byte[valueClazzLength];
-        valueClazzBuf.readBytes(valueClazzBytes);
-        //实例化
-        String valueClassName = new String(valueClazzBytes, StandardCharsets.UTF_8);
-        Class<?> valueClazz = Class.forName(valueClassName);
-
-        //value
-        int valueLength = byteBuf.readInt();
-        ByteBuf valueBuf = byteBuf.readBytes(valueLength);
-        byte[] valueBytes = new byte[valueLength];
-        valueBuf.readBytes(valueBytes);
+        Class<?> valueClazz = readClass(buffer);
+        byte[] valueBytes = readBytes(buffer);
 
         WindowState<K, V> result = new WindowState<>();
         result.setRecordLastTimestamp(recordLastTimestamp);
@@ -246,14 +220,24 @@ public class WindowState<K, V> implements Serializable {
         result.setValueBytes(valueBytes);
         result.setKeyClazz(keyClazz);
         result.setValueClazz(valueClazz);
-        result.setKey(Utils.byte2Object(keyBytes, result.getKeyClazz()));
-        result.setValue(Utils.byte2Object(valueBytes, result.getValueClazz()));
-
-        byteBuf.release();
-        buf.release();
-        keyBuf.release();
-        valueBuf.release();
-        valueClazzBuf.release();
+        //bytes are already known, setKey/setValue would serialize them again
+        result.key = Utils.byte2Object(keyBytes, result.getKeyClazz());
+        result.value = Utils.byte2Object(valueBytes, result.getValueClazz());
+
         return result;
     }
+
+    private static Class<?> readClass(ByteBuffer buffer) throws ClassNotFoundException {
+        int length = buffer.getInt();
+        String className = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return CodecCache.classForName(className);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
 }
@@ -25,6 +25,7 @@ import org.apache.rocketmq.streams.core.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BiConsumer;
@@ -73,6 +74,29 @@ public class WindowStore<K, V> {
         return deserializerState(pairs);
     }
 
+    public List<Pair<WindowKey, WindowState<K, V>>> searchByKeyPrefix(String operatorName, String key2StringPrefix) throws Throwable {
+        String prefix = WindowKey.keyPrefix(operatorName, key2StringPrefix);
+        List<Pair<String, byte[]>> pairs = this.stateStore.searchByKeyPrefix(prefix,
+                source -> source.getBytes(StandardCharsets.UTF_8),
+                source -> new String(source, StandardCharsets.UTF_8));
+
+        List<Pair<byte[], byte[]>> windowStateBytes = new ArrayList<>(pairs.size());
+        for (Pair<String, byte[]> pair : pairs) {
+            windowStateBytes.add(new Pair<>(pair.getKey().getBytes(StandardCharsets.UTF_8), pair.getValue()));
+        }
+        return deserializerState(windowStateBytes);
+    }
+
+    /**
+     * keys of operatorName whose key2String is in [fromKey2String, toKey2String), in byte order.
+     */
+    public List<Pair<WindowKey, WindowState<K, V>>> searchByKeyRange(String operatorName, String fromKey2String, String toKey2String) throws Throwable {
+        byte[] from = WindowKey.keyPrefix(operatorName, fromKey2String).getBytes(StandardCharsets.UTF_8);
+        byte[] to = WindowKey.keyPrefix(operatorName, toKey2String).getBytes(StandardCharsets.UTF_8);
+        List<Pair<byte[], byte[]>> windowStateBytes = this.stateStore.searchByKeyRange(from, to, Integer.MAX_VALUE);
+        return deserializerState(windowStateBytes);
+    }
+
     public void deleteByKey(WindowKey windowKey) throws Throwable {
         if (windowKey == null) {
             return;
@@ -81,6 +105,17 @@ public class WindowStore<K, V> {
         this.stateStore.delete(keyBytes);
     }
 
+    public void deleteByKeys(List<WindowKey> windowKeys) throws Throwable {
+        if (windowKeys == null || windowKeys.size() == 0) {
+            return;
+        }
+        List<byte[]> keys = new ArrayList<>(windowKeys.size());
+        for (WindowKey windowKey : windowKeys) {
+            keys.add(WindowKey.windowKey2Byte(windowKey));
+        }
+        this.stateStore.delete(keys);
+    }
+
     private List<Pair<WindowKey, WindowState<K, V>>> deserializerState(List<Pair<byte[], byte[]>> windowStateBytes) throws Throwable {
         List<Pair<WindowKey, WindowState<K, V>>> result = new ArrayList<>();
         if (windowStateBytes == null || windowStateBytes.size() == 0) {
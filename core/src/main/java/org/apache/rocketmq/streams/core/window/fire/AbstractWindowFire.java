@@ -29,7 +29,7 @@ import java.util.function.BiFunction;
 
 public abstract class AbstractWindowFire<K, V> implements WindowFire<K, V> {
     protected final StreamContext<V> context;
-    private final MessageQueue stateTopicMessageQueue;
+    protected final MessageQueue stateTopicMessageQueue;
     private final BiFunction<Long, MessageQueue, Long> commitWatermark;
 
     public AbstractWindowFire(StreamContext<V> context,
@@ -44,4 +44,8 @@ public abstract class AbstractWindowFire<K, V> implements WindowFire<K, V> {
         this.commitWatermark.apply(watermark, stateTopicMessageQueue);
     }
 
+    MessageQueue getStateTopicMessageQueue() {
+        return stateTopicMessageQueue;
+    }
+
 }
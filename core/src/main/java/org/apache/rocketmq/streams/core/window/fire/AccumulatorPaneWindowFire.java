@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.window.fire;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.common.Constant;
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+import org.apache.rocketmq.streams.core.function.accumulator.Accumulator;
+import org.apache.rocketmq.streams.core.metadata.Data;
+import org.apache.rocketmq.streams.core.running.StreamContext;
+import org.apache.rocketmq.streams.core.state.StateStore;
+import org.apache.rocketmq.streams.core.util.Pair;
+import org.apache.rocketmq.streams.core.util.Utils;
+import org.apache.rocketmq.streams.core.window.Window;
+import org.apache.rocketmq.streams.core.window.WindowInfo;
+import org.apache.rocketmq.streams.core.window.WindowKey;
+import org.apache.rocketmq.streams.core.window.WindowPane;
+import org.apache.rocketmq.streams.core.window.WindowState;
+import org.apache.rocketmq.streams.core.window.WindowStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * fire sliding window which state is stored in panes, see {@link WindowPane}.
+ * <p>
+ * The state key of pane is WindowKey(operatorName, paneEnd@key, paneEnd, paneStart). When watermark advances, only panes
+ * ending in the time range of windows with end time in [firedWatermark, watermark) are read, and these windows are
+ * produced by merging their panes, a pane is deleted after the last window containing it fired.
+ */
+public class AccumulatorPaneWindowFire<K, R, V, OV> extends AccumulatorWindowFire<K, R, V, OV> {
+    private static final Logger logger = LoggerFactory.getLogger(AccumulatorPaneWindowFire.class);
+
+    private final WindowInfo windowInfo;
+    private final Accumulator<R, OV> accumulator;
+
+    public AccumulatorPaneWindowFire(WindowStore<K, Accumulator<R, OV>> windowStore,
+                                     StreamContext<V> context,
+                                     MessageQueue stateTopicMessageQueue,
+                                     BiFunction<Long, MessageQueue, Long> commitWatermark,
+                                     WindowInfo windowInfo,
+                                     Accumulator<R, OV> accumulator) {
+        super(windowStore, context, stateTopicMessageQueue, commitWatermark);
+        this.windowInfo = windowInfo;
+        this.accumulator = accumulator;
+    }
+
+    /**
+     * @return the idle key of panes which are deleted, idle key is the last window containing the pane.
+     */
+    @Override
+    public List<WindowKey> fire(String operatorName, long watermark) {
+        List<WindowKey> fired = new ArrayList<>();
+
+        try {
+            StateStore stateStore = context.getStateStore();
+            byte[] firedKey = Utils.watermarkKeyBytes(stateTopicMessageQueue, Utils.buildKey(Constant.WATERMARK_KEY, operatorName));
+            long firedWatermark = Utils.bytes2Long(stateStore.get(firedKey));
+            if (watermark <= firedWatermark) {
+                return fired;
+            }
+
+            //panes of windows with end in [firedWatermark, watermark) end in (firedWatermark - size, watermark), older panes
+            //have been deleted when their last window fired.
+            long size = windowInfo.getWindowSize().toMillSecond();
+            long from = firedWatermark > size ? firedWatermark - size + 1 : 0;
+            List<Pair<WindowKey, WindowState<K, Accumulator<R, OV>>>> panes = windowStore.searchByKeyRange(operatorName,
+                    WindowPane.timePrefix(from), WindowPane.timePrefix(watermark));
+
+            Map<String/*key2String*/, List<Pair<WindowKey, WindowState<K, Accumulator<R, OV>>>>> groupByKey = new LinkedHashMap<>();
+            for (Pair<WindowKey, WindowState<K, Accumulator<R, OV>>> pane : panes) {
+                groupByKey.computeIfAbsent(WindowPane.keyOfPane(pane.getKey().getKey2String()), s -> new ArrayList<>()).add(pane);
+            }
+
+            List<WindowKey> expiredPanes = new ArrayList<>();
+            for (List<Pair<WindowKey, WindowState<K, Accumulator<R, OV>>>> keyPanes : groupByKey.values()) {
+                TreeMap<Long/*window end*/, Window> windows = new TreeMap<>();
+                for (Pair<WindowKey, WindowState<K, Accumulator<R, OV>>> pane : keyPanes) {
+                    for (Window window : WindowPane.windowsOfPane(windowInfo, pane.getKey().getWindowStart())) {
+                        if (window.getEndTime() >= firedWatermark && window.getEndTime() < watermark) {
+                            windows.put(window.getEndTime(), window);
+                        }
+                    }
+                }
+
+                for (Window window : windows.values()) {
+                    fireWindow(operatorName, window, keyPanes, watermark);
+                }
+
+                for (Pair<WindowKey, WindowState<K, Accumulator<R, OV>>> pane : keyPanes) {
+                    WindowKey paneKey = pane.getKey();
+                    Window lastWindow = WindowPane.lastWindowOfPane(windowInfo, paneKey.getWindowStart());
+                    if (lastWindow.getEndTime() < watermark) {
+                        expiredPanes.add(paneKey);
+                        fired.add(new WindowKey(operatorName, WindowPane.keyOfPane(paneKey.getKey2String()), lastWindow.getEndTime(), lastWindow.getStartTime()));
+                    }
+                }
+            }
+            windowStore.deleteByKeys(expiredPanes);
+
+            stateStore.put(stateTopicMessageQueue, firedKey, Utils.long2Bytes(watermark));
+        } catch (Throwable t) {
+            String format = String.format("fire pane window error, watermark:%s, operatorName:%s", watermark, operatorName);
+            throw new RStreamsException(format, t);
+        }
+        return fired;
+    }
+
+    private void fireWindow(String operatorName, Window window,
+                            List<Pair<WindowKey, WindowState<K, Accumulator<R, OV>>>> keyPanes, long watermark) throws Throwable {
+        Accumulator<R, OV> merged = accumulator.clone();
+        K key = null;
+        long recordLastTimestamp = 0;
+        boolean empty = true;
+
+        for (Pair<WindowKey, WindowState<K, Accumulator<R, OV>>> pane : keyPanes) {
+            WindowKey paneKey = pane.getKey();
+            if (paneKey.getWindowStart() < window.getStartTime() || paneKey.getWindowEnd() > window.getEndTime()) {
+                continue;
+            }
+
+            WindowState<K, Accumulator<R, OV>> state = pane.getValue();
+            merged.merge(state.getValue());
+            key = state.getKey();
+            empty = false;
+            recordLastTimestamp = Math.max(recordLastTimestamp, state.getRecordLastTimestamp());
+        }
+
+        if (empty) {
+            return;
+        }
+
+        Properties header = context.getHeader();
+        header.put(Constant.WINDOW_START_TIME, window.getStartTime());
+        header.put(Constant.WINDOW_END_TIME, window.getEndTime());
+
+        OV data = merged.result(header);
+
+        Data<K, OV> result = new Data<>(key, data, recordLastTimestamp, header);
+        Data<K, V> convert = this.convert(result);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("fire pane window, operatorName={}, search watermark={}, window: [{} - {}], data to next:[{}]", operatorName,
+                    watermark, Utils.format(window.getStartTime()), Utils.format(window.getEndTime()), convert);
+        }
+
+        context.forward(convert);
+    }
+}
@@ -85,12 +85,12 @@ public class AccumulatorSessionWindowFire<K, R, V, OV> extends AbstractWindowFir
 
                 context.forward(convert);
 
-                //删除状态
-                windowStore.deleteByKey(windowKey);
-
                 fired.add(windowKey);
             }
 
+            //删除状态
+            windowStore.deleteByKeys(fired);
+
             return fired;
         } catch (Throwable t) {
             String format = String.format("fire session window error, name:%s", operatorName);
@@ -38,7 +38,7 @@ import java.util.function.BiFunction;
 public class AccumulatorWindowFire<K, R, V, OV> extends AbstractWindowFire<K, V> {
     private static final Logger logger = LoggerFactory.getLogger(AccumulatorWindowFire.class);
 
-    private final WindowStore<K, Accumulator<R, OV>> windowStore;
+    protected final WindowStore<K, Accumulator<R, OV>> windowStore;
 
     public AccumulatorWindowFire(WindowStore<K, Accumulator<R, OV>> windowStore,
                                  StreamContext<V> context,
@@ -81,12 +81,12 @@ public class AccumulatorWindowFire<K, R, V, OV> extends AbstractWindowFire<K, V>
 
                 context.forward(convert);
 
-                //删除状态
-                windowStore.deleteByKey(windowKey);
-
                 fired.add(windowKey);
             }
 
+            //删除状态
+            windowStore.deleteByKeys(fired);
+
         } catch (Throwable t) {
             String format = String.format("fire window error, watermark:%s, operatorName:%s", watermark, operatorName);
             throw new RStreamsException(format, t);
@@ -81,12 +81,12 @@ public class AggregateSessionWindowFire<K, V, OV> extends AbstractWindowFire<K,
 
                 this.context.forward(convert);
 
-                //删除状态
-                this.windowStore.deleteByKey(windowKey);
-
                 fired.add(windowKey);
             }
 
+            //删除状态
+            this.windowStore.deleteByKeys(fired);
+
             return fired;
         } catch (Throwable t) {
             String format = String.format("fire session window error, name:%s", operatorName);
@@ -76,12 +76,12 @@ public class AggregateWindowFire<K, V, OV> extends AbstractWindowFire<K, V> {
 
                 this.context.forward(convert);
 
-                //删除状态
-                this.windowStore.deleteByKey(windowKey);
-
                 fired.add(windowKey);
             }
 
+            //删除状态
+            this.windowStore.deleteByKeys(fired);
+
             return fired;
         } catch (Throwable t) {
             String format = String.format("fire window error, watermark:%s, operatorName:%s", watermark, operatorName);
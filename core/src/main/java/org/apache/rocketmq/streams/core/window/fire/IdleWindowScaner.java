@@ -16,6 +16,7 @@
  */
 package org.apache.rocketmq.streams.core.window.fire;
 
+import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.streams.core.common.Constant;
 import org.apache.rocketmq.streams.core.window.StreamType;
 import org.apache.rocketmq.streams.core.window.WindowKey;
@@ -28,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 
 public class IdleWindowScaner implements AutoCloseable {
@@ -36,6 +38,7 @@ public class IdleWindowScaner implements AutoCloseable {
     private final Integer maxIdleTime;
     private long sessionTimeOut = 0;
     private final ScheduledExecutorService executor;
+    private volatile boolean scanDue = false;
 
     private final ConcurrentHashMap<WindowKey, TimeType> lastUpdateTime2WindowKey = new ConcurrentHashMap<>(16);
 
@@ -50,13 +53,26 @@ public class IdleWindowScaner implements AutoCloseable {
     public IdleWindowScaner(Integer maxIdleTime, ScheduledExecutorService executor) {
         this.maxIdleTime = maxIdleTime;
         this.executor = executor;
-        this.executor.scheduleAtFixedRate(() -> {
-            try {
-                scanAndFireWindow();
-            } catch (Throwable t) {
-                logger.error("scan and fire the idle window error.", t);
-            }
-        }, 0, 1000, TimeUnit.MILLISECONDS);
+        this.executor.scheduleAtFixedRate(() -> this.scanDue = true, 0, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * fire idle windows once a second. It is called by worker thread between records, so state changed by fire and
+     * watermark is taken by the next checkpoint of worker, never persisted in the middle of it.
+     *
+     * @param stateChanged receives messageQueue of state topic whose state is changed by fire.
+     */
+    public void fireIfDue(Consumer<MessageQueue> stateChanged) {
+        if (!this.scanDue) {
+            return;
+        }
+        this.scanDue = false;
+
+        try {
+            scanAndFireWindow(stateChanged);
+        } catch (Throwable t) {
+            logger.error("scan and fire the idle window error.", t);
+        }
     }
 
     public void initSessionTimeOut(long sessionTimeOut) {
@@ -153,7 +169,7 @@ public class IdleWindowScaner implements AutoCloseable {
         fireJoinWindowCallback.remove(windowKey);
     }
 
-    private void scanAndFireWindow() throws Throwable {
+    private void scanAndFireWindow(Consumer<MessageQueue> stateChanged) throws Throwable {
         Iterator<Map.Entry<WindowKey, TimeType>> iterator = this.lastUpdateTime2WindowKey.entrySet().iterator();
         while (iterator.hasNext()) {
             Map.Entry<WindowKey, TimeType> next = iterator.next();
@@ -171,7 +187,7 @@ public class IdleWindowScaner implements AutoCloseable {
                 case AccumulatorSessionWindow: {
                     if (idleTime >= sessionTimeOut) {
                         try {
-                            doFire(windowKey, type);
+                            doFire(windowKey, type, stateChanged);
                         } finally {
                             iterator.remove();
                         }
@@ -184,7 +200,7 @@ public class IdleWindowScaner implements AutoCloseable {
                     long windowSize = windowKey.getWindowEnd() - windowKey.getWindowStart();
                     if (idleTime > this.maxIdleTime && idleTime > windowSize) {
                         try {
-                            doFire(windowKey, type);
+                            doFire(windowKey, type, stateChanged);
                         } finally {
                             iterator.remove();
                         }
@@ -197,7 +213,7 @@ public class IdleWindowScaner implements AutoCloseable {
         }
     }
 
-    private void doFire(WindowKey windowKey, Type type) throws Throwable {
+    private void doFire(WindowKey windowKey, Type type, Consumer<MessageQueue> stateChanged) throws Throwable {
         long watermark = windowKey.getWindowEnd() + 1;
         String operatorName = windowKey.getOperatorName();
 
@@ -209,6 +225,7 @@ public class IdleWindowScaner implements AutoCloseable {
                     func.fire(operatorName, watermark);
                     //commit watermark to local and remote.
                     func.commitWatermark(watermark);
+                    stateChanged.accept(func.getStateTopicMessageQueue());
                 }
                 break;
             }
@@ -217,6 +234,7 @@ public class IdleWindowScaner implements AutoCloseable {
                 if (accumulatorSessionWindowFire != null) {
                     accumulatorSessionWindowFire.fire(operatorName, watermark);
                     accumulatorSessionWindowFire.commitWatermark(watermark);
+                    stateChanged.accept(accumulatorSessionWindowFire.getStateTopicMessageQueue());
                 }
                 break;
             }
@@ -225,6 +243,7 @@ public class IdleWindowScaner implements AutoCloseable {
                 if (aggregateWindowFire != null) {
                     aggregateWindowFire.fire(operatorName, watermark);
                     aggregateWindowFire.commitWatermark(watermark);
+                    stateChanged.accept(aggregateWindowFire.getStateTopicMessageQueue());
                 }
                 break;
             }
@@ -233,6 +252,7 @@ public class IdleWindowScaner implements AutoCloseable {
                 if (sessionWindowFire != null) {
                     sessionWindowFire.fire(operatorName, watermark);
                     sessionWindowFire.commitWatermark(watermark);
+                    stateChanged.accept(sessionWindowFire.getStateTopicMessageQueue());
                 }
                 break;
             }
@@ -244,6 +264,7 @@ public class IdleWindowScaner implements AutoCloseable {
 
                     joinWindowFire.fire(name, watermark, StreamType.valueOf(streamType));
                     joinWindowFire.commitWatermark(watermark);
+                    stateChanged.accept(joinWindowFire.getStateTopicMessageQueue());
                 }
                 break;
             }
@@ -34,9 +34,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.BiFunction;
@@ -94,46 +95,27 @@ public class JoinWindowFire<K, V1, V2, OUT> {
                 return fired;
             }
 
-            leftPairs.sort(Comparator.comparing(pair -> {
-                WindowKey key = pair.getKey();
-                return key.getWindowEnd();
-            }));
-            rightPairs.sort(Comparator.comparing(pair -> {
-                WindowKey key = pair.getKey();
-                return key.getWindowEnd();
-            }));
+            //hash join: 以(window, key)分组，每个key每一侧可以有多条数据
+            Map<String/*window + key*/, List<WindowState<K, V2>>> rightGroup = new HashMap<>();
+            for (Pair<WindowKey, WindowState<K, V2>> rightPair : rightPairs) {
+                rightGroup.computeIfAbsent(joinKey(rightPair.getKey()), s -> new ArrayList<>()).add(rightPair.getValue());
+            }
 
+            Set<WindowKey> firedWindow = new LinkedHashSet<>();
             switch (joinType) {
                 case INNER_JOIN:
                     //匹配上才触发
                     for (Pair<WindowKey, WindowState<K, V1>> leftPair : leftPairs) {
                         WindowKey leftWindowKey = leftPair.getKey();
-                        String leftPrefix = leftWindowKey.getKeyAndWindow();
-
-                        for (Pair<WindowKey, WindowState<K, V2>> rightPair : rightPairs) {
-                            String rightPrefix = rightPair.getKey().getKeyAndWindow();
-
-                            //相同window中相同key，聚合
-                            if (leftPrefix.equals(rightPrefix)) {
-                                //do fire
-                                V1 o1 = leftPair.getValue().getValue();
-                                V2 o2 = rightPair.getValue().getValue();
-
-                                OUT out = this.joinAction.apply(o1, o2);
-
-                                Properties header = this.context.getHeader();
-                                header.put(Constant.WINDOW_START_TIME, leftWindowKey.getWindowStart());
-                                header.put(Constant.WINDOW_END_TIME, leftWindowKey.getWindowEnd());
-
-                                assert leftPair.getValue().getKey() == rightPair.getValue().getKey();
-                                Data<K, OUT> result = new Data<>(leftPair.getValue().getKey(), out, this.context.getDataTime(), header);
-                                Data<K, Object> convert = this.convert(result);
-
-                                this.context.forward(convert);
+                        List<WindowState<K, V2>> rightStates = rightGroup.get(joinKey(leftWindowKey));
+                        if (rightStates == null) {
+                            continue;
+                        }
 
-                                fired.add(leftWindowKey);
-                            }
+                        for (WindowState<K, V2> rightState : rightStates) {
+                            doFire(leftWindowKey, leftPair.getValue(), rightState.getValue());
                         }
+                        firedWindow.add(idleKey(leftWindowKey));
                     }
                     break;
                 case LEFT_JOIN:
@@ -142,39 +124,17 @@ public class JoinWindowFire<K, V1, V2, OUT> {
                             //左流全部触发，不管右流匹配上没
                             for (Pair<WindowKey, WindowState<K, V1>> leftPair : leftPairs) {
                                 WindowKey leftWindowKey = leftPair.getKey();
+                                firedWindow.add(idleKey(leftWindowKey));
 
-                                fired.add(leftWindowKey);
-
-                                String leftPrefix = leftWindowKey.getKeyAndWindow();
-                                Pair<WindowKey, WindowState<K, V2>> targetPair = null;
-
-                                for (Pair<WindowKey, WindowState<K, V2>> rightPair : rightPairs) {
-                                    if (rightPair.getKey().getKeyAndWindow().equals(leftPrefix)) {
-                                        targetPair = rightPair;
-                                        break;
-                                    }
+                                List<WindowState<K, V2>> rightStates = rightGroup.get(joinKey(leftWindowKey));
+                                if (rightStates == null) {
+                                    doFire(leftWindowKey, leftPair.getValue(), null);
+                                    continue;
                                 }
 
-                                //fire
-                                V1 o1 = leftPair.getValue().getValue();
-                                V2 o2 = null;
-                                if (targetPair != null) {
-                                    o2 = targetPair.getValue().getValue();
-                                    fired.add(targetPair.getKey());
-
-                                    assert leftPair.getValue().getKey() == targetPair.getValue().getKey();
+                                for (WindowState<K, V2> rightState : rightStates) {
+                                    doFire(leftWindowKey, leftPair.getValue(), rightState.getValue());
                                 }
-
-                                OUT out = this.joinAction.apply(o1, o2);
-                                Properties header = this.context.getHeader();
-                                header.put(Constant.WINDOW_START_TIME, leftWindowKey.getWindowStart());
-                                header.put(Constant.WINDOW_END_TIME, leftWindowKey.getWindowEnd());
-
-
-                                Data<K, OUT> result = new Data<>(leftPair.getValue().getKey(), out, this.context.getDataTime(), header);
-                                Data<K, Object> convert = this.convert(result);
-
-                                this.context.forward(convert);
                             }
                             break;
                         case RIGHT_STREAM:
@@ -185,17 +145,23 @@ public class JoinWindowFire<K, V1, V2, OUT> {
 
             if (leftPairs.size() != 0) {
                 logger.debug("delete left window.");
+                List<WindowKey> leftKeys = new ArrayList<>(leftPairs.size());
                 for (Pair<WindowKey, WindowState<K, V1>> leftPair : leftPairs) {
-                    this.leftWindowStore.deleteByKey(leftPair.getKey());
+                    leftKeys.add(leftPair.getKey());
                 }
+                this.leftWindowStore.deleteByKeys(leftKeys);
             }
 
             if (rightPairs.size() != 0) {
                 logger.debug("delete right window.");
+                List<WindowKey> rightKeys = new ArrayList<>(rightPairs.size());
                 for (Pair<WindowKey, WindowState<K, V2>> rightPair : rightPairs) {
-                    this.rightWindowStore.deleteByKey(rightPair.getKey());
+                    rightKeys.add(rightPair.getKey());
+                    firedWindow.add(idleKey(rightPair.getKey()));
                 }
+                this.rightWindowStore.deleteByKeys(rightKeys);
             }
+            fired.addAll(firedWindow);
         } catch (Throwable t) {
             String format = String.format("fire window error, watermark:%s.", watermark);
             throw new RStreamsException(format, t);
@@ -204,6 +170,47 @@ public class JoinWindowFire<K, V1, V2, OUT> {
         return fired;
     }
 
+    private void doFire(WindowKey leftWindowKey, WindowState<K, V1> leftState, V2 o2) throws Throwable {
+        V1 o1 = leftState.getValue();
+        OUT out = this.joinAction.apply(o1, o2);
+
+        Properties header = this.context.getHeader();
+        header.put(Constant.WINDOW_START_TIME, leftWindowKey.getWindowStart());
+        header.put(Constant.WINDOW_END_TIME, leftWindowKey.getWindowEnd());
+
+        Data<K, OUT> result = new Data<>(leftState.getKey(), out, this.context.getDataTime(), header);
+        Data<K, Object> convert = this.convert(result);
+
+        this.context.forward(convert);
+    }
+
+    /**
+     * key2String of join state is key@recordId, records with same key in same window are joined together.
+     */
+    public static String buildRecordKey(String key2String, String recordId) {
+        return Utils.buildKey(key2String, recordId);
+    }
+
+    private static String key2String(WindowKey windowKey) {
+        String key2String = windowKey.getKey2String();
+        int index = key2String.lastIndexOf(Constant.SPLIT);
+        if (index == -1) {
+            return key2String;
+        }
+        return key2String.substring(0, index);
+    }
+
+    private static String joinKey(WindowKey windowKey) {
+        return Utils.buildKey(String.valueOf(windowKey.getWindowStart()), String.valueOf(windowKey.getWindowEnd()), key2String(windowKey));
+    }
+
+    /**
+     * the key registered in IdleWindowScaner, one for all records with same key in same window.
+     */
+    public static WindowKey idleKey(WindowKey windowKey) {
+        return new WindowKey(windowKey.getOperatorName(), key2String(windowKey), windowKey.getWindowEnd(), windowKey.getWindowStart());
+    }
+
     @SuppressWarnings("unchecked")
     private <K> Data<K, Object> convert(Data<?, ?> data) {
         return (Data<K, Object>) new Data<>(data.getKey(), data.getValue(), data.getTimestamp(), data.getHeader());
@@ -217,11 +224,13 @@ public class JoinWindowFire<K, V1, V2, OUT> {
         byte[] watermarkBytes = stateStore.get(keyBytes);
         long oldWatermark = Utils.bytes2Long(watermarkBytes);
 
+        //persisted by the next checkpoint of worker
         if (watermark > oldWatermark) {
             this.commitWatermark.apply(watermark, stateTopicMessageQueue);
-            Set<MessageQueue> set = new HashSet<>();
-            set.add(stateTopicMessageQueue);
-            stateStore.persist(set);
         }
     }
+
+    MessageQueue getStateTopicMessageQueue() {
+        return stateTopicMessageQueue;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.rstream;
+
+import org.apache.rocketmq.streams.core.function.SelectAction;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
+import org.apache.rocketmq.streams.core.topology.virtual.GraphNode;
+import org.apache.rocketmq.streams.core.topology.virtual.ShuffleProcessorNode;
+import org.apache.rocketmq.streams.core.util.Pair;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * shuffle of keyBy is skipped only when the value the key selector reads is not changed since data was partitioned.
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+public class PartitionElisionTest {
+    private static final KeyValueDeserializer<Void, String> DESERIALIZER = total -> new Pair<>(null, new String(total, StandardCharsets.UTF_8));
+
+    public static void main(String[] args) {
+        SelectAction<String, String> byValue = value -> value;
+
+        //filter keeps value, partition of source is kept
+        RStream<String> source = new StreamBuilder("filterKeeps").source("sourceTopic", DESERIALIZER);
+        RStream<?> filtered = source.assumePartitionedBy(byValue)
+                .filter(value -> value.length() > 2)
+                .keyBy(byValue)
+                .count()
+                .toRStream();
+        check(!shuffled(filtered), "count after filter is shuffled");
+
+        //map changes value, byValue on the new value is another key
+        source = new StreamBuilder("mapClears").source("sourceTopic", DESERIALIZER);
+        RStream<?> mapped = source.assumePartitionedBy(byValue)
+                .map(value -> value + "-suffix")
+                .keyBy(byValue)
+                .count()
+                .toRStream();
+        check(shuffled(mapped), "count after map is not shuffled");
+
+        //flatMap and mapAsync change value too
+        source = new StreamBuilder("flatMapClears").source("sourceTopic", DESERIALIZER);
+        RStream<?> flatMapped = source.assumePartitionedBy(byValue)
+                .flatMap(value -> java.util.Collections.singletonList(value))
+                .keyBy(byValue)
+                .count()
+                .toRStream();
+        check(shuffled(flatMapped), "count after flatMap is not shuffled");
+
+        //min keeps one of the values, data after it is still partitioned by byValue
+        source = new StreamBuilder("minKeeps").source("sourceTopic", DESERIALIZER);
+        RStream<?> afterMin = source.keyBy(byValue)
+                .min(String::length)
+                .toRStream()
+                .keyBy(byValue)
+                .count()
+                .toRStream();
+        check(!shuffled(afterMin), "count after min is shuffled");
+
+        //keyBy(x).count().toRStream().keyBy(x): x is applied to the count, not to the value it was partitioned by
+        source = new StreamBuilder("countClears").source("sourceTopic", DESERIALIZER);
+        RStream counted = source.keyBy(byValue).count().toRStream();
+        RStream<?> afterCount = counted.keyBy((SelectAction) byValue).count().toRStream();
+        check(shuffled(afterCount), "count after count is not shuffled");
+
+        System.out.println("partition elision passed");
+    }
+
+    private static boolean shuffled(RStream<?> stream) {
+        GraphNode last = ((RStreamImpl<?>) stream).getPipeline().getLastNode();
+        return last instanceof ShuffleProcessorNode;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.rstream;
+
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+import org.apache.rocketmq.streams.core.serialization.KeyValueDeserializer;
+import org.apache.rocketmq.streams.core.util.Pair;
+import org.apache.rocketmq.streams.core.window.Time;
+import org.apache.rocketmq.streams.core.window.WindowBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * checks the plan before and after optimization.
+ */
+public class PlanOptimizerTest {
+    public static void main(String[] args) {
+        StreamConfig.OPTIMIZE_PLAN = true;
+        StreamBuilder builder = build("planOptimizerTest");
+        String explain = builder.explain();
+        System.out.println(explain);
+
+        String after = explain.substring(explain.indexOf("plan after optimization:"));
+        //filter and map run before the shuffle of window, merged map is removed, user map without downstream is kept
+        check(nodes(after).equals(Arrays.asList("SOURCE-00001", "MAP-00002", "GROUPBY-00003", "FILTER-00005", "MAP-00006", "WINDOW-00004",
+                "COUNT-00008", "PRINT-00009")), "unexpected optimized plan: " + after);
+
+        //optimized nodes are built into topology
+        builder.build();
+
+        //explain does not optimize the plan when optimization is off
+        StreamConfig.OPTIMIZE_PLAN = false;
+        try {
+            StreamBuilder notOptimized = build("planNotOptimizedTest");
+            String plan = notOptimized.explain();
+            check(nodes(plan).equals(nodes(notOptimized.explain())), "plan changed by explain: " + plan);
+            check(nodes(plan).stream().map(name -> name.substring(0, name.indexOf('-'))).collect(Collectors.toList())
+                            .equals(Arrays.asList("SOURCE", "MAP", "GROUPBY", "WINDOW", "FILTER", "MAP", "MAP", "COUNT", "PRINT")),
+                    "plan changed without optimization: " + plan);
+        } finally {
+            StreamConfig.OPTIMIZE_PLAN = false;
+        }
+    }
+
+    private static StreamBuilder build(String jobId) {
+        StreamBuilder builder = new StreamBuilder(jobId);
+
+        RStream<String> source = builder.source("sourceTopic", (KeyValueDeserializer<Void, String>) total -> new Pair<>(null, new String(total, StandardCharsets.UTF_8)));
+        //没有下游的map可能有副作用，不删除
+        source.map(value -> value + "-unused");
+
+        source.keyBy(value -> value)
+                .window(WindowBuilder.tumblingWindow(Time.seconds(5)))
+                .filter(value -> value.length() > 2)
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .count()
+                .toRStream()
+                .print();
+        return builder;
+    }
+
+    /**
+     * names of nodes in the order they are printed, without job id and operator prefix.
+     */
+    private static List<String> nodes(String plan) {
+        List<String> result = new ArrayList<>();
+        Matcher matcher = Pattern.compile("ROCKETMQ-([A-Z_]+-\\d+) ").matcher(plan);
+        while (matcher.find()) {
+            result.add(matcher.group(1));
+        }
+        return result;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
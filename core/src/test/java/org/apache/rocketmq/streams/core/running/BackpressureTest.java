@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * worker resumes when async records are resolved, even if local inbox is full and its copies wait for data from broker.
+ */
+public class BackpressureTest {
+    public static void main(String[] args) throws Throwable {
+        StreamConfig.BACKPRESSURE_MAX_IN_FLIGHT = 4;
+        StreamConfig.BACKPRESSURE_MAX_DIRTY_STATE = 0;
+        StreamConfig.BACKPRESSURE_MAX_PERSIST_MILLIS = 0L;
+        StreamConfig.LOCAL_SHUFFLE_INBOX_CAPACITY = 4;
+
+        DefaultLitePullConsumer consumer = new DefaultLitePullConsumer("backpressureTest");
+        Backpressure backpressure = new Backpressure("worker-0", consumer);
+        InFlightTracker inFlightTracker = new InFlightTracker();
+
+        MessageQueue sourceQueue = new MessageQueue("source", "broker", 0);
+        MessageQueue shuffleQueue = new MessageQueue("job-shuffleTopic", "broker", 0);
+        LocalShuffleInbox inbox = new LocalShuffleInbox();
+        inbox.own(Collections.singleton(shuffleQueue));
+
+        //async records use up the credit
+        for (long offset = 0; offset < 4; offset++) {
+            inFlightTracker.add(sourceQueue, offset);
+        }
+        check(backpressure.check(inFlightTracker.size(), 0), "worker should pause when in-flight records are at max");
+
+        //offset 0 is read from broker, offset 1 is not, so local copies after it can not be processed while paused
+        check(!inbox.polled(shuffleQueue, 0), "offset 0 should be processed from broker");
+        for (long offset = 2; offset < 6; offset++) {
+            check(LocalShuffleInbox.deliver(message(offset), sendResult(shuffleQueue, offset)), "offset " + offset + " should be handed over");
+        }
+        check(inbox.size() == StreamConfig.LOCAL_SHUFFLE_INBOX_CAPACITY, "inbox should be full");
+        check(inbox.poll() == null, "local copies should wait for offset 1");
+
+        //async records are resolved, inbox is still full
+        for (long offset = 0; offset < 4; offset++) {
+            inFlightTracker.remove(sourceQueue, offset);
+        }
+        check(!backpressure.check(inFlightTracker.size(), 0), "worker should resume when in-flight records are resolved");
+
+        //polling again, local copies are processed after offset 1
+        check(!inbox.polled(shuffleQueue, 1), "offset 1 should be processed from broker");
+        int drained = 0;
+        while (inbox.poll() != null) {
+            drained++;
+        }
+        check(drained == 4 && inbox.size() == 0, "inbox should be drained after offset 1");
+
+        inbox.close();
+        System.out.println("backpressure ok.");
+    }
+
+    private static Message message(long offset) {
+        return new Message("job-shuffleTopic", String.valueOf(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SendResult sendResult(MessageQueue queue, long offset) {
+        SendResult result = new SendResult();
+        result.setSendStatus(SendStatus.SEND_OK);
+        result.setMessageQueue(queue);
+        result.setQueueOffset(offset);
+        return result;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
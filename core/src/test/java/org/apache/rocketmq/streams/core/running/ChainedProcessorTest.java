@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.streams.core.function.supplier.FilterSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.KeySelectSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.ValueChangeSupplier;
+import org.apache.rocketmq.streams.core.metadata.Data;
+import org.apache.rocketmq.streams.core.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * map -> filter -> map -> keyBy gives the same result fused or not, and compares the time of both.
+ */
+public class ChainedProcessorTest {
+    private static final int NUM = 5_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        ValueChangeSupplier<Object, Object> map1 = new ValueChangeSupplier<>(data -> (Integer) data * 2);
+        FilterSupplier<Object> filter = new FilterSupplier<>(data -> (Integer) data % 3 != 0);
+        ValueChangeSupplier<Object, Object> map2 = new ValueChangeSupplier<>(data -> "v" + data);
+        KeySelectSupplier<Object, Object> keyBy = new KeySelectSupplier<>(data -> ((String) data).length());
+
+        for (int round = 0; round < 3; round++) {
+            List<String> unfused = new ArrayList<>();
+            long unfusedCost = run(chain(map1.get(), filter.get(), map2.get(), keyBy.get()), unfused);
+
+            List<String> fused = new ArrayList<>();
+            ChainedProcessor<Object> chained = new ChainedProcessor<>(Arrays.asList(map1.step(), filter.step(), map2.step(), keyBy.step()));
+            long fusedCost = run(chained, fused);
+
+            if (!unfused.equals(fused)) {
+                throw new IllegalStateException("fused result is different.");
+            }
+            System.out.println("round " + round + ", result num: " + fused.size() + ", unfused: " + unfusedCost + "ms, fused: " + fusedCost + "ms");
+        }
+    }
+
+    private static Processor<Object> chain(Processor<Object>... processors) {
+        for (int i = 0; i < processors.length - 1; i++) {
+            processors[i].addChild(processors[i + 1]);
+        }
+        return processors[0];
+    }
+
+    private static long run(Processor<Object> head, List<String> result) throws Throwable {
+        Processor<Object> last = head;
+        while (last instanceof AbstractProcessor && ((AbstractProcessor<Object>) last).getChildren().size() != 0) {
+            last = ((AbstractProcessor<Object>) last).getChildren().get(0);
+        }
+        last.addChild(new AbstractProcessor<Object>() {
+            @Override
+            public void process(Object data) {
+                //只保留部分结果用于比较
+                if (result.size() < 1000) {
+                    result.add(this.context.getKey() + "=" + data);
+                }
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < NUM; i++) {
+            StreamContextImpl<Object> context = new StreamContextImpl<>(new Properties(), null, null, null,
+                    Utils.buildKey("broker", "topic", 0), null, null);
+            context.init(new ArrayList<>(Arrays.asList(head)));
+            context.forward(new Data<>(null, i, (long) i, new Properties()));
+        }
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * every shuffle data is processed once, either from local inbox or from broker, in offset order of its queue.
+ */
+public class LocalShuffleInboxTest {
+    public static void main(String[] args) {
+        MessageQueue queue = new MessageQueue("job-shuffleTopic", "broker", 0);
+        LocalShuffleInbox inbox = new LocalShuffleInbox();
+        inbox.own(Collections.singleton(queue));
+
+        //position of queue is unknown before data is read back from broker, local copy waits
+        check(LocalShuffleInbox.deliver(message("0"), sendResult(queue, 0)), "offset 0 should be handed over");
+        check(inbox.poll() == null, "offset 0 should wait for position of queue");
+        check(!inbox.polled(queue, 0), "offset 0 should be processed from broker");
+        check(inbox.size() == 0, "local copy of offset 0 should be replaced");
+
+        check(LocalShuffleInbox.deliver(message("1"), sendResult(queue, 1)), "offset 1 should be handed over");
+        MessageExt local = inbox.poll();
+        check(local != null && local.getQueueOffset() == 1 && "1".equals(new String(local.getBody(), StandardCharsets.UTF_8)), "offset 1 should be in inbox");
+        check(inbox.polled(queue, 1), "offset 1 from broker should be skipped");
+
+        //offset 2 is written by another process, offset 3 waits for it
+        check(LocalShuffleInbox.deliver(message("3"), sendResult(queue, 3)), "offset 3 should be handed over");
+        check(inbox.poll() == null, "offset 3 should not be processed before offset 2");
+        check(!inbox.polled(queue, 2), "offset 2 should be processed from broker");
+        local = inbox.poll();
+        check(local != null && local.getQueueOffset() == 3, "offset 3 should be processed after offset 2");
+        check(inbox.polled(queue, 3), "offset 3 from broker should be skipped");
+
+        //inbox is bounded, data which is not handed over is read from broker
+        StreamConfig.LOCAL_SHUFFLE_INBOX_CAPACITY = 1;
+        check(LocalShuffleInbox.deliver(message("4"), sendResult(queue, 4)), "offset 4 should be handed over");
+        check(!LocalShuffleInbox.deliver(message("5"), sendResult(queue, 5)), "offset 5 should not be handed over to full inbox");
+        check(inbox.poll().getQueueOffset() == 4, "offset 4 should be in inbox");
+        check(inbox.polled(queue, 4), "offset 4 from broker should be skipped");
+        check(!inbox.polled(queue, 5), "offset 5 should be processed from broker");
+
+        inbox.release(Collections.singleton(queue));
+        check(!LocalShuffleInbox.deliver(message("6"), sendResult(queue, 6)), "released queue should not be handed over");
+        check(inbox.poll() == null && inbox.size() == 0, "inbox should be empty");
+
+        inbox.close();
+        System.out.println("local shuffle inbox ok.");
+    }
+
+    private static Message message(String body) {
+        return new Message("job-shuffleTopic", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SendResult sendResult(MessageQueue queue, long offset) {
+        SendResult result = new SendResult();
+        result.setSendStatus(SendStatus.SEND_OK);
+        result.setMessageQueue(queue);
+        result.setQueueOffset(offset);
+        return result;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.streams.core.function.supplier.AsyncValueChangeSupplier;
+import org.apache.rocketmq.streams.core.util.Utils;
+
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs mapAsync against a local stub service which replies with random delay.
+ */
+public class MapAsyncTest {
+    public static void main(String[] args) throws Throwable {
+        ScheduledExecutorService stubService = Executors.newScheduledThreadPool(4);
+        Random random = new Random();
+
+        run(stubService, random, true);
+        run(stubService, random, false);
+
+        stubService.shutdownNow();
+    }
+
+    private static void run(ScheduledExecutorService stubService, Random random, boolean ordered) throws Throwable {
+        InFlightTracker tracker = new InFlightTracker();
+        MessageQueue queue = new MessageQueue("topic", "broker", 0);
+        StreamContextImpl<Object> context = new StreamContextImpl<>(new Properties(), null, null, null,
+                Utils.buildKey("broker", "topic", 0), null, tracker);
+
+        AsyncValueChangeSupplier<Object, Object> supplier = new AsyncValueChangeSupplier<>(data -> {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            //第10条数据不返回，超时后被丢弃
+            if (!Integer.valueOf(10).equals(data)) {
+                stubService.schedule(() -> future.complete("reply-" + data), random.nextInt(50), TimeUnit.MILLISECONDS);
+            }
+            return future;
+        }, 4, 200, ordered);
+
+        Processor<Object> processor = supplier.get();
+        processor.addChild(new AbstractProcessor<Object>() {
+            @Override
+            public void process(Object data) {
+                System.out.println("ordered=" + ordered + ", emit: " + data + ", min unresolved offset: " + tracker.minUnresolvedOffset(queue));
+            }
+        });
+
+        for (int i = 0; i < 20; i++) {
+            context.setSourceOffset(i);
+            processor.preProcess(context);
+            processor.process(i);
+        }
+
+        while (tracker.minUnresolvedOffset(queue) != null) {
+            tracker.drain();
+            Thread.sleep(10);
+        }
+        System.out.println("ordered=" + ordered + ", all resolved.");
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+/**
+ * pull batch size and poll timeout under backlog, light load and idle in adaptive mode.
+ */
+public class PollControllerTest {
+    public static void main(String[] args) {
+        StreamConfig.ADAPTIVE_POLL = true;
+        StreamConfig.POLL_STATS_INTERVAL_MILLIS = 0L;
+
+        DefaultLitePullConsumer consumer = new DefaultLitePullConsumer("pollControllerTest");
+        PollController controller = new PollController("worker-0", consumer);
+
+        //backlog: every poll is full
+        for (int i = 0; i < 8; i++) {
+            controller.polled(consumer.getPullBatchSize(), 1_000_000);
+            System.out.println("backlog, pull batch size: " + consumer.getPullBatchSize() + ", timeout: " + controller.getTimeout());
+        }
+
+        //light load
+        for (int i = 0; i < 8; i++) {
+            controller.polled(10, 1_000_000);
+            System.out.println("light load, pull batch size: " + consumer.getPullBatchSize() + ", timeout: " + controller.getTimeout());
+        }
+
+        //idle
+        for (int i = 0; i < 5; i++) {
+            controller.polled(0, 10_000_000);
+            System.out.println("idle, pull batch size: " + consumer.getPullBatchSize() + ", timeout: " + controller.getTimeout());
+        }
+    }
+}
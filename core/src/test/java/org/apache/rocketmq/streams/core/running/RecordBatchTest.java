@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.running;
+
+import org.apache.rocketmq.streams.core.function.supplier.FilterSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.KeySelectSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.MultiValueChangeSupplier;
+import org.apache.rocketmq.streams.core.function.supplier.ValueChangeSupplier;
+import org.apache.rocketmq.streams.core.metadata.Data;
+import org.apache.rocketmq.streams.core.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * map -> filter -> map -> keyBy -> flatMap gives the same result record at a time or in batch, and compares the time.
+ */
+public class RecordBatchTest {
+    private static final int NUM = 5_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        ValueChangeSupplier<Object, Object> map1 = new ValueChangeSupplier<>(data -> (Integer) data * 2);
+        FilterSupplier<Object> filter = new FilterSupplier<>(data -> (Integer) data % 3 != 0);
+        ValueChangeSupplier<Object, Object> map2 = new ValueChangeSupplier<>(data -> "v" + data);
+        KeySelectSupplier<Object, Object> keyBy = new KeySelectSupplier<>(data -> ((String) data).length());
+        MultiValueChangeSupplier<Object, Object> flatMap = new MultiValueChangeSupplier<>(data -> Arrays.asList(data, data + "-copy"));
+
+        for (int round = 0; round < 3; round++) {
+            for (int batchSize : new int[]{1, 32, 256}) {
+                List<String> result = new ArrayList<>();
+                Processor<Object> chained = new ChainedProcessor<>(Arrays.asList(map1.step(), filter.step(), map2.step(), keyBy.step()));
+                chained.addChild(flatMap.get());
+                long cost = run(chained, batchSize, result);
+                System.out.println("round " + round + ", batch size: " + batchSize + ", result: " + result.hashCode() + ", cost: " + cost + "ms");
+            }
+        }
+    }
+
+    private static long run(Processor<Object> head, int batchSize, List<String> result) throws Throwable {
+        Processor<Object> last = head;
+        while (last instanceof AbstractProcessor && ((AbstractProcessor<Object>) last).getChildren().size() != 0) {
+            last = ((AbstractProcessor<Object>) last).getChildren().get(0);
+        }
+        last.addChild(new AbstractProcessor<Object>() {
+            @Override
+            public void process(Object data) {
+                //只保留部分结果用于比较
+                if (result.size() < 1000) {
+                    result.add(this.context.getKey() + "=" + data + "@" + this.context.getSourceOffset());
+                }
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        RecordBatch batch = new RecordBatch(batchSize);
+        for (int i = 0; i < NUM; i++) {
+            StreamContextImpl<Object> context = new StreamContextImpl<>(new Properties(), null, null, null,
+                    Utils.buildKey("broker", "topic", 0), null, null);
+            context.init(new ArrayList<>(Arrays.asList(head)));
+
+            if (batchSize == 1) {
+                context.setSourceOffset(i);
+                context.forward(new Data<>(null, i, (long) i, new Properties()));
+                continue;
+            }
+
+            batch.add(null, i, i, i, new Properties());
+            if (batch.size() == batchSize || i == NUM - 1) {
+                context.forwardBatch(batch);
+                batch.clear();
+            }
+        }
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import org.apache.rocketmq.streams.core.exception.RStreamsException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * dates, arrays and fields of concrete collection type are read back as written, unsupported field types are rejected.
+ */
+public class BinaryCodecTest {
+    public static void main(String[] args) throws Throwable {
+        Date epoch = (Date) BinaryCodec.decode(BinaryCodec.encode(new Date(0)));
+        check(epoch.getTime() == 0, "date of 0 is read as " + epoch.getTime());
+
+        Instant instant = Instant.ofEpochSecond(-10, 123);
+        check(instant.equals(BinaryCodec.decode(BinaryCodec.encode(instant))), "instant changed");
+        LocalDateTime dateTime = LocalDateTime.of(2022, 11, 12, 13, 14, 15, 16);
+        check(dateTime.equals(BinaryCodec.decode(BinaryCodec.encode(dateTime))), "local date time changed");
+
+        int[] ints = (int[]) BinaryCodec.decode(BinaryCodec.encode(new int[]{1, -2, 3}));
+        check(Arrays.equals(ints, new int[]{1, -2, 3}), "int array changed: " + Arrays.toString(ints));
+        String[][] strings = (String[][]) BinaryCodec.decode(BinaryCodec.encode(new String[][]{{"a"}, {"b", null}}));
+        check(strings[1][0].equals("b") && strings[1][1] == null, "string array changed: " + Arrays.deepToString(strings));
+
+        Holder holder = new Holder();
+        holder.created = new Date(0);
+        holder.scores = new double[]{1.5, 2.5};
+        holder.names = new LinkedList<>(Arrays.asList("x", "y"));
+        holder.counts = new TreeMap<>();
+        holder.counts.put("b", 2);
+        holder.counts.put("a", 1);
+        holder.tags = Arrays.asList("t1", "t2");
+
+        Holder result = (Holder) BinaryCodec.decode(BinaryCodec.encode(holder));
+        check(result.created.getTime() == 0, "date field changed");
+        check(Arrays.equals(result.scores, holder.scores), "double array field changed");
+        check(result.names instanceof LinkedList && result.names.equals(holder.names), "linked list field: " + result.names);
+        check(result.counts instanceof TreeMap && result.counts.equals(holder.counts), "tree map field: " + result.counts);
+        check(result.tags.equals(holder.tags), "list field: " + result.tags);
+
+        try {
+            BinaryCodec.encode(new Unsupported());
+            throw new IllegalStateException("unsupported field type is accepted");
+        } catch (RStreamsException e) {
+            System.out.println("rejected: " + e.getMessage());
+        }
+
+        System.out.println("binary codec round trip passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    static class Holder {
+        private Date created;
+        private double[] scores;
+        private LinkedList<String> names;
+        private TreeMap<String, Integer> counts;
+        private List<String> tags;
+    }
+
+    static class Unsupported {
+        private Map.Entry<String, String> entry;
+        private java.util.Calendar calendar;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import org.apache.rocketmq.streams.core.serialization.deImpl.KVJsonDeserializer;
+import org.apache.rocketmq.streams.core.serialization.serImpl.KVJsonSerializer;
+import org.apache.rocketmq.streams.core.window.WindowState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * throughput of json codecs of state and shuffle.
+ */
+public class JsonCodecBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ROUNDS = 1_000_000;
+    private static final int THREAD_NUM = 4;
+
+    public static void main(String[] args) throws Throwable {
+        List<ShuffleSerdeBenchmark.Order> orders = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            orders.add(new ShuffleSerdeBenchmark.Order("order-" + i, i * 31L, i * 1.5D, i % 7, i % 2 == 0,
+                    ShuffleSerdeBenchmark.Status.values()[i % 3]));
+        }
+
+        run("state", orders, () -> (key, value) -> {
+            WindowState<String, ShuffleSerdeBenchmark.Order> state = new WindowState<>(key, value, value.getUserId());
+            byte[] bytes = WindowState.windowState2Byte(state);
+            WindowState.byte2WindowState(bytes);
+        });
+
+        run("shuffle", orders, () -> {
+            KVJsonSerializer<String, ShuffleSerdeBenchmark.Order> serializer = new KVJsonSerializer<>();
+            KVJsonDeserializer<String, ShuffleSerdeBenchmark.Order> deserializer = new KVJsonDeserializer<>();
+            return (key, value) -> {
+                byte[] bytes = serializer.serialize(key, value);
+                deserializer.configure(String.class.getName(), ShuffleSerdeBenchmark.Order.class.getName());
+                deserializer.deserialize(bytes);
+            };
+        });
+    }
+
+    private static void run(String name, List<ShuffleSerdeBenchmark.Order> orders, RoundTripFactory factory) throws Throwable {
+        RoundTrip roundTrip = factory.create();
+        for (int i = 0; i < WARMUP; i++) {
+            ShuffleSerdeBenchmark.Order order = orders.get(i & 1023);
+            roundTrip.apply(order.getId(), order);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            ShuffleSerdeBenchmark.Order order = orders.get(i & 1023);
+            roundTrip.apply(order.getId(), order);
+        }
+        long single = System.nanoTime() - begin;
+
+        //codecs are shared by worker threads
+        Thread[] threads = new Thread[THREAD_NUM];
+        for (int t = 0; t < THREAD_NUM; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < ROUNDS; i++) {
+                        ShuffleSerdeBenchmark.Order order = orders.get(i & 1023);
+                        roundTrip.apply(order.getId(), order);
+                    }
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        begin = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long multi = System.nanoTime() - begin;
+
+        System.out.printf("%-8s 1 thread: %8.0f ops/s, %d threads: %8.0f ops/s%n", name,
+                ROUNDS * 1e9 / single, THREAD_NUM, THREAD_NUM * ROUNDS * 1e9 / multi);
+    }
+
+    interface RoundTrip {
+        void apply(String key, ShuffleSerdeBenchmark.Order value) throws Throwable;
+    }
+
+    interface RoundTripFactory {
+        RoundTrip create();
+    }
+}
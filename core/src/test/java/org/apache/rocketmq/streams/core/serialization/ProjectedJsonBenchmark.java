@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import org.apache.rocketmq.streams.core.serialization.deImpl.ProjectedJsonDeserializer;
+import org.apache.rocketmq.streams.core.util.CodecCache;
+import org.apache.rocketmq.streams.core.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * source with a selective filter, full binding then filter vs filter on projected fields then binding.
+ */
+public class ProjectedJsonBenchmark {
+    private static final int ROUNDS = 2_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        List<byte[]> bodies = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            ShuffleSerdeBenchmark.Order order = new ShuffleSerdeBenchmark.Order("order-" + i, i * 31L, i * 1.5D, i % 7, i % 2 == 0,
+                    ShuffleSerdeBenchmark.Status.values()[i % 3]);
+            bodies.add(CodecCache.writeValueAsBytes(order));
+        }
+
+        KeyValueDeserializer<Void, ShuffleSerdeBenchmark.Order> projected = new ProjectedJsonDeserializer<>(ShuffleSerdeBenchmark.Order.class,
+                fields -> Integer.valueOf(0).equals(fields.get("count")), "count");
+
+        for (int round = 0; round < 3; round++) {
+            int fullPass = 0;
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < ROUNDS; i++) {
+                ShuffleSerdeBenchmark.Order order = CodecCache.readValue(bodies.get(i & 1023), ShuffleSerdeBenchmark.Order.class);
+                if (order.getCount() == 0) {
+                    fullPass++;
+                }
+            }
+            long fullCost = System.currentTimeMillis() - start;
+
+            int projectedPass = 0;
+            start = System.currentTimeMillis();
+            for (int i = 0; i < ROUNDS; i++) {
+                Pair<Void, ShuffleSerdeBenchmark.Order> pair = projected.deserialize(bodies.get(i & 1023));
+                if (pair != null) {
+                    projectedPass++;
+                }
+            }
+            long projectedCost = System.currentTimeMillis() - start;
+
+            if (fullPass != projectedPass) {
+                throw new IllegalStateException("projected result is different.");
+            }
+            System.out.println("round " + round + ", pass: " + projectedPass + ", full binding: " + fullCost + "ms, projected: " + projectedCost + "ms");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.serialization;
+
+import org.apache.rocketmq.streams.core.serialization.deImpl.KVBinaryDeserializer;
+import org.apache.rocketmq.streams.core.serialization.deImpl.KVJsonDeserializer;
+import org.apache.rocketmq.streams.core.serialization.serImpl.KVBinarySerializer;
+import org.apache.rocketmq.streams.core.serialization.serImpl.KVJsonSerializer;
+import org.apache.rocketmq.streams.core.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * compares the shuffle round trip of json serde and binary serde.
+ */
+public class ShuffleSerdeBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ROUNDS = 1_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            orders.add(new Order("order-" + i, i * 31L, i * 1.5D, i % 7, i % 2 == 0, Status.values()[i % 3]));
+        }
+
+        KVJsonSerializer<String, Order> jsonSerializer = new KVJsonSerializer<>();
+        KVJsonDeserializer<String, Order> jsonDeserializer = new KVJsonDeserializer<>();
+        KVBinarySerializer<String, Order> binarySerializer = new KVBinarySerializer<>();
+        KVBinaryDeserializer<String, Order> binaryDeserializer = new KVBinaryDeserializer<>();
+
+        //check correctness
+        Order origin = orders.get(5);
+        jsonDeserializer.configure(String.class.getName(), Order.class.getName());
+        Pair<String, Order> json = jsonDeserializer.deserialize(jsonSerializer.serialize(origin.id, origin));
+        Pair<String, Order> binary = binaryDeserializer.deserialize(binarySerializer.serialize(origin.id, origin));
+        System.out.println("json: " + json.getValue() + ", binary: " + binary.getValue());
+
+        run("json", orders, (key, value) -> {
+            byte[] bytes = jsonSerializer.serialize(key, value);
+            //the class names are sent with every message and loaded by Class.forName
+            jsonDeserializer.configure(String.class.getName(), Order.class.getName());
+            jsonDeserializer.deserialize(bytes);
+            return bytes.length + String.class.getName().length() + Order.class.getName().length();
+        });
+
+        run("binary, class name", orders, (key, value) -> {
+            byte[] bytes = binarySerializer.serialize(key, value);
+            binaryDeserializer.deserialize(bytes);
+            return bytes.length;
+        });
+
+        TypeRegistry.register(Order.class, TypeRegistry.FIRST_USER_ID);
+        TypeRegistry.register(Status.class, TypeRegistry.FIRST_USER_ID + 1);
+        run("binary, registered", orders, (key, value) -> {
+            byte[] bytes = binarySerializer.serialize(key, value);
+            binaryDeserializer.deserialize(bytes);
+            return bytes.length;
+        });
+    }
+
+    private static void run(String name, List<Order> orders, RoundTrip roundTrip) throws Throwable {
+        for (int i = 0; i < WARMUP; i++) {
+            Order order = orders.get(i & 1023);
+            roundTrip.apply(order.id, order);
+        }
+
+        long bytes = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            Order order = orders.get(i & 1023);
+            bytes += roundTrip.apply(order.id, order);
+        }
+        long cost = System.nanoTime() - begin;
+
+        System.out.printf("%-20s %8d ns/op, %6.1f bytes/op%n", name, cost / ROUNDS, (double) bytes / ROUNDS);
+    }
+
+    interface RoundTrip {
+        int apply(String key, Order value) throws Throwable;
+    }
+
+    enum Status {
+        CREATED, PAID, CLOSED
+    }
+
+    static class Order {
+        private String id;
+        private long userId;
+        private double amount;
+        private int count;
+        private boolean vip;
+        private Status status;
+
+        public Order() {
+        }
+
+        Order(String id, long userId, double amount, int count, boolean vip, Status status) {
+            this.id = id;
+            this.userId = userId;
+            this.amount = amount;
+            this.count = count;
+            this.vip = vip;
+            this.status = status;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public void setUserId(long userId) {
+            this.userId = userId;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(double amount) {
+            this.amount = amount;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public boolean isVip() {
+            return vip;
+        }
+
+        public void setVip(boolean vip) {
+            this.vip = vip;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        @Override
+        public String toString() {
+            return "Order{id=" + id + ", userId=" + userId + ", amount=" + amount + ", count=" + count + ", vip=" + vip + ", status=" + status + "}";
+        }
+    }
+}
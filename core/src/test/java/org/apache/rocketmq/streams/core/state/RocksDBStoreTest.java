@@ -19,8 +19,11 @@ package org.apache.rocketmq.streams.core.state;
 import org.apache.rocketmq.streams.core.window.WindowKey;
 import org.apache.rocketmq.streams.core.util.Pair;
 import org.apache.rocketmq.streams.core.util.Utils;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.Snapshot;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 public class RocksDBStoreTest {
@@ -52,6 +55,88 @@ public class RocksDBStoreTest {
         Object result2 = Utils.byte2Object(bytes2, Object.class);
         System.out.println(result2);
 
+        //snapshot sees the value when it is taken
+        Snapshot snapshot = rocksDBStore.getSnapshot();
+        rocksDBStore.put(keyBytes, Utils.object2Byte("4"));
+        try (ReadOptions readOptions = new ReadOptions().setSnapshot(snapshot)) {
+            System.out.println("in snapshot: " + Utils.byte2Object(rocksDBStore.get(readOptions, keyBytes), Object.class)
+                    + ", latest: " + Utils.byte2Object(rocksDBStore.get(keyBytes), Object.class));
+        } finally {
+            rocksDBStore.releaseSnapshot(snapshot);
+        }
+
+        //adjacent keys are deleted by range, the key kept in the middle breaks the range
+        List<byte[]> toDelete = new ArrayList<>();
+        byte[] kept = null;
+        for (long i = 0; i < 40; i++) {
+            byte[] windowKey = key2Byte(new WindowKey("delete", "keyString", 1000 + i, i));
+            rocksDBStore.put(windowKey, Utils.object2Byte(String.valueOf(i)));
+            if (i == 20) {
+                kept = windowKey;
+            } else {
+                toDelete.add(windowKey);
+            }
+        }
+        rocksDBStore.deleteByKeys(toDelete);
+        int left = 0;
+        for (byte[] windowKey : toDelete) {
+            if (rocksDBStore.get(windowKey) != null) {
+                left++;
+            }
+        }
+        System.out.println("left after delete: " + left + ", kept: " + Utils.byte2Object(rocksDBStore.get(kept), Object.class));
+
+        //key inserted between adjacent keys while they are deleted is kept
+        for (int round = 0; round < 200; round++) {
+            List<byte[]> adjacent = new ArrayList<>();
+            List<byte[]> inserted = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                byte[] adjacentKey = Utils.buildKey("concurrent", String.valueOf(round), String.format("%05d", i)).getBytes(StandardCharsets.UTF_8);
+                rocksDBStore.put(adjacentKey, Utils.object2Byte(String.valueOf(i)));
+                adjacent.add(adjacentKey);
+                inserted.add(Utils.buildKey("concurrent", String.valueOf(round), String.format("%05d", i), "inserted").getBytes(StandardCharsets.UTF_8));
+            }
+
+            Thread writer = new Thread(() -> {
+                try {
+                    for (byte[] insertedKey : inserted) {
+                        rocksDBStore.put(insertedKey, Utils.object2Byte("inserted"));
+                    }
+                } catch (Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            });
+            writer.start();
+            rocksDBStore.deleteByKeys(adjacent);
+            writer.join();
+
+            for (byte[] insertedKey : inserted) {
+                if (rocksDBStore.get(insertedKey) == null) {
+                    throw new IllegalStateException("key inserted during delete is lost: " + new String(insertedKey, StandardCharsets.UTF_8));
+                }
+            }
+            for (byte[] adjacentKey : adjacent) {
+                if (rocksDBStore.get(adjacentKey) != null) {
+                    throw new IllegalStateException("key is not deleted: " + new String(adjacentKey, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        System.out.println("keys inserted during delete are kept");
+
+        //fixed width time in key, range seek returns keys in time order
+        for (long time : new long[]{5, 100, 20, 3000, 7}) {
+            byte[] timeKey = Utils.buildKey("range", String.format("%019d", time), "1").getBytes(StandardCharsets.UTF_8);
+            rocksDBStore.put(timeKey, Utils.object2Byte(String.valueOf(time)));
+        }
+        List<Pair<byte[], byte[]>> inRange = rocksDBStore.searchByKeyRange(
+                Utils.buildKey("range", String.format("%019d", 7)).getBytes(StandardCharsets.UTF_8),
+                Utils.buildKey("range", String.format("%019d", 101)).getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE);
+        List<Object> times = new ArrayList<>();
+        for (Pair<byte[], byte[]> pair : inRange) {
+            times.add(Utils.byte2Object(pair.getValue(), Object.class));
+        }
+        System.out.println("in [7, 100]: " + times);
+
         WindowKey searchKey = new WindowKey("test1", "keyString1", 13l, 1l);
         String operatorName = searchKey.getOperatorName();
         List<Pair<byte[], byte[]>> pairs = rocksDBStore.searchStateLessThanWatermark(operatorName, 11l, RocksDBStoreTest::byte2WindowKey);
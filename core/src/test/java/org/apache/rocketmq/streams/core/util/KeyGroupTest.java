@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.util;
+
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+/**
+ * key group ranges of queues cover all key groups without overlap, and a key always stays in its key group.
+ */
+public class KeyGroupTest {
+    public static void main(String[] args) {
+        StreamConfig.KEY_GROUP_NUM = 128;
+
+        for (int queueNum : new int[]{1, 3, 8, 16, 100, 128}) {
+            int covered = 0;
+            for (int queueId = 0; queueId < queueNum; queueId++) {
+                int start = KeyGroup.start(queueId, queueNum);
+                int end = KeyGroup.end(queueId, queueNum);
+                check(start < end, "queue owns no key group, queueNum=" + queueNum + ", queueId=" + queueId);
+
+                for (int keyGroup = start; keyGroup < end; keyGroup++) {
+                    check(KeyGroup.queueOf(keyGroup, queueNum) == queueId, "key group routed to other queue, keyGroup=" + keyGroup);
+                    covered++;
+                }
+            }
+            check(covered == StreamConfig.KEY_GROUP_NUM, "key groups not covered, queueNum=" + queueNum);
+        }
+
+        String hexKey = Utils.toHexString("key-1");
+        int keyGroup = KeyGroup.of(hexKey);
+        check(keyGroup >= 0 && keyGroup < StreamConfig.KEY_GROUP_NUM, "key group out of range");
+        check(KeyGroup.of(null) == KeyGroup.NONE, "null key has no key group");
+
+        System.out.println("key group of [key-1]: " + keyGroup + ", queue with 8 queues: " + KeyGroup.queueOf(keyGroup, 8)
+                + ", queue with 16 queues: " + KeyGroup.queueOf(keyGroup, 16));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
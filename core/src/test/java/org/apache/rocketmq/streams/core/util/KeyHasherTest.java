@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.rocketmq.streams.core.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.rocketmq.streams.core.metadata.StreamConfig;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * md5 hasher keeps the hash of old versions, and the time of hashing keys with md5 and murmur3.
+ */
+public class KeyHasherTest {
+    private static final int ROUNDS = 2_000_000;
+
+    public static void main(String[] args) throws Throwable {
+        String key = "user-10086";
+        System.out.println("md5 compatible: " + DigestUtils.md5Hex(key).equals(Utils.toHexString(key)));
+        System.out.println("murmur3 of hello: " + KeyHasher.of(KeyHasher.MURMUR3).hashHex("hello".getBytes(StandardCharsets.UTF_8)));
+
+        Num num = new Num(10086);
+        for (String name : new String[]{KeyHasher.MD5, KeyHasher.MURMUR3}) {
+            StreamConfig.KEY_HASHER = name;
+            for (int i = 0; i < ROUNDS / 10; i++) {
+                Utils.toHexString(num);
+            }
+
+            long begin = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) {
+                Utils.toHexString(num);
+            }
+            long cost = System.nanoTime() - begin;
+            System.out.printf("%-8s %5d ns/key, %s%n", name, cost / ROUNDS, Utils.toHexString(num));
+        }
+        StreamConfig.KEY_HASHER = KeyHasher.MD5;
+    }
+
+    static class Num {
+        private int value;
+
+        public Num() {
+        }
+
+        Num(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+}